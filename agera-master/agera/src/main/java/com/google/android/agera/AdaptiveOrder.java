@@ -0,0 +1,130 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Evaluation order of the children of an adaptive composite {@link Condition} or {@link Predicate},
+ * learned from how often each child returns the result that decides the composite and how long it
+ * takes to evaluate. Children likely to decide the result cheaply move to the front, so that the
+ * composite short-circuits as early as possible on average.
+ *
+ * <p>Every child evaluation is counted, but only one composite evaluation in
+ * {@code TIMING_INTERVAL} is timed, to keep the overhead below the cost of cheap children. The
+ * order is recomputed every {@code REORDER_INTERVAL} composite evaluations, after which the
+ * statistics are halved so that the order follows changes in the data. The statistics are updated
+ * without synchronization and are approximate under concurrent use; the order itself is always a
+ * complete permutation.
+ */
+final class AdaptiveOrder {
+  private static final int TIMING_INTERVAL = 16;
+  private static final int REORDER_INTERVAL = 256;
+  @NonNull
+  private final long[] evaluatedCounts;
+  @NonNull
+  private final long[] decidingCounts;
+  @NonNull
+  private final long[] timedCounts;
+  @NonNull
+  private final long[] timedNanos;
+  @NonNull
+  private volatile int[] order;
+  private int evaluations;
+
+  AdaptiveOrder(final int childCount) {
+    this.evaluatedCounts = new long[childCount];
+    this.decidingCounts = new long[childCount];
+    this.timedCounts = new long[childCount];
+    this.timedNanos = new long[childCount];
+    final int[] order = new int[childCount];
+    for (int i = 0; i < childCount; i++) {
+      order[i] = i;
+    }
+    this.order = order;
+  }
+
+  /**
+   * Starts an evaluation of the composite, reordering the children if it is time to, and returns
+   * whether the evaluation should be timed.
+   */
+  boolean startEvaluation() {
+    final int evaluations = ++this.evaluations;
+    if (evaluations % REORDER_INTERVAL == 0) {
+      reorder();
+    }
+    return evaluations % TIMING_INTERVAL == 0;
+  }
+
+  /**
+   * Returns the indices of the children in the order to evaluate them. Must not be modified.
+   */
+  @NonNull
+  int[] order() {
+    return order;
+  }
+
+  /**
+   * Records an evaluation of the child at {@code index}, and its duration if it was timed.
+   */
+  void record(final int index, final boolean deciding, final long nanos) {
+    evaluatedCounts[index]++;
+    if (deciding) {
+      decidingCounts[index]++;
+    }
+    if (nanos >= 0) {
+      timedCounts[index]++;
+      timedNanos[index] += nanos;
+    }
+  }
+
+  private synchronized void reorder() {
+    final int childCount = evaluatedCounts.length;
+    long totalNanos = 0;
+    long totalTimed = 0;
+    for (int i = 0; i < childCount; i++) {
+      totalNanos += timedNanos[i];
+      totalTimed += timedCounts[i];
+    }
+    // Children never timed, such as those always short-circuited, are assumed to be average.
+    final double averageNanos = totalTimed == 0 ? 1 : Math.max(1, (double) totalNanos / totalTimed);
+    final double[] scores = new double[childCount];
+    for (int i = 0; i < childCount; i++) {
+      // The chance of deciding the result, smoothed so that a child evaluated rarely is neither
+      // written off nor favored, per nanosecond of evaluation.
+      final double decidingChance = (decidingCounts[i] + 1d) / (evaluatedCounts[i] + 2d);
+      final double nanos = timedCounts[i] == 0
+          ? averageNanos : Math.max(1, (double) timedNanos[i] / timedCounts[i]);
+      scores[i] = decidingChance / nanos;
+      evaluatedCounts[i] /= 2;
+      decidingCounts[i] /= 2;
+      timedCounts[i] /= 2;
+      timedNanos[i] /= 2;
+    }
+    // Stable insertion sort of the current order by descending score; there are few children.
+    final int[] newOrder = order.clone();
+    for (int i = 1; i < childCount; i++) {
+      final int index = newOrder[i];
+      int j = i - 1;
+      while (j >= 0 && scores[newOrder[j]] < scores[index]) {
+        newOrder[j + 1] = newOrder[j];
+        j--;
+      }
+      newOrder[j + 1] = index;
+    }
+    order = newOrder;
+  }
+}
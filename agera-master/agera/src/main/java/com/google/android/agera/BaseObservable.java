@@ -15,17 +15,15 @@
  */
 package com.google.android.agera;
 
-import static android.os.SystemClock.elapsedRealtime;
 import static com.google.android.agera.Preconditions.checkNotNull;
 import static com.google.android.agera.Preconditions.checkState;
-import static com.google.android.agera.WorkerHandler.MSG_LAST_REMOVED;
-import static com.google.android.agera.WorkerHandler.MSG_UPDATE;
+import static com.google.android.agera.Schedulers.currentScheduler;
 import static com.google.android.agera.WorkerHandler.workerHandler;
 
-import android.os.Handler;
-import android.os.Looper;
 import android.support.annotation.NonNull;
-import java.util.Arrays;
+import android.support.annotation.Nullable;
+import com.google.android.agera.UpdatableRegistry.Registration;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A partial implementation of {@link Observable} that adheres to the threading contract between
@@ -38,46 +36,76 @@ import java.util.Arrays;
  * to help implement the {@link Observable} interface.
  */
 public abstract class BaseObservable implements Observable {
-  @NonNull
-  private static final Object[] NO_UPDATABLES_OR_HANDLERS = new Object[0];
   @NonNull
   private final WorkerHandler handler;
   @NonNull
   private final Object token = new Object();
   final int shortestUpdateWindowMillis;
-  // Pairs of updatables and their associated handlers. Always of even length.
   @NonNull
-  private Object[] updatablesAndHandlers;
-  private int size;
+  private final UpdatableRegistry updatables;
+  @NonNull
+  private final AtomicBoolean pendingUpdate = new AtomicBoolean();
+  // Copy of the registrations for dispatching updates outside the lock, dropped on every change
+  // to the registry and taken again on the next dispatch.
+  @Nullable
+  private volatile Registration[] snapshot = UpdatableRegistry.NO_REGISTRATIONS;
   private long lastUpdateTimestamp;
-  private boolean pendingUpdate = false;
+  // Whether the deactivation task scheduled on the last removal is still to deactivate, that is,
+  // no updatable has been added since. Guarded by token.
+  private boolean deactivationPending;
+  @NonNull
+  private final Runnable sendUpdateTask = new Runnable() {
+    @Override
+    public void run() {
+      sendUpdate();
+    }
+  };
+  @NonNull
+  private final Runnable activateTask = new Runnable() {
+    @Override
+    public void run() {
+      observableActivated();
+    }
+  };
+  @NonNull
+  private final Runnable deactivateTask = new Runnable() {
+    @Override
+    public void run() {
+      synchronized (token) {
+        if (!deactivationPending) {
+          return;
+        }
+        deactivationPending = false;
+      }
+      observableDeactivated();
+    }
+  };
 
   protected BaseObservable() {
     this(0);
   }
 
   BaseObservable(final int shortestUpdateWindowMillis) {
-    checkState(Looper.myLooper() != null, "Can only be created on a Looper thread");
+    checkState(currentScheduler() != null, "Can only be created on a Looper or Scheduler thread");
     this.shortestUpdateWindowMillis = shortestUpdateWindowMillis;
     this.handler = workerHandler();
-    this.updatablesAndHandlers = NO_UPDATABLES_OR_HANDLERS;
-    this.size = 0;
+    this.updatables = new UpdatableRegistry();
   }
 
   @Override
   public final void addUpdatable(@NonNull final Updatable updatable) {
-    checkState(Looper.myLooper() != null, "Can only be added on a Looper thread");
+    checkState(currentScheduler() != null, "Can only be added on a Looper or Scheduler thread");
     checkNotNull(updatable);
     boolean activateNow = false;
     synchronized (token) {
       add(updatable, workerHandler());
-      if (size == 1) {
-        if (handler.hasMessages(MSG_LAST_REMOVED, this)) {
-          handler.removeMessages(MSG_LAST_REMOVED, this);
-        } else if (Looper.myLooper() == handler.getLooper()) {
+      if (updatables.size() == 1) {
+        if (deactivationPending) {
+          deactivationPending = false;
+        } else if (handler.scheduler.isSchedulerThread()) {
           activateNow = true;
         } else {
-          handler.obtainMessage(WorkerHandler.MSG_FIRST_ADDED, this).sendToTarget();
+          handler.scheduler.execute(activateTask);
         }
       }
     }
@@ -88,14 +116,14 @@ public abstract class BaseObservable implements Observable {
 
   @Override
   public final void removeUpdatable(@NonNull final Updatable updatable) {
-    checkState(Looper.myLooper() != null, "Can only be removed on a Looper thread");
+    checkState(currentScheduler() != null, "Can only be removed on a Looper or Scheduler thread");
     checkNotNull(updatable);
     synchronized (token) {
       remove(updatable);
-      if (size == 0) {
-        handler.obtainMessage(MSG_LAST_REMOVED, this).sendToTarget();
-        handler.removeMessages(MSG_UPDATE, this);
-        pendingUpdate = false;
+      if (updatables.size() == 0) {
+        deactivationPending = true;
+        handler.scheduler.execute(deactivateTask);
+        pendingUpdate.set(false);
       }
     }
   }
@@ -104,83 +132,80 @@ public abstract class BaseObservable implements Observable {
    * Notifies all registered {@link Updatable}s.
    */
   protected final void dispatchUpdate() {
-    synchronized (token) {
-      if (!pendingUpdate) {
-        pendingUpdate = true;
-        handler.obtainMessage(MSG_UPDATE, this).sendToTarget();
-      }
+    if (pendingUpdate.compareAndSet(false, true)) {
+      handler.scheduler.execute(sendUpdateTask);
     }
   }
 
-  private void add(@NonNull final Updatable updatable, @NonNull final Handler handler) {
-    int indexToAdd = -1;
-    for (int index = 0; index < updatablesAndHandlers.length; index += 2) {
-      if (updatablesAndHandlers[index] == updatable) {
-        throw new IllegalStateException("Updatable already added, cannot add.");
-      }
-      if (updatablesAndHandlers[index] == null) {
-        indexToAdd = index;
-      }
-    }
-    if (indexToAdd == -1) {
-      indexToAdd = updatablesAndHandlers.length;
-      updatablesAndHandlers = Arrays.copyOf(updatablesAndHandlers,
-          indexToAdd < 2 ? 2 : indexToAdd * 2);
+  private void add(@NonNull final Updatable updatable, @NonNull final WorkerHandler handler) {
+    if (updatables.add(updatable, handler) == null) {
+      throw new IllegalStateException("Updatable already added, cannot add.");
     }
-    updatablesAndHandlers[indexToAdd] = updatable;
-    updatablesAndHandlers[indexToAdd + 1] = handler;
-    size++;
+    snapshot = null;
   }
 
   private void remove(@NonNull final Updatable updatable) {
-    for (int index = 0; index < updatablesAndHandlers.length; index += 2) {
-      if (updatablesAndHandlers[index] == updatable) {
-        WorkerHandler handler = (WorkerHandler) updatablesAndHandlers[index + 1];
-        handler.removeUpdatable(updatable, token);
-        updatablesAndHandlers[index] = null;
-        updatablesAndHandlers[index + 1] = null;
-        size--;
-        return;
+    final Registration registration = updatables.remove(updatable);
+    if (registration == null) {
+      throw new IllegalStateException("Updatable not added, cannot remove.");
+    }
+    snapshot = null;
+    registration.handler.removeUpdatable(registration, token);
+  }
+
+  @NonNull
+  private Registration[] snapshot() {
+    Registration[] snapshot = this.snapshot;
+    if (snapshot == null) {
+      synchronized (token) {
+        snapshot = this.snapshot;
+        if (snapshot == null) {
+          snapshot = updatables.toArray();
+          this.snapshot = snapshot;
+        }
       }
     }
-    throw new IllegalStateException("Updatable not added, cannot remove.");
+    return snapshot;
   }
 
+  /**
+   * Called from the worker thread to send out a pending update. The registrations are
+   * iterated outside of the lock, so neither {@link #dispatchUpdate()} nor the addition and removal
+   * of updatables wait for a large fan-out; an updatable removed meanwhile is skipped by its
+   * handler.
+   */
   void sendUpdate() {
-    synchronized (token) {
-      if (!pendingUpdate) {
+    if (!pendingUpdate.get()) {
+      return;
+    }
+    long uptimeMillis = 0;
+    if (shortestUpdateWindowMillis > 0) {
+      uptimeMillis = handler.scheduler.uptimeMillis();
+      final long timeFromLastUpdate = uptimeMillis - lastUpdateTimestamp;
+      if (timeFromLastUpdate < shortestUpdateWindowMillis) {
+        handler.scheduler.executeDelayed(sendUpdateTask,
+            shortestUpdateWindowMillis - timeFromLastUpdate);
         return;
       }
-      if (shortestUpdateWindowMillis > 0) {
-        final long elapsedRealtimeMillis = elapsedRealtime();
-        final long timeFromLastUpdate = elapsedRealtimeMillis - lastUpdateTimestamp;
-        if (timeFromLastUpdate < shortestUpdateWindowMillis) {
-          handler.sendMessageDelayed(handler.obtainMessage(WorkerHandler.MSG_UPDATE, this),
-              shortestUpdateWindowMillis - timeFromLastUpdate);
-          return;
-        }
-        lastUpdateTimestamp = elapsedRealtimeMillis;
-      }
-      pendingUpdate = false;
-      for (int index = 0; index < updatablesAndHandlers.length; index = index + 2) {
-        final Updatable updatable = (Updatable) updatablesAndHandlers[index];
-        final WorkerHandler handler =
-            (WorkerHandler) updatablesAndHandlers[index + 1];
-        if (updatable != null) {
-          handler.update(updatable, token);
-        }
-      }
+    }
+    if (!pendingUpdate.compareAndSet(true, false)) {
+      return;
+    }
+    lastUpdateTimestamp = uptimeMillis;
+    final Registration[] registrations = snapshot();
+    for (final Registration registration : registrations) {
+      registration.handler.update(registration, token);
     }
   }
 
   /**
-   * Called from the worker looper thread when this {@link Observable} is activated by transitioning
+   * Called from the worker thread when this {@link Observable} is activated by transitioning
    * from having no client {@link Updatable}s to having at least one client {@link Updatable}.
    */
   protected void observableActivated() {}
 
   /**
-   * Called from the worker looper thread when this {@link Observable} is deactivated by
+   * Called from the worker thread when this {@link Observable} is deactivated by
    * transitioning from having at least one client {@link Updatable} to having no client
    * {@link Updatable}s.
    */
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import java.util.List;
+
+/**
+ * A {@link Reservoir} from which a consumer catching up with a burst of values can dequeue up to a
+ * given number of them at once with {@link #getAll}. This updates the observing
+ * {@link Updatable}s at most once, only if values remain after the batch, instead of once for each
+ * value dequeued with {@link #get}.
+ *
+ * <p>The reservoirs returned by {@link Reservoirs#batchReservoir()} and all
+ * {@link BoundedReservoir}s are batch reservoirs.
+ */
+public interface BatchReservoir<T> extends Reservoir<T> {
+
+  /**
+   * Dequeues up to {@code maxCount} values, in the order {@link #get} would return them. Yields
+   * {@link Result#absent()} if the reservoir is empty, and never an empty list.
+   *
+   * @param maxCount The maximum number of values to dequeue; must be positive.
+   */
+  @NonNull
+  Result<List<T>> getAll(int maxCount);
+}
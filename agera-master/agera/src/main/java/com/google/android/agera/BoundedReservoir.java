@@ -0,0 +1,47 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import java.util.List;
+
+/**
+ * A {@link Reservoir} that holds at most a fixed number of values, created with {@link Reservoirs}.
+ * What happens to a value enqueued while the reservoir is full depends on its overflow policy.
+ *
+ * <p>Besides dequeuing one value per {@link #get}, a consumer can dequeue all values at once with
+ * {@link #drainTo}. Like dequeuing the last value with {@link #get}, draining the reservoir does
+ * not update the observing {@link Updatable}s.
+ */
+public interface BoundedReservoir<T> extends BatchReservoir<T> {
+
+  /**
+   * Dequeues all values into the given {@code list}, in the order {@link #get} would return them.
+   *
+   * @return The number of values dequeued.
+   */
+  int drainTo(@NonNull List<? super T> list);
+
+  /**
+   * Returns the number of values currently enqueued.
+   */
+  int size();
+
+  /**
+   * Returns the largest number of values enqueued at the same time so far.
+   */
+  int getHighWaterMark();
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+/**
+ * A memoizing wrapper of a {@link Supplier} or {@link Function}, created with {@link Caches}.
+ *
+ * <p>A {@code Cache} is an {@link Updatable} that invalidates all its values when updated, so it
+ * can be added to any {@link Observable} whose events should drop the cached values. All methods
+ * can be called from any thread.
+ */
+public interface Cache extends Updatable {
+
+  /**
+   * Drops all cached values, so that the next calls compute fresh values. A value being computed
+   * while this method is called is returned to its caller but not cached.
+   */
+  void invalidateAll();
+
+  /**
+   * Drops all cached values and stops observing the observables given to
+   * {@link Caches.Builder#invalidatedBy}, so that they no longer keep this cache reachable and
+   * active. This must be called on a thread with a {@link Scheduler} if the cache observes any
+   * observable. The cache can still be used afterwards, but is no longer invalidated by them.
+   * Closing a closed cache has no effect.
+   */
+  void close();
+
+  /**
+   * Returns the number of calls that returned a cached value.
+   */
+  long getHitCount();
+
+  /**
+   * Returns the number of calls that computed a fresh value.
+   */
+  long getMissCount();
+
+  /**
+   * Returns the number of values dropped for exceeding the size bound, expiring, or being
+   * garbage-collected. Values dropped by invalidation are not counted.
+   */
+  long getEvictionCount();
+}
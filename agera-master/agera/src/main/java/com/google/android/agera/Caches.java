@@ -0,0 +1,477 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Preconditions.checkArgument;
+import static com.google.android.agera.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utility methods for creating memoizing {@link Supplier}s and {@link Function}s.
+ *
+ * <p>A cache is configured with a {@link Builder} obtained from {@link #cache()}, for example
+ *
+ * <pre>{@code
+ * CachingFunction<String, Result<Bitmap>> loadBitmap = cache()
+ *     .maxSize(20)
+ *     .expireAfterWrite(5, MINUTES)
+ *     .softValues()
+ *     .function(bitmapFromUrl);}</pre>
+ *
+ * <p>Values are computed on the calling thread outside the cache lock, so two threads missing the
+ * same key at the same time both compute the value. Failed {@link Result}s are returned but never
+ * cached, so that a failed attempt is retried on the next call.
+ */
+public final class Caches {
+  private static final Object SUPPLIER_KEY = new Object();
+  private static final Supplier<Long> SYSTEM_CLOCK = new UptimeClock();
+
+  /**
+   * Returns a new {@link Builder} of an unbounded cache of strongly referenced values that never
+   * expire.
+   */
+  @NonNull
+  public static Builder cache() {
+    return new Builder();
+  }
+
+  /**
+   * A memoizing {@link Supplier}, whose {@link #get()} returns the last value from the wrapped
+   * supplier until that value is dropped from the cache.
+   */
+  public interface CachingSupplier<T> extends Supplier<T>, Cache {}
+
+  /**
+   * A memoizing {@link Function}, whose {@link #apply} returns the last value from the wrapped
+   * function for an equal input, until that value is dropped from the cache.
+   */
+  public interface CachingFunction<F, T> extends Function<F, T>, Cache {
+
+    /**
+     * Drops the value cached for the given input, if any.
+     */
+    void invalidate(@NonNull F input);
+  }
+
+  /**
+   * Configures and creates caches. A builder can be reused; every cache it creates has the
+   * configuration at the time of creation.
+   */
+  public static final class Builder {
+    private int maxSize;
+    private long expireAfterWriteMillis;
+    private int valueStrength;
+    @NonNull
+    private Supplier<Long> clock;
+    @NonNull
+    private final List<Observable> observables;
+
+    private Builder() {
+      this.clock = SYSTEM_CLOCK;
+      this.observables = new ArrayList<>();
+    }
+
+    /**
+     * Bounds the number of cached values. When a new value exceeds the bound, the least recently
+     * used value is evicted.
+     */
+    @NonNull
+    public Builder maxSize(final int maxSize) {
+      checkArgument(maxSize > 0, "maxSize must be positive");
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    /**
+     * Expires each cached value once the given time has passed since it was computed.
+     */
+    @NonNull
+    public Builder expireAfterWrite(final long duration, @NonNull final TimeUnit unit) {
+      checkArgument(duration > 0, "duration must be positive");
+      this.expireAfterWriteMillis = unit.toMillis(duration);
+      return this;
+    }
+
+    /**
+     * Holds the cached values with {@link WeakReference}s, so that a value is evicted once it is
+     * no longer strongly reachable from elsewhere.
+     */
+    @NonNull
+    public Builder weakValues() {
+      this.valueStrength = ValueEntry.WEAK;
+      return this;
+    }
+
+    /**
+     * Holds the cached values with {@link SoftReference}s, so that the values are evicted when
+     * the memory runs low.
+     */
+    @NonNull
+    public Builder softValues() {
+      this.valueStrength = ValueEntry.SOFT;
+      return this;
+    }
+
+    /**
+     * Uses the given supplier of the current time in milliseconds to expire the values, instead
+     * of the system uptime clock.
+     */
+    @NonNull
+    public Builder clock(@NonNull final Supplier<Long> uptimeMillisSupplier) {
+      this.clock = checkNotNull(uptimeMillisSupplier);
+      return this;
+    }
+
+    /**
+     * Invalidates all values of the created caches whenever the given {@code observable} sends an
+     * update. Each created cache is added to the observable as an {@link Updatable} on creation,
+     * which keeps the observable active and the cache reachable from it, until the cache is
+     * {@linkplain Cache#close closed}. Therefore the caches must be created, and closed once no
+     * longer used, on a thread with a {@link Scheduler} if this option is used.
+     */
+    @NonNull
+    public Builder invalidatedBy(@NonNull final Observable observable) {
+      observables.add(checkNotNull(observable));
+      return this;
+    }
+
+    /**
+     * Returns a {@link CachingSupplier} memoizing the values from the given {@code supplier}.
+     */
+    @NonNull
+    public <T> CachingSupplier<T> supplier(@NonNull final Supplier<T> supplier) {
+      return observeInvalidations(new SupplierCache<>(this, supplier));
+    }
+
+    /**
+     * Returns a {@link CachingFunction} memoizing the values from the given {@code function},
+     * keyed by the {@link Object#equals equality} of the input.
+     */
+    @NonNull
+    public <F, T> CachingFunction<F, T> function(@NonNull final Function<F, T> function) {
+      return observeInvalidations(new FunctionCache<>(this, function));
+    }
+
+    @NonNull
+    private <C extends MemoizingCache<?, ?>> C observeInvalidations(@NonNull final C cache) {
+      for (final Observable observable : cache.invalidators) {
+        observable.addUpdatable(cache);
+      }
+      return cache;
+    }
+  }
+
+  private abstract static class MemoizingCache<K, V> implements Cache {
+    @NonNull
+    private final LinkedHashMap<K, ValueEntry<K>> entries;
+    @Nullable
+    private final ReferenceQueue<Object> collectedValues;
+    @NonNull
+    private final Supplier<Long> clock;
+    private final int maxSize;
+    private final long expireAfterWriteMillis;
+    private final int valueStrength;
+    @NonNull
+    final Observable[] invalidators;
+    // All guarded by entries.
+    private boolean closed;
+    private int invalidationCount;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    MemoizingCache(@NonNull final Builder builder) {
+      this.entries = new LinkedHashMap<>(16, 0.75f, true);
+      this.collectedValues =
+          builder.valueStrength == ValueEntry.STRONG ? null : new ReferenceQueue<>();
+      this.clock = builder.clock;
+      this.maxSize = builder.maxSize;
+      this.expireAfterWriteMillis = builder.expireAfterWriteMillis;
+      this.valueStrength = builder.valueStrength;
+      this.invalidators =
+          builder.observables.toArray(new Observable[builder.observables.size()]);
+    }
+
+    @NonNull
+    abstract V compute(@NonNull K key);
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    final V getOrCompute(@NonNull final K key) {
+      final long now = expireAfterWriteMillis > 0 ? clock.get() : 0;
+      final int invalidationCount;
+      synchronized (entries) {
+        purgeCollectedValues();
+        final ValueEntry<K> entry = entries.get(key);
+        if (entry != null) {
+          final Object value = entry.get();
+          if (value != null && !expired(entry, now)) {
+            hitCount++;
+            return (V) value;
+          }
+          entries.remove(key);
+          evictionCount++;
+        }
+        missCount++;
+        invalidationCount = this.invalidationCount;
+      }
+      final V value = compute(key);
+      if (value instanceof Result && ((Result<?>) value).failed()) {
+        return value;
+      }
+      // Time the value from when it is computed, so that a slow computation does not expire early.
+      final long writeTimeMillis = expireAfterWriteMillis > 0 ? clock.get() : 0;
+      synchronized (entries) {
+        if (invalidationCount == this.invalidationCount) {
+          entries.put(key,
+              new ValueEntry<>(key, value, valueStrength, writeTimeMillis, collectedValues));
+          evictExcessEntries();
+        }
+      }
+      return value;
+    }
+
+    private boolean expired(@NonNull final ValueEntry<K> entry, final long now) {
+      return expireAfterWriteMillis > 0 && now - entry.writeTimeMillis >= expireAfterWriteMillis;
+    }
+
+    private void evictExcessEntries() {
+      if (maxSize == 0) {
+        return;
+      }
+      final Iterator<ValueEntry<K>> iterator = entries.values().iterator();
+      while (entries.size() > maxSize) {
+        iterator.next();
+        iterator.remove();
+        evictionCount++;
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void purgeCollectedValues() {
+      if (collectedValues == null) {
+        return;
+      }
+      Reference<?> reference;
+      while ((reference = collectedValues.poll()) != null) {
+        final ValueEntry<K> entry = ((KeyedReference<K>) reference).entry();
+        if (entries.get(entry.key) == entry) {
+          entries.remove(entry.key);
+          evictionCount++;
+        }
+      }
+    }
+
+    final void invalidateKey(@NonNull final K key) {
+      synchronized (entries) {
+        invalidationCount++;
+        entries.remove(key);
+      }
+    }
+
+    @Override
+    public final void invalidateAll() {
+      synchronized (entries) {
+        invalidationCount++;
+        entries.clear();
+      }
+    }
+
+    @Override
+    public final void update() {
+      invalidateAll();
+    }
+
+    @Override
+    public final void close() {
+      synchronized (entries) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+      }
+      for (final Observable observable : invalidators) {
+        observable.removeUpdatable(this);
+      }
+      invalidateAll();
+    }
+
+    @Override
+    public final long getHitCount() {
+      synchronized (entries) {
+        return hitCount;
+      }
+    }
+
+    @Override
+    public final long getMissCount() {
+      synchronized (entries) {
+        return missCount;
+      }
+    }
+
+    @Override
+    public final long getEvictionCount() {
+      synchronized (entries) {
+        return evictionCount;
+      }
+    }
+  }
+
+  private static final class SupplierCache<T> extends MemoizingCache<Object, T>
+      implements CachingSupplier<T> {
+    @NonNull
+    private final Supplier<T> supplier;
+
+    SupplierCache(@NonNull final Builder builder, @NonNull final Supplier<T> supplier) {
+      super(builder);
+      this.supplier = checkNotNull(supplier);
+    }
+
+    @NonNull
+    @Override
+    T compute(@NonNull final Object key) {
+      return supplier.get();
+    }
+
+    @NonNull
+    @Override
+    public T get() {
+      return getOrCompute(SUPPLIER_KEY);
+    }
+  }
+
+  private static final class FunctionCache<F, T> extends MemoizingCache<F, T>
+      implements CachingFunction<F, T> {
+    @NonNull
+    private final Function<F, T> function;
+
+    FunctionCache(@NonNull final Builder builder, @NonNull final Function<F, T> function) {
+      super(builder);
+      this.function = checkNotNull(function);
+    }
+
+    @NonNull
+    @Override
+    T compute(@NonNull final F key) {
+      return function.apply(key);
+    }
+
+    @NonNull
+    @Override
+    public T apply(@NonNull final F input) {
+      return getOrCompute(input);
+    }
+
+    @Override
+    public void invalidate(@NonNull final F input) {
+      invalidateKey(input);
+    }
+  }
+
+  /**
+   * A cached value, held directly or through a {@link KeyedReference} that leads back to this
+   * entry once the value is collected.
+   */
+  private static final class ValueEntry<K> {
+    static final int STRONG = 0;
+    static final int WEAK = 1;
+    static final int SOFT = 2;
+
+    @NonNull
+    final K key;
+    final long writeTimeMillis;
+    @NonNull
+    private final Object value;
+
+    ValueEntry(@NonNull final K key, @NonNull final Object value, final int strength,
+        final long writeTimeMillis, @Nullable final ReferenceQueue<Object> queue) {
+      this.key = key;
+      this.writeTimeMillis = writeTimeMillis;
+      this.value = strength == WEAK ? new WeakValue<>(value, this, queue)
+          : strength == SOFT ? new SoftValue<>(value, this, queue)
+          : value;
+    }
+
+    @Nullable
+    Object get() {
+      return value instanceof KeyedReference ? ((Reference<?>) value).get() : value;
+    }
+  }
+
+  private interface KeyedReference<K> {
+    @NonNull
+    ValueEntry<K> entry();
+  }
+
+  private static final class WeakValue<K> extends WeakReference<Object>
+      implements KeyedReference<K> {
+    @NonNull
+    private final ValueEntry<K> entry;
+
+    WeakValue(@NonNull final Object value, @NonNull final ValueEntry<K> entry,
+        @Nullable final ReferenceQueue<Object> queue) {
+      super(value, queue);
+      this.entry = entry;
+    }
+
+    @NonNull
+    @Override
+    public ValueEntry<K> entry() {
+      return entry;
+    }
+  }
+
+  private static final class SoftValue<K> extends SoftReference<Object>
+      implements KeyedReference<K> {
+    @NonNull
+    private final ValueEntry<K> entry;
+
+    SoftValue(@NonNull final Object value, @NonNull final ValueEntry<K> entry,
+        @Nullable final ReferenceQueue<Object> queue) {
+      super(value, queue);
+      this.entry = entry;
+    }
+
+    @NonNull
+    @Override
+    public ValueEntry<K> entry() {
+      return entry;
+    }
+  }
+
+  private static final class UptimeClock implements Supplier<Long> {
+    @NonNull
+    @Override
+    public Long get() {
+      return NANOSECONDS.toMillis(System.nanoTime());
+    }
+  }
+
+  private Caches() {}
+}
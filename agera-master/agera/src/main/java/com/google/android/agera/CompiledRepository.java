@@ -22,8 +22,6 @@ import static com.google.android.agera.Preconditions.checkState;
 import static com.google.android.agera.RepositoryConfig.CANCEL_FLOW;
 import static com.google.android.agera.RepositoryConfig.RESET_TO_INITIAL_VALUE;
 import static com.google.android.agera.RepositoryConfig.SEND_INTERRUPT;
-import static com.google.android.agera.WorkerHandler.MSG_CALL_ACKNOWLEDGE_CANCEL;
-import static com.google.android.agera.WorkerHandler.MSG_CALL_MAYBE_START_FLOW;
 import static com.google.android.agera.WorkerHandler.workerHandler;
 import static java.lang.Thread.currentThread;
 
@@ -32,12 +30,21 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings({"rawtypes", "unchecked"})
 final class CompiledRepository extends BaseObservable
-    implements Repository, Updatable, Runnable {
+    implements Repository, PrioritizedUpdatable, Runnable {
+
+  /**
+   * Whether repositories compiled from now on run their flows on {@link FlowNode}s. If false, they
+   * interpret the directive array instead; the interpreter is kept as a fallback and as the
+   * baseline for benchmarks.
+   */
+  static volatile boolean compileFlowNodes = true;
 
   @NonNull
   static Repository compiledRepository(
@@ -48,12 +55,15 @@ final class CompiledRepository extends BaseObservable
       @NonNull final Merger<Object, Object, Boolean> notifyChecker,
       @RepositoryConfig final int concurrentUpdateConfig,
       @RepositoryConfig final int deactivationConfig,
-      @NonNull final Receiver discardedValuesDisposer) {
+      @NonNull final Receiver discardedValuesDisposer,
+      final boolean fuseDirectives,
+      @UpdatePriority final int updatePriority) {
     final Object[] directiveArray = directives.toArray();
     return new CompiledRepository(initialValue, compositeObservable(frequency,
-        eventSources.toArray(new Observable[eventSources.size()])),
-        directiveArray, notifyChecker, deactivationConfig, concurrentUpdateConfig,
-        discardedValuesDisposer);
+        eventSources.toArray(new Observable[eventSources.size()])), directiveArray,
+        compileFlowNodes ? compileFlowNodes(directiveArray, fuseDirectives) : null,
+        notifyChecker, deactivationConfig, concurrentUpdateConfig, discardedValuesDisposer,
+        updatePriority);
   }
 
   //region Invariants
@@ -64,6 +74,9 @@ final class CompiledRepository extends BaseObservable
   private final Observable eventSource;
   @NonNull
   private final Object[] directives;
+  /** The flow compiled from {@link #directives}, or null to interpret the directives instead. */
+  @Nullable
+  private final FlowNode[] flowNodes;
   @NonNull
   private final Merger<Object, Object, Boolean> notifyChecker;
   @RepositoryConfig
@@ -72,26 +85,46 @@ final class CompiledRepository extends BaseObservable
   private final int concurrentUpdateConfig;
   @NonNull
   private final Receiver discardedValuesDisposer;
+  @UpdatePriority
+  private final int updatePriority;
   @NonNull
   private final WorkerHandler workerHandler;
+  @NonNull
+  private final Runnable maybeStartFlowTask = new Runnable() {
+    @Override
+    public void run() {
+      maybeStartFlow();
+    }
+  };
+  @NonNull
+  private final Runnable acknowledgeCancelTask = new Runnable() {
+    @Override
+    public void run() {
+      acknowledgeCancel();
+    }
+  };
 
   CompiledRepository(
       @NonNull final Object initialValue,
       @NonNull final Observable eventSource,
       @NonNull final Object[] directives,
+      @Nullable final FlowNode[] flowNodes,
       @NonNull final Merger<Object, Object, Boolean> notifyChecker,
       @RepositoryConfig final int deactivationConfig,
       @RepositoryConfig final int concurrentUpdateConfig,
-      @NonNull final Receiver discardedValuesDisposer) {
+      @NonNull final Receiver discardedValuesDisposer,
+      @UpdatePriority final int updatePriority) {
     this.initialValue = initialValue;
     this.currentValue = initialValue;
     this.intermediateValue = initialValue; // non-final field but with @NonNull requirement
     this.eventSource = eventSource;
     this.directives = directives;
+    this.flowNodes = flowNodes;
     this.notifyChecker = notifyChecker;
     this.deactivationConfig = deactivationConfig;
     this.concurrentUpdateConfig = concurrentUpdateConfig;
     this.discardedValuesDisposer = discardedValuesDisposer;
+    this.updatePriority = updatePriority;
     this.workerHandler = workerHandler();
   }
 
@@ -110,11 +143,23 @@ final class CompiledRepository extends BaseObservable
   private static final int PAUSED_AT_GO_LAZY = 4;
   private static final int RUNNING_LAZILY = 5;
 
-  @RunState
-  private int runState = IDLE;
-  private boolean restartNeeded;
-  /** Index of the last goTo()/goLazy() directive, for resuming, or -1 for other directives. */
-  private int lastDirectiveIndex = -1;
+  private static final int RUN_STATE_MASK = 0x7;
+  /** Flag set in the state word if the flow should restart once it is completed or cancelled. */
+  private static final int RESTART_NEEDED = 0x8;
+  /**
+   * Shift of the index of the last goTo()/goLazy() directive (or its flow node if the flow is
+   * compiled), for resuming, in the state word. The index is stored plus one, so that the -1 used
+   * for other directives is stored as 0.
+   */
+  private static final int LAST_DIRECTIVE_INDEX_SHIFT = 4;
+
+  /**
+   * The run state, the restart flag and the last directive index, packed into one word so that the
+   * flow can check for cancellation with a volatile read. The flow also pauses at a goTo directive
+   * without locking; all other transitions are made while locked, but still atomically, so as not
+   * to lose a concurrent pause.
+   */
+  private final AtomicInteger state = new AtomicInteger(IDLE);
   /** The current value to be exposed through the repository's get method. */
   @NonNull
   private Object currentValue;
@@ -124,11 +169,34 @@ final class CompiledRepository extends BaseObservable
   /** The thread currently running a directive that can be interrupted. */
   @Nullable
   private Thread currentThread;
+  /** The suppliers of the currently running mergeInAll directive, to cancel with the flow. */
+  @Nullable
+  private ParallelJoin currentJoin;
+
+  @RunState
+  private static int runState(final int state) {
+    return state & RUN_STATE_MASK;
+  }
+
+  private static int lastDirectiveIndex(final int state) {
+    return (state >>> LAST_DIRECTIVE_INDEX_SHIFT) - 1;
+  }
+
+  /**
+   * Sets the run state and the last directive index, keeping the restart flag.
+   */
+  private void setRunState(@RunState final int runState, final int lastDirectiveIndex) {
+    int state;
+    do {
+      state = this.state.get();
+    } while (!this.state.compareAndSet(state, (state & RESTART_NEEDED) | runState
+        | (lastDirectiveIndex + 1) << LAST_DIRECTIVE_INDEX_SHIFT));
+  }
 
   //endregion Data processing flow states
 
   //region Starting and requesting cancellation
-  // - All methods in this region are called from the Worker Looper thread, but reading and writing
+  // - All methods in this region are called from the worker thread, but reading and writing
   //   states that might be accessed from a different thread are still synchronized.
 
   @Override
@@ -143,6 +211,11 @@ final class CompiledRepository extends BaseObservable
     maybeCancelFlow(deactivationConfig, false);
   }
 
+  @Override
+  public int getUpdatePriority() {
+    return updatePriority;
+  }
+
   @Override
   public void update() {
     maybeCancelFlow(concurrentUpdateConfig, true);
@@ -150,22 +223,29 @@ final class CompiledRepository extends BaseObservable
   }
 
   /**
-   * Called on the worker looper thread. Starts the data processing flow if it's not running. This
+   * Called on the worker thread. Starts the data processing flow if it's not running. This
    * also cancels the lazily-executed part of the flow if the run state is "paused at lazy".
    */
-  void maybeStartFlow() {
+  private void maybeStartFlow() {
     synchronized (this) {
-      if (runState == IDLE || runState == PAUSED_AT_GO_LAZY) {
-        runState = RUNNING;
-        lastDirectiveIndex = -1; // this could be pointing at the goLazy directive
-        restartNeeded = false;
-      } else {
-        if (runState == CANCEL_REQUESTED) {
+      while (true) {
+        final int state = this.state.get();
+        final int runState = runState(state);
+        if (runState == IDLE || runState == PAUSED_AT_GO_LAZY) {
+          // reset lastDirectiveIndex, which could be pointing at the goLazy directive, and the
+          // restart flag
+          if (this.state.compareAndSet(state, RUNNING)) {
+            break;
+          }
+        } else if (runState == CANCEL_REQUESTED) {
           // flow may still be processing the previous deactivation;
           // make sure to restart
-          restartNeeded = true;
+          if (this.state.compareAndSet(state, state | RESTART_NEEDED)) {
+            return;
+          }
+        } else {
+          return; // flow already running or scheduled to restart, do not continue
         }
-        return; // flow already running or scheduled to restart, do not continue
       }
     }
     intermediateValue = currentValue;
@@ -181,20 +261,37 @@ final class CompiledRepository extends BaseObservable
    */
   private void maybeCancelFlow(@RepositoryConfig final int config, final boolean scheduleRestart) {
     synchronized (this) {
-      if (runState == RUNNING || runState == PAUSED_AT_GO_TO) {
-        restartNeeded = scheduleRestart;
+      while (true) {
+        final int state = this.state.get();
+        final int runState = runState(state);
+        if (runState != RUNNING && runState != PAUSED_AT_GO_TO) {
+          break;
+        }
+        final int restartState = scheduleRestart ? state | RESTART_NEEDED : state & ~RESTART_NEEDED;
 
         // If config forbids cancellation, exit now after scheduling the restart, to skip the
         // cancellation request.
         if ((config & CANCEL_FLOW) == 0) {
-          return;
+          if (this.state.compareAndSet(state, restartState)) {
+            return;
+          }
+          continue;
         }
 
-        runState = CANCEL_REQUESTED;
+        // Keep lastDirectiveIndex; run() checks for cancellation before resuming from it.
+        if (!this.state.compareAndSet(state,
+            (restartState & ~RUN_STATE_MASK) | CANCEL_REQUESTED)) {
+          continue;
+        }
 
-        if ((config & SEND_INTERRUPT) == SEND_INTERRUPT && currentThread != null) {
+        final boolean sendInterrupt = (config & SEND_INTERRUPT) == SEND_INTERRUPT;
+        if (sendInterrupt && currentThread != null) {
           currentThread.interrupt();
         }
+        if (currentJoin != null) {
+          currentJoin.cancel(sendInterrupt);
+        }
+        break;
       }
 
       // Resetting to the initial value should be done even if the flow is not running.
@@ -207,37 +304,39 @@ final class CompiledRepository extends BaseObservable
   //endregion Starting and requesting cancellation
 
   //region Acknowledging cancellation and restarting
-  // - Apart from handleMessage(), other methods in this region can be called from a thread that is
-  //   not the Worker Looper thread.
+  // - Apart from acknowledgeCancel(), other methods in this region can be called from a thread
+  //   that is not the worker thread.
 
   /**
    * Checks if the current data processing flow has been requested cancellation. Acknowledges the
-   * request if so. This must be called while locked in a synchronized context.
+   * request if so. This does not need the lock, because only the flow itself, by acknowledging the
+   * request, can move the run state on from "cancel requested".
    *
    * @return Whether the data processing flow is cancelled.
    */
-  private boolean checkCancellationLocked() {
-    if (runState == CANCEL_REQUESTED) {
-      workerHandler.obtainMessage(MSG_CALL_ACKNOWLEDGE_CANCEL, this).sendToTarget();
+  private boolean checkCancellation() {
+    if (runState(state.get()) == CANCEL_REQUESTED) {
+      workerHandler.scheduler.execute(acknowledgeCancelTask);
       return true;
     }
     return false;
   }
 
   /**
-   * Called by the worker handler.
+   * Called on the worker thread.
    */
-  void acknowledgeCancel() {
+  private void acknowledgeCancel() {
     boolean shouldStartFlow = false;
     Object discardedIntermediateValue = null;
     synchronized (this) {
-      if (runState == CANCEL_REQUESTED) {
-        runState = IDLE;
+      final int state = this.state.get();
+      if (runState(state) == CANCEL_REQUESTED) {
+        setRunState(IDLE, -1);
         if (intermediateValue != currentValue) {
           discardedIntermediateValue = intermediateValue;
           intermediateValue = currentValue; // GC the intermediate value but keep field non-null.
         }
-        shouldStartFlow = restartNeeded;
+        shouldStartFlow = (state & RESTART_NEEDED) != 0;
       }
     }
     if (discardedIntermediateValue != null) {
@@ -254,8 +353,8 @@ final class CompiledRepository extends BaseObservable
    * completed.
    */
   private void checkRestartLocked() {
-    if (restartNeeded) {
-      workerHandler.obtainMessage(MSG_CALL_MAYBE_START_FLOW, this).sendToTarget();
+    if ((state.get() & RESTART_NEEDED) != 0) {
+      workerHandler.scheduler.execute(maybeStartFlowTask);
     }
   }
 
@@ -275,40 +374,76 @@ final class CompiledRepository extends BaseObservable
   private static final int BIND = 8;
   private static final int FILTER_SUCCESS = 9;
   private static final int FILTER_FAILURE = 10;
+  private static final int MERGE_IN_ALL = 11;
+  /** Type of a flow node running several synchronous directives; not used in directive arrays. */
+  private static final int FUSED = 12;
 
   /**
+   * @param index The index into the {@link #flowNodes} if the flow is compiled, or into the
+   *     {@link #directives} otherwise.
    * @param asynchronously Whether this flow is run asynchronously. True after the first goTo and
-   *     before goLazy. This is to omit unnecessarily locking the synchronized context to check for
-   *     cancellation, because if the flow is run synchronously, cancellation requests theoretically
-   *     cannot be delivered here.
+   *     before goLazy. This is to omit unnecessarily checking for cancellation, because if the flow
+   *     is run synchronously, cancellation requests theoretically cannot be delivered here.
    */
   private void runFlowFrom(final int index, final boolean asynchronously) {
+    final FlowNode[] flowNodes = this.flowNodes;
+    if (flowNodes != null) {
+      runFlowNodesFrom(flowNodes, index, asynchronously);
+    } else {
+      interpretFlowFrom(index, asynchronously);
+    }
+  }
+
+  private void runFlowNodesFrom(@NonNull final FlowNode[] flowNodes, final int index,
+      final boolean asynchronously) {
+    for (int i = index; i < flowNodes.length; i++) {
+      final FlowNode flowNode = flowNodes[i];
+      final int directiveType = flowNode.directiveType;
+      if (asynchronously || directiveType == GO_TO || directiveType == GO_LAZY) {
+        // Same as in interpretFlowFrom().
+        if (directiveType == GO_TO) {
+          if (!pauseAtGoTo(i)) {
+            return;
+          }
+        } else if (directiveType == GO_LAZY) {
+          pauseAtGoLazy(i);
+          return;
+        } else if (checkCancellation()) {
+          return;
+        }
+      }
+      if (!flowNode.run(this)) {
+        return;
+      }
+    }
+  }
+
+  private void interpretFlowFrom(final int index, final boolean asynchronously) {
     final Object[] directives = this.directives;
     final int length = directives.length;
     int i = index;
     while (0 <= i && i < length) {
       final int directiveType = (Integer) directives[i];
       if (asynchronously || directiveType == GO_TO || directiveType == GO_LAZY) {
-        // Check cancellation before running the next directive. This needs to be done while locked.
-        // For goTo and goLazy, because they need to change the states and suspend the flow, they
-        // need the lock and are therefore treated specially here.
-        synchronized (this) {
-          if (checkCancellationLocked()) {
+        // Check cancellation before running the next directive. For goTo and goLazy, because they
+        // need to change the states and suspend the flow, the check is part of the state change.
+        if (directiveType == GO_TO) {
+          if (!pauseAtGoTo(i)) {
             break;
           }
-          if (directiveType == GO_TO) {
-            setPausedAtGoToLocked(i);
-            // the actual executor delivery is done below, outside the lock, to eliminate any
-            // deadlock possibility.
-          } else if (directiveType == GO_LAZY) {
-            setLazyAndEndFlowLocked(i);
-            return;
-          }
+          // the actual executor delivery is done below, outside of any lock, to eliminate any
+          // deadlock possibility.
+        } else if (directiveType == GO_LAZY) {
+          pauseAtGoLazy(i);
+          return;
+        } else if (checkCancellation()) {
+          break;
         }
       }
 
-      // A table-switch on a handful of options is a good compromise in code size and runtime
-      // performance comparing to a full-fledged double-dispatch pattern with subclasses.
+      // A table-switch on a handful of options keeps the code size small; compiled flows use the
+      // double-dispatch pattern with FlowNode subclasses instead, trading code size for fewer
+      // casts and unboxing, and call sites the JIT can inline.
       switch (directiveType) {
         case GET_FROM:
           i = runGetFrom(directives, i);
@@ -337,6 +472,9 @@ final class CompiledRepository extends BaseObservable
         case FILTER_FAILURE:
           i = runFilterFailure(directives, i);
           break;
+        case MERGE_IN_ALL:
+          i = runMergeInAll(directives, i);
+          break;
         case END:
           i = runEnd(directives, i);
           break;
@@ -345,6 +483,160 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
+  /**
+   * A directive compiled with its operands, or a run of them fused into one {@link FusedNode}. Flow
+   * nodes are stored in a {@link FlowNode} array in directive order, so the next node to run is
+   * always the next element.
+   */
+  abstract static class FlowNode {
+    final int directiveType;
+
+    FlowNode(final int directiveType) {
+      this.directiveType = directiveType;
+    }
+
+    /**
+     * Runs the directive on the given repository.
+     *
+     * @return Whether to continue with the next flow node; false if the flow is ended or paused.
+     */
+    abstract boolean run(@NonNull CompiledRepository repository);
+  }
+
+  /**
+   * Whether the directive of the given type neither changes the thread nor suspends the flow, so
+   * it can be fused with its neighbors and run without checking for cancellation.
+   */
+  private static boolean isFusible(final int directiveType) {
+    switch (directiveType) {
+      case GET_FROM:
+      case MERGE_IN:
+      case TRANSFORM:
+      case CHECK:
+      case SEND_TO:
+      case BIND:
+      case FILTER_SUCCESS:
+      case FILTER_FAILURE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @NonNull
+  private static FlowNode[] compileFlowNodes(@NonNull final Object[] directives,
+      final boolean fuseDirectives) {
+    final List<FlowNode> flowNodes = new ArrayList<>();
+    int i = 0;
+    while (i < directives.length) {
+      final int directiveType = (Integer) directives[i];
+      switch (directiveType) {
+        case GET_FROM:
+          flowNodes.add(new GetFromNode((Supplier) directives[i + 1]));
+          i += 2;
+          break;
+        case MERGE_IN:
+          flowNodes.add(new MergeInNode((Supplier) directives[i + 1], (Merger) directives[i + 2]));
+          i += 3;
+          break;
+        case TRANSFORM:
+          flowNodes.add(new TransformNode((Function) directives[i + 1]));
+          i += 2;
+          break;
+        case CHECK:
+          flowNodes.add(new CheckNode((Function) directives[i + 1], (Predicate) directives[i + 2],
+              (Function) directives[i + 3]));
+          i += 4;
+          break;
+        case GO_TO:
+          flowNodes.add(new GoToNode((Executor) directives[i + 1]));
+          i += 2;
+          break;
+        case GO_LAZY:
+          flowNodes.add(new GoLazyNode());
+          i += 1;
+          break;
+        case SEND_TO:
+          flowNodes.add(new SendToNode((Receiver) directives[i + 1]));
+          i += 2;
+          break;
+        case BIND:
+          flowNodes.add(new BindNode((Supplier) directives[i + 1], (Binder) directives[i + 2]));
+          i += 3;
+          break;
+        case FILTER_SUCCESS:
+          flowNodes.add(new FilterSuccessNode((Function) directives[i + 1]));
+          i += 2;
+          break;
+        case FILTER_FAILURE:
+          flowNodes.add(new FilterFailureNode());
+          i += 1;
+          break;
+        case MERGE_IN_ALL:
+          flowNodes.add(new MergeInAllNode((Executor) directives[i + 1],
+              (Supplier[]) directives[i + 2], (Merger) directives[i + 3]));
+          i += 4;
+          break;
+        case END:
+          flowNodes.add(new EndNode((Boolean) directives[i + 1]));
+          i += 2;
+          break;
+        default:
+          throw new IllegalStateException("Unknown directive type " + directiveType);
+      }
+    }
+    return fuseDirectives
+        ? fuseFlowNodes(flowNodes) : flowNodes.toArray(new FlowNode[flowNodes.size()]);
+  }
+
+  @NonNull
+  private static FlowNode[] fuseFlowNodes(@NonNull final List<FlowNode> flowNodes) {
+    final List<FlowNode> fusedFlowNodes = new ArrayList<>(flowNodes.size());
+    final int size = flowNodes.size();
+    int i = 0;
+    while (i < size) {
+      int end = i;
+      while (end < size && isFusible(flowNodes.get(end).directiveType)) {
+        end++;
+      }
+      if (end - i > 1) {
+        final List<FlowNode> run = flowNodes.subList(i, end);
+        fusedFlowNodes.add(new FusedNode(run.toArray(new FlowNode[run.size()])));
+        i = end;
+      } else {
+        fusedFlowNodes.add(flowNodes.get(i));
+        i++;
+      }
+    }
+    return fusedFlowNodes.toArray(new FlowNode[fusedFlowNodes.size()]);
+  }
+
+  /**
+   * Runs consecutive fusible flow nodes as one step of the flow, so that the asynchronous part of
+   * the flow checks for cancellation once for the whole run instead of before each directive. A
+   * node of the run ending the flow, such as a failed check, still honors a cancellation requested
+   * during the run, because ending the flow checks for it.
+   */
+  private static final class FusedNode extends FlowNode {
+    @NonNull
+    private final FlowNode[] flowNodes;
+
+    FusedNode(@NonNull final FlowNode[] flowNodes) {
+      super(FUSED);
+      this.flowNodes = flowNodes;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      for (final FlowNode flowNode : flowNodes) {
+        if (!flowNode.run(repository)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
   static void addGetFrom(@NonNull final Supplier supplier,
       @NonNull final List<Object> directives) {
     directives.add(GET_FROM);
@@ -357,6 +649,22 @@ final class CompiledRepository extends BaseObservable
     return index + 2;
   }
 
+  private static final class GetFromNode extends FlowNode {
+    @NonNull
+    private final Supplier supplier;
+
+    GetFromNode(@NonNull final Supplier supplier) {
+      super(GET_FROM);
+      this.supplier = supplier;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      repository.intermediateValue = checkNotNull(supplier.get());
+      return true;
+    }
+  }
+
   static void addMergeIn(@NonNull final Supplier supplier, @NonNull final Merger merger,
       @NonNull final List<Object> directives) {
     directives.add(MERGE_IN);
@@ -371,6 +679,26 @@ final class CompiledRepository extends BaseObservable
     return index + 3;
   }
 
+  private static final class MergeInNode extends FlowNode {
+    @NonNull
+    private final Supplier supplier;
+    @NonNull
+    private final Merger merger;
+
+    MergeInNode(@NonNull final Supplier supplier, @NonNull final Merger merger) {
+      super(MERGE_IN);
+      this.supplier = supplier;
+      this.merger = merger;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      repository.intermediateValue =
+          checkNotNull(merger.merge(repository.intermediateValue, supplier.get()));
+      return true;
+    }
+  }
+
   static void addTransform(@NonNull final Function function,
       @NonNull final List<Object> directives) {
     directives.add(TRANSFORM);
@@ -383,6 +711,22 @@ final class CompiledRepository extends BaseObservable
     return index + 2;
   }
 
+  private static final class TransformNode extends FlowNode {
+    @NonNull
+    private final Function function;
+
+    TransformNode(@NonNull final Function function) {
+      super(TRANSFORM);
+      this.function = function;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      repository.intermediateValue = checkNotNull(function.apply(repository.intermediateValue));
+      return true;
+    }
+  }
+
   static void addCheck(@NonNull final Function caseFunction,
       @NonNull final Predicate casePredicate,
       @Nullable final Function terminatingValueFunction,
@@ -407,6 +751,33 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
+  private static final class CheckNode extends FlowNode {
+    @NonNull
+    private final Function caseFunction;
+    @NonNull
+    private final Predicate casePredicate;
+    @Nullable
+    private final Function terminatingValueFunction;
+
+    CheckNode(@NonNull final Function caseFunction, @NonNull final Predicate casePredicate,
+        @Nullable final Function terminatingValueFunction) {
+      super(CHECK);
+      this.caseFunction = caseFunction;
+      this.casePredicate = casePredicate;
+      this.terminatingValueFunction = terminatingValueFunction;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      final Object caseValue = caseFunction.apply(repository.intermediateValue);
+      if (casePredicate.apply(caseValue)) {
+        return true;
+      }
+      repository.runTerminate(caseValue, terminatingValueFunction);
+      return false;
+    }
+  }
+
   static void addGoTo(@NonNull final Executor executor, @NonNull final List<Object> directives) {
     directives.add(GO_TO);
     directives.add(executor);
@@ -418,20 +789,59 @@ final class CompiledRepository extends BaseObservable
     return -1;
   }
 
+  private static final class GoToNode extends FlowNode {
+    @NonNull
+    private final Executor executor;
+
+    GoToNode(@NonNull final Executor executor) {
+      super(GO_TO);
+      this.executor = executor;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      executor.execute(repository);
+      return false;
+    }
+  }
+
   private static int continueFromGoTo(@NonNull final Object[] directives, final int index) {
     checkState(directives[index].equals(GO_TO), "Inconsistent directive state for goTo");
     return index + 2;
   }
 
+  private static int continueFromGoTo(@NonNull final FlowNode[] flowNodes, final int index) {
+    checkState(flowNodes[index].directiveType == GO_TO, "Inconsistent directive state for goTo");
+    return index + 1;
+  }
+
   static void addGoLazy(@NonNull final List<Object> directives) {
     directives.add(GO_LAZY);
   }
 
+  private static final class GoLazyNode extends FlowNode {
+    GoLazyNode() {
+      super(GO_LAZY);
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      // Never called; goLazy is dealt with while checking for cancellation in runFlowNodesFrom().
+      return false;
+    }
+  }
+
   private static int continueFromGoLazy(@NonNull final Object[] directives, final int index) {
     checkState(directives[index].equals(GO_LAZY), "Inconsistent directive state for goLazy");
     return index + 1;
   }
 
+  private static int continueFromGoLazy(@NonNull final FlowNode[] flowNodes, final int index) {
+    checkState(flowNodes[index].directiveType == GO_LAZY,
+        "Inconsistent directive state for goLazy");
+    return index + 1;
+  }
+
   static void addSendTo(@NonNull final Receiver receiver, @NonNull final List<Object> directives) {
     directives.add(SEND_TO);
     directives.add(receiver);
@@ -443,6 +853,22 @@ final class CompiledRepository extends BaseObservable
     return index + 2;
   }
 
+  private static final class SendToNode extends FlowNode {
+    @NonNull
+    private final Receiver receiver;
+
+    SendToNode(@NonNull final Receiver receiver) {
+      super(SEND_TO);
+      this.receiver = receiver;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      receiver.accept(repository.intermediateValue);
+      return true;
+    }
+  }
+
   static void addBindWith(@NonNull final Supplier supplier, @NonNull final Binder binder,
       @NonNull final List<Object> directives) {
     directives.add(BIND);
@@ -457,6 +883,25 @@ final class CompiledRepository extends BaseObservable
     return index + 3;
   }
 
+  private static final class BindNode extends FlowNode {
+    @NonNull
+    private final Supplier supplier;
+    @NonNull
+    private final Binder binder;
+
+    BindNode(@NonNull final Supplier supplier, @NonNull final Binder binder) {
+      super(BIND);
+      this.supplier = supplier;
+      this.binder = binder;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      binder.bind(repository.intermediateValue, supplier.get());
+      return true;
+    }
+  }
+
   static void addFilterSuccess(
       @Nullable final Function terminatingValueFunction, @NonNull final List<Object> directives) {
     directives.add(FILTER_SUCCESS);
@@ -475,6 +920,27 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
+  private static final class FilterSuccessNode extends FlowNode {
+    @Nullable
+    private final Function terminatingValueFunction;
+
+    FilterSuccessNode(@Nullable final Function terminatingValueFunction) {
+      super(FILTER_SUCCESS);
+      this.terminatingValueFunction = terminatingValueFunction;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      final Result tryValue = (Result) repository.intermediateValue;
+      if (tryValue.succeeded()) {
+        repository.intermediateValue = tryValue.get();
+        return true;
+      }
+      repository.runTerminate(tryValue.getFailure(), terminatingValueFunction);
+      return false;
+    }
+  }
+
   static void addFilterFailure(@NonNull final List<Object> directives) {
     directives.add(FILTER_FAILURE);
   }
@@ -490,6 +956,93 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
+  private static final class FilterFailureNode extends FlowNode {
+    FilterFailureNode() {
+      super(FILTER_FAILURE);
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      final Result tryValue = (Result) repository.intermediateValue;
+      if (tryValue.succeeded()) {
+        repository.runTerminate(tryValue.get(), identityFunction());
+        return false;
+      }
+      repository.intermediateValue = tryValue.getFailure();
+      return true;
+    }
+  }
+
+  static void addMergeInAll(@NonNull final Executor executor, @NonNull final Supplier[] suppliers,
+      @NonNull final Merger merger, @NonNull final List<Object> directives) {
+    directives.add(MERGE_IN_ALL);
+    directives.add(executor);
+    directives.add(suppliers);
+    directives.add(merger);
+  }
+
+  private int runMergeInAll(@NonNull final Object[] directives, final int index) {
+    final Executor executor = (Executor) directives[index + 1];
+    final Supplier[] suppliers = (Supplier[]) directives[index + 2];
+    final Merger merger = (Merger) directives[index + 3];
+    return mergeInAll(executor, suppliers, merger) ? index + 4 : -1;
+  }
+
+  private static final class MergeInAllNode extends FlowNode {
+    @NonNull
+    private final Executor executor;
+    @NonNull
+    private final Supplier[] suppliers;
+    @NonNull
+    private final Merger merger;
+
+    MergeInAllNode(@NonNull final Executor executor, @NonNull final Supplier[] suppliers,
+        @NonNull final Merger merger) {
+      super(MERGE_IN_ALL);
+      this.executor = executor;
+      this.suppliers = suppliers;
+      this.merger = merger;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      return repository.mergeInAll(executor, suppliers, merger);
+    }
+  }
+
+  /**
+   * Runs the suppliers concurrently on the executor, and merges the list of their values into the
+   * intermediate value. While waiting for the suppliers, a cancellation request cancels the join
+   * and, if so configured, interrupts the threads running the suppliers.
+   *
+   * @return Whether to continue the flow; false if the flow is cancelled instead.
+   */
+  private boolean mergeInAll(@NonNull final Executor executor, @NonNull final Supplier[] suppliers,
+      @NonNull final Merger merger) {
+    final ParallelJoin join = new ParallelJoin(suppliers, discardedValuesDisposer);
+    synchronized (this) {
+      if (checkCancellation()) {
+        return false;
+      }
+      currentJoin = join;
+    }
+    final List<Object> values;
+    try {
+      values = join.forkAndJoin(executor);
+    } finally {
+      synchronized (this) {
+        currentJoin = null;
+      }
+    }
+    if (values == null) {
+      // Only a cancellation request cancels the join; acknowledge it.
+      checkCancellation();
+      return false;
+    }
+    intermediateValue = checkNotNull(merger.merge(intermediateValue, values));
+    return true;
+  }
+
   private void runTerminate(@NonNull final Object caseValue,
       @Nullable final Function terminatingValueFunction) {
     if (terminatingValueFunction == null) {
@@ -514,14 +1067,40 @@ final class CompiledRepository extends BaseObservable
     return -1;
   }
 
+  private static final class EndNode extends FlowNode {
+    private final boolean skip;
+
+    EndNode(final boolean skip) {
+      super(END);
+      this.skip = skip;
+    }
+
+    @Override
+    boolean run(@NonNull final CompiledRepository repository) {
+      if (skip) {
+        repository.skipAndEndFlow();
+      } else {
+        repository.setNewValueAndEndFlow(repository.intermediateValue);
+      }
+      return false;
+    }
+  }
+
   //endregion Running directives
 
   //region Completing, pausing and resuming flow
 
+  /**
+   * Ends the flow without a new value. If cancellation has been requested meanwhile, which may
+   * happen when a fused run of directives terminates the flow, the request is acknowledged instead.
+   */
   private void skipAndEndFlow() {
     Object discardedIntermediateValue = null;
     synchronized (this) {
-      runState = IDLE;
+      if (checkCancellation()) {
+        return;
+      }
+      setRunState(IDLE, -1);
       if (intermediateValue != currentValue) {
         discardedIntermediateValue = intermediateValue;
         intermediateValue = currentValue; // GC the intermediate value but keep field non-null.
@@ -533,21 +1112,36 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
-  private synchronized void setNewValueAndEndFlow(@NonNull final Object newValue) {
+  /**
+   * Ends the flow with the new value. If cancellation has been requested meanwhile, which may
+   * happen when a fused run of directives terminates the flow, the new value is discarded and the
+   * request is acknowledged instead, so that neither the value nor the run state set by the
+   * cancellation, such as a reset to the initial value, is overwritten.
+   */
+  private void setNewValueAndEndFlow(@NonNull final Object newValue) {
     Object discardedIntermediateValue = null;
     synchronized (this) {
-      final boolean wasRunningLazily = runState == RUNNING_LAZILY;
-      runState = IDLE;
-      if (intermediateValue != newValue) {
-        discardedIntermediateValue = intermediateValue;
-        intermediateValue = newValue; // GC the intermediate value but keep field non-null.
-      }
-      if (wasRunningLazily) {
-        currentValue = newValue; // Don't notify if this new value is produced lazily
+      final int state = this.state.get();
+      if (runState(state) == CANCEL_REQUESTED) {
+        workerHandler.scheduler.execute(acknowledgeCancelTask);
+        // acknowledgeCancel() discards the intermediate value, but not a terminating value.
+        if (newValue != intermediateValue && newValue != currentValue) {
+          discardedIntermediateValue = newValue;
+        }
       } else {
-        setNewValueLocked(newValue); // May notify otherwise
+        final boolean wasRunningLazily = runState(state) == RUNNING_LAZILY;
+        setRunState(IDLE, -1);
+        if (intermediateValue != newValue) {
+          discardedIntermediateValue = intermediateValue;
+          intermediateValue = newValue; // GC the intermediate value but keep field non-null.
+        }
+        if (wasRunningLazily) {
+          currentValue = newValue; // Don't notify if this new value is produced lazily
+        } else {
+          setNewValueLocked(newValue); // May notify otherwise
+        }
+        checkRestartLocked();
       }
-      checkRestartLocked();
     }
     if (discardedIntermediateValue != null) {
       discardedValuesDisposer.accept(discardedIntermediateValue);
@@ -562,9 +1156,24 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
-  private void setPausedAtGoToLocked(final int resumeIndex) {
-    lastDirectiveIndex = resumeIndex;
-    runState = PAUSED_AT_GO_TO;
+  /**
+   * Pauses the flow at the goTo directive at the given index, unless cancellation has been
+   * requested, in which case the request is acknowledged. This does not need the lock.
+   *
+   * @return Whether the flow is paused, as opposed to cancelled.
+   */
+  private boolean pauseAtGoTo(final int resumeIndex) {
+    while (true) {
+      final int state = this.state.get();
+      if (runState(state) == CANCEL_REQUESTED) {
+        workerHandler.scheduler.execute(acknowledgeCancelTask);
+        return false;
+      }
+      if (this.state.compareAndSet(state, (state & RESTART_NEEDED) | PAUSED_AT_GO_TO
+          | (resumeIndex + 1) << LAST_DIRECTIVE_INDEX_SHIFT)) {
+        return true;
+      }
+    }
   }
 
   /** Called from the executor of a goTo instruction to continue processing. */
@@ -573,20 +1182,22 @@ final class CompiledRepository extends BaseObservable
     final Thread myThread = currentThread();
     final int index;
     synchronized (this) {
-      index = lastDirectiveIndex;
+      final int state = this.state.get();
+      final int runState = runState(state);
       checkState(runState == PAUSED_AT_GO_TO || runState == CANCEL_REQUESTED,
           "Illegal call of Runnable.run()");
-      lastDirectiveIndex = -1;
 
-      if (checkCancellationLocked()) {
+      if (checkCancellation()) {
         return;
       }
-      runState = RUNNING;
+      index = lastDirectiveIndex(state);
+      setRunState(RUNNING, -1);
       // allow thread interruption (set this when still holding the lock)
       currentThread = myThread;
     }
     // leave the synchronization lock to run the rest of the flow
-    runFlowFrom(continueFromGoTo(directives, index), true);
+    runFlowFrom(flowNodes != null
+        ? continueFromGoTo(flowNodes, index) : continueFromGoTo(directives, index), true);
     // consume any unconsumed interrupted flag
     Thread.interrupted();
     // disallow interrupting the current thread, but chances are the next directive has started
@@ -601,20 +1212,26 @@ final class CompiledRepository extends BaseObservable
     }
   }
 
-  private void setLazyAndEndFlowLocked(final int resumeIndex) {
-    lastDirectiveIndex = resumeIndex;
-    runState = PAUSED_AT_GO_LAZY;
-    dispatchUpdate();
-    checkRestartLocked();
+  private void pauseAtGoLazy(final int resumeIndex) {
+    synchronized (this) {
+      if (checkCancellation()) {
+        return;
+      }
+      setRunState(PAUSED_AT_GO_LAZY, resumeIndex);
+      dispatchUpdate();
+      checkRestartLocked();
+    }
   }
 
   @NonNull
   @Override
   public synchronized Object get() {
-    if (runState == PAUSED_AT_GO_LAZY) {
-      final int index = lastDirectiveIndex;
-      runState = RUNNING_LAZILY;
-      runFlowFrom(continueFromGoLazy(directives, index), false);
+    final int state = this.state.get();
+    if (runState(state) == PAUSED_AT_GO_LAZY) {
+      final int index = lastDirectiveIndex(state);
+      setRunState(RUNNING_LAZILY, index);
+      runFlowFrom(flowNodes != null
+          ? continueFromGoLazy(flowNodes, index) : continueFromGoLazy(directives, index), false);
     }
     return currentValue;
   }
@@ -20,6 +20,8 @@ import static com.google.android.agera.Common.TRUE_CONDICATE;
 import static com.google.android.agera.Preconditions.checkNotNull;
 
 import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility methods for obtaining {@link Condition} instances.
@@ -74,7 +76,7 @@ public final class Conditions {
    */
   @NonNull
   public static Condition any(@NonNull final Condition... conditions) {
-    return composite(conditions, falseCondition(), trueCondition());
+    return composite(conditions, falseCondition(), trueCondition(), false);
   }
 
   /**
@@ -84,7 +86,61 @@ public final class Conditions {
    */
   @NonNull
   public static Condition all(@NonNull final Condition... conditions) {
-    return composite(conditions, trueCondition(), falseCondition());
+    return composite(conditions, trueCondition(), falseCondition(), false);
+  }
+
+  /**
+   * Like {@link #any}, but reorders the {@code conditions} as it is evaluated, so that those most
+   * likely to evaluate to {@code true} for the least time are evaluated first. The conditions must
+   * be independent of each other and free of side effects, since the order they are evaluated in
+   * changes.
+   */
+  @NonNull
+  public static Condition adaptiveAny(@NonNull final Condition... conditions) {
+    return composite(conditions, falseCondition(), trueCondition(), true);
+  }
+
+  /**
+   * Like {@link #all}, but reorders the {@code conditions} as it is evaluated, so that those most
+   * likely to evaluate to {@code false} for the least time are evaluated first. The conditions must
+   * be independent of each other and free of side effects, since the order they are evaluated in
+   * changes.
+   */
+  @NonNull
+  public static Condition adaptiveAll(@NonNull final Condition... conditions) {
+    return composite(conditions, trueCondition(), falseCondition(), true);
+  }
+
+  /**
+   * Returns a {@link Condition} that caches the result of {@code condition} until any of the
+   * {@code invalidators} is updated, so that an expensive check, such as of the connectivity or a
+   * permission, is not repeated for every update of a {@link Observables#conditionalObservable}.
+   *
+   * <p>The result is only cached while the returned condition is used by an active
+   * {@link Observables#conditionalObservable}, directly or inside conditions combined with
+   * {@link #all}, {@link #any}, {@link #not} and their adaptive variants, which keeps it observing
+   * the {@code invalidators}; elsewhere {@code condition} is evaluated every time. The cache is
+   * observing with {@link UpdatePriority#HIGH high priority}, so it is invalidated ahead of other
+   * updatables called back for the same update. An update of the observable that the conditional
+   * observable itself observes invalidates the cache right before the condition is evaluated for
+   * it, if that observable is one of the {@code invalidators}. An update of any other invalidator
+   * arrives like any update, so an evaluation at the same time on another thread may still return
+   * the old result.
+   */
+  @NonNull
+  public static Condition cachedCondition(@NonNull final Condition condition,
+      @NonNull final Observable... invalidators) {
+    if (condition == TRUE_CONDICATE || condition == FALSE_CONDICATE) {
+      return condition;
+    }
+    final List<Observable> distinctInvalidators = new ArrayList<>(invalidators.length);
+    for (final Observable invalidator : invalidators) {
+      if (!distinctInvalidators.contains(checkNotNull(invalidator))) {
+        distinctInvalidators.add(invalidator);
+      }
+    }
+    return new CachedCondition(condition,
+        distinctInvalidators.toArray(new Observable[distinctInvalidators.size()]));
   }
 
   /**
@@ -107,9 +163,39 @@ public final class Conditions {
     return new PredicateCondition<>(predicate, supplier);
   }
 
+  /**
+   * Returns the {@link CachedCondition}s making up the given condition, for a conditional
+   * observable to activate.
+   */
+  @NonNull
+  static List<CachedCondition> cachedConditionsOf(@NonNull final Condition condition) {
+    final List<CachedCondition> cachedConditions = new ArrayList<>();
+    addCachedConditions(condition, cachedConditions);
+    return cachedConditions;
+  }
+
+  private static void addCachedConditions(@NonNull final Condition condition,
+      @NonNull final List<CachedCondition> cachedConditions) {
+    if (condition instanceof CachedCondition) {
+      cachedConditions.add((CachedCondition) condition);
+      addCachedConditions(((CachedCondition) condition).condition, cachedConditions);
+    } else if (condition instanceof NegatedCondition) {
+      addCachedConditions(((NegatedCondition) condition).condition, cachedConditions);
+    } else if (condition instanceof CompositeCondition) {
+      for (final Condition operand : ((CompositeCondition) condition).conditions) {
+        addCachedConditions(operand, cachedConditions);
+      }
+    } else if (condition instanceof AdaptiveCompositeCondition) {
+      for (final Condition operand : ((AdaptiveCompositeCondition) condition).conditions) {
+        addCachedConditions(operand, cachedConditions);
+      }
+    }
+  }
+
   @NonNull
   private static Condition composite(@NonNull final Condition[] conditions,
-      @NonNull final Condition defaultCondition, @NonNull final Condition definingCondition) {
+      @NonNull final Condition defaultCondition, @NonNull final Condition definingCondition,
+      final boolean adaptive) {
     int nonDefaultCount = 0;
     Condition lastNonDefaultCondition = null;
     for (final Condition condition : conditions) {
@@ -125,6 +211,9 @@ public final class Conditions {
     } else if (nonDefaultCount == 1) {
       return lastNonDefaultCondition;
     }
+    if (adaptive) {
+      return new AdaptiveCompositeCondition(conditions.clone(), definingCondition.applies());
+    }
     return new CompositeCondition(conditions.clone(), definingCondition.applies());
   }
 
@@ -149,6 +238,119 @@ public final class Conditions {
     }
   }
 
+  private static final class AdaptiveCompositeCondition implements Condition {
+    @NonNull
+    private final Condition[] conditions;
+    private final boolean definingResult;
+    @NonNull
+    private final AdaptiveOrder adaptiveOrder;
+
+    AdaptiveCompositeCondition(@NonNull final Condition[] conditions,
+        final boolean definingResult) {
+      this.definingResult = definingResult;
+      this.conditions = checkNotNull(conditions);
+      this.adaptiveOrder = new AdaptiveOrder(conditions.length);
+    }
+
+    @Override
+    public boolean applies() {
+      final boolean timed = adaptiveOrder.startEvaluation();
+      for (final int index : adaptiveOrder.order()) {
+        final long start = timed ? System.nanoTime() : 0;
+        final boolean deciding = conditions[index].applies() == definingResult;
+        adaptiveOrder.record(index, deciding, timed ? System.nanoTime() - start : -1);
+        if (deciding) {
+          return definingResult;
+        }
+      }
+      return !definingResult;
+    }
+  }
+
+  /**
+   * Caches the result of a condition while activated by at least one
+   * {@link Observables#conditionalObservable}. Each invalidation bumps the generation, so that a
+   * result evaluated across an invalidation is returned but not cached.
+   */
+  static final class CachedCondition implements Condition, PrioritizedUpdatable {
+    @NonNull
+    private final Condition condition;
+    @NonNull
+    private final Observable[] invalidators;
+    // All guarded by this.
+    private int activations;
+    private int generation;
+    private boolean cached;
+    private boolean value;
+
+    CachedCondition(@NonNull final Condition condition,
+        @NonNull final Observable[] invalidators) {
+      this.condition = checkNotNull(condition);
+      this.invalidators = invalidators;
+    }
+
+    @Override
+    public boolean applies() {
+      final int generation;
+      synchronized (this) {
+        if (cached) {
+          return value;
+        }
+        generation = this.generation;
+      }
+      final boolean value = condition.applies();
+      synchronized (this) {
+        if (activations > 0 && generation == this.generation) {
+          this.value = value;
+          cached = true;
+        }
+      }
+      return value;
+    }
+
+    @Override
+    public synchronized void update() {
+      generation++;
+      cached = false;
+    }
+
+    @Override
+    public int getUpdatePriority() {
+      return UpdatePriority.HIGH;
+    }
+
+    boolean isInvalidatedBy(@NonNull final Observable observable) {
+      for (final Observable invalidator : invalidators) {
+        if (invalidator == observable) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Starts caching and observing the invalidators. Called from the worker thread of an activated
+     * conditional observable, where the invalidators can be observed.
+     */
+    synchronized void activate() {
+      if (activations++ == 0) {
+        for (final Observable invalidator : invalidators) {
+          invalidator.addUpdatable(this);
+        }
+      }
+    }
+
+    synchronized void deactivate() {
+      if (--activations == 0) {
+        generation++;
+        cached = false;
+        for (final Observable invalidator : invalidators) {
+          invalidator.removeUpdatable(this);
+        }
+      }
+    }
+  }
+
   private static final class NegatedCondition implements Condition {
     @NonNull
     final Condition condition;
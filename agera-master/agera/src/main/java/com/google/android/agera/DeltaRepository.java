@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import java.util.List;
+
+/**
+ * A {@link Repository} that versions its data and can describe the change from one version to a
+ * later one as a list of deltas, so that clients holding older data can apply the deltas instead
+ * of processing the whole new data.
+ *
+ * <p>The version increases with every change of the data. Because the data and the version may be
+ * changed concurrently, a client reading both should read the version before and after the data,
+ * and only use the pair if the two versions are the same.
+ *
+ * @param <TVal> The type of the data.
+ * @param <TDelta> The type of the deltas.
+ */
+public interface DeltaRepository<TVal, TDelta> extends Repository<TVal> {
+
+  /**
+   * Returns the version of the current data.
+   */
+  long getVersion();
+
+  /**
+   * Returns the deltas that, applied in order, turn the data of version {@code fromVersion} into
+   * the data of version {@code toVersion}, or {@link Result#absent()} if the repository does not
+   * have all of them, in which case the client should process the whole data of
+   * {@code toVersion}. Deltas may be missing because the repository keeps a limited number of them,
+   * or because the data was changed without a delta.
+   */
+  @NonNull
+  Result<List<TDelta>> getDeltas(long fromVersion, long toVersion);
+}
@@ -21,15 +21,27 @@ import static com.google.android.agera.Preconditions.checkNotNull;
 import static java.util.Collections.emptyList;
 
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.google.android.agera.FunctionCompilerStates.FItem;
 import com.google.android.agera.FunctionCompilerStates.FList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @SuppressWarnings({"unchecked, rawtypes"})
 final class FunctionCompiler implements FList, FItem {
+  static final int DEFAULT_PARALLEL_THRESHOLD = 4096;
+  static volatile int parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+  private static final int NO_LIMIT = -1;
+  private static final Object FILTERED_OUT = new Object();
   private static final ThreadLocal<FunctionCompiler> compilers = new ThreadLocal<>();
 
   @NonNull
@@ -103,11 +115,31 @@ final class FunctionCompiler implements FList, FItem {
     return this;
   }
 
+  /**
+   * Returns the last function added if it is a {@link FusedListFunction} that the next filter, map
+   * or limit can join, or null otherwise.
+   */
+  @Nullable
+  private FusedListFunction lastFusedFunction() {
+    final int last = functions.size() - 1;
+    return last >= 0 && functions.get(last) instanceof FusedListFunction
+        ? (FusedListFunction) functions.get(last) : null;
+  }
+
+  private void addFusedStage(@NonNull final Object stage) {
+    final FusedListFunction fused = lastFusedFunction();
+    if (fused != null) {
+      functions.set(functions.size() - 1, fused.withStage(stage));
+    } else {
+      addFunction(new FusedListFunction(new Object[] {stage}, NO_LIMIT, NO_LIMIT));
+    }
+  }
+
   @NonNull
   @Override
   public FList filter(@NonNull final Predicate filter) {
     if (filter != TRUE_CONDICATE) {
-      addFunction(new FilterFunction(filter));
+      addFusedStage(new FilterStage(checkNotNull(filter)));
     }
     return this;
   }
@@ -115,7 +147,15 @@ final class FunctionCompiler implements FList, FItem {
   @NonNull
   @Override
   public FList limit(final int limit) {
-    addFunction(new LimitFunction(limit));
+    final int last = functions.size() - 1;
+    final FusedListFunction fused = lastFusedFunction();
+    if (fused != null && fused.limit == NO_LIMIT) {
+      functions.set(last, fused.withLimit(limit));
+    } else if (last >= 0 && functions.get(last) instanceof SortFunction) {
+      functions.set(last, new TopKFunction(((SortFunction) functions.get(last)).comparator, limit));
+    } else {
+      addFunction(new LimitFunction(limit));
+    }
     return this;
   }
 
@@ -130,11 +170,34 @@ final class FunctionCompiler implements FList, FItem {
   @Override
   public FList map(@NonNull final Function function) {
     if (function != NULL_OPERATOR) {
-      addFunction(new MapFunction(function));
+      addFusedStage(checkNotNull(function));
+    }
+    return this;
+  }
+
+  @NonNull
+  @Override
+  public FList parallelMap(@NonNull final Function function) {
+    addFunction(new ParallelMapFunction(checkNotNull(function)));
+    return this;
+  }
+
+  @NonNull
+  @Override
+  public FList parallelFilter(@NonNull final Predicate filter) {
+    if (filter != TRUE_CONDICATE) {
+      addFunction(new ParallelFilterFunction(checkNotNull(filter)));
     }
     return this;
   }
 
+  @NonNull
+  @Override
+  public FList parallelSort(@NonNull final Comparator comparator) {
+    addFunction(new ParallelSortFunction(checkNotNull(comparator)));
+    return this;
+  }
+
   @NonNull
   @Override
   public Function thenMap(@NonNull final Function function) {
@@ -183,29 +246,6 @@ final class FunctionCompiler implements FList, FItem {
     }
   }
 
-  private static final class MapFunction<F, T> implements Function<List<F>, List<T>> {
-    @NonNull
-    private final Function<F, T> function;
-
-    MapFunction(@NonNull final Function<F, T> function) {
-      this.function = checkNotNull(function);
-    }
-
-    @NonNull
-    @Override
-    @SuppressWarnings("unchecked")
-    public List<T> apply(@NonNull final List<F> input) {
-      if (input.isEmpty()) {
-        return emptyList();
-      }
-      final List<T> result = new ArrayList(input.size());
-      for (final F item : input) {
-        result.add(function.apply(item));
-      }
-      return result;
-    }
-  }
-
   private static final class ChainFunction implements Function {
     @NonNull
     private final Function[] functions;
@@ -226,34 +266,92 @@ final class FunctionCompiler implements FList, FItem {
     }
   }
 
-  private static final class FilterFunction<T> implements Function<List<T>, List<T>> {
+  /**
+   * A run of adjacent filter and map stages, optionally ending the iteration once a number of
+   * items have passed the stage at {@link #limitIndex}, applied in a single pass over the input
+   * list. Only the output list is allocated, and with a limit the rest of the input is not visited.
+   */
+  private static final class FusedListFunction implements Function<List, List> {
+    /** {@link FilterStage}s and mapping {@link Function}s, in order. */
     @NonNull
-    private final Predicate filter;
+    private final Object[] stages;
+    /** The number of items to let past the limit, or {@link #NO_LIMIT}. */
+    final int limit;
+    /** The number of stages before the limit, or {@link #NO_LIMIT}. */
+    private final int limitIndex;
+
+    FusedListFunction(@NonNull final Object[] stages, final int limit, final int limitIndex) {
+      this.stages = stages;
+      this.limit = limit;
+      this.limitIndex = limitIndex;
+    }
+
+    @NonNull
+    FusedListFunction withStage(@NonNull final Object stage) {
+      final Object[] newStages = Arrays.copyOf(stages, stages.length + 1);
+      newStages[stages.length] = stage;
+      return new FusedListFunction(newStages, limit, limitIndex);
+    }
 
-    FilterFunction(@NonNull final Predicate filter) {
-      this.filter = checkNotNull(filter);
+    @NonNull
+    FusedListFunction withLimit(final int limit) {
+      return new FusedListFunction(stages, Math.max(0, limit), stages.length);
     }
 
     @NonNull
     @Override
-    @SuppressWarnings("unchecked")
-    public List<T> apply(@NonNull final List<T> input) {
-      if (input.isEmpty()) {
+    public List apply(@NonNull final List input) {
+      if (input.isEmpty() || limit == 0) {
         return emptyList();
       }
-      final List<T> result = new ArrayList(input.size());
-      for (final T item : input) {
-        if (filter.apply(item)) {
-          result.add(item);
+      final List output = new ArrayList(limit == NO_LIMIT ? input.size()
+          : Math.min(limit, input.size()));
+      int passed = 0;
+      for (final Object inputItem : input) {
+        Object item = inputItem;
+        for (int i = 0; i < stages.length && item != FILTERED_OUT; i++) {
+          if (i == limitIndex) {
+            passed++;
+          }
+          final Object stage = stages[i];
+          if (stage instanceof FilterStage) {
+            if (!((FilterStage) stage).filter.apply(item)) {
+              item = FILTERED_OUT;
+            }
+          } else {
+            item = ((Function) stage).apply(item);
+          }
+        }
+        if (item != FILTERED_OUT) {
+          if (limitIndex == stages.length) {
+            passed++;
+          }
+          output.add(item);
+        }
+        if (passed == limit) {
+          break;
         }
       }
-      return result;
+      return output;
+    }
+  }
+
+  /**
+   * Wraps the predicate of a filter stage, which may also be a {@link Function}, so that
+   * {@link FusedListFunction} can tell the two kinds of stage apart.
+   */
+  private static final class FilterStage {
+    @NonNull
+    final Predicate filter;
+
+    FilterStage(@NonNull final Predicate filter) {
+      this.filter = filter;
     }
   }
 
   private static final class SortFunction<T> implements Function<List<T>, List<T>> {
     @NonNull
-    private final Comparator comparator;
+    final Comparator comparator;
 
     SortFunction(@NonNull final Comparator comparator) {
       this.comparator = checkNotNull(comparator);
@@ -267,4 +365,354 @@ final class FunctionCompiler implements FList, FItem {
       return output;
     }
   }
+
+  /**
+   * A sort followed by a limit of {@code k}, keeping the {@code k} first items in a bounded
+   * max-heap of input indices instead of sorting the whole list. Equal items keep their input
+   * order, as with the stable {@link Collections#sort}.
+   */
+  private static final class TopKFunction implements Function<List, List> {
+    @NonNull
+    private final Comparator comparator;
+    private final int k;
+
+    TopKFunction(@NonNull final Comparator comparator, final int k) {
+      this.comparator = comparator;
+      this.k = k;
+    }
+
+    @NonNull
+    @Override
+    public List apply(@NonNull final List input) {
+      if (k <= 0) {
+        return emptyList();
+      }
+      final Object[] items = input.toArray();
+      if (items.length <= k) {
+        Arrays.sort(items, comparator);
+        return new ArrayList(Arrays.asList(items));
+      }
+      final int[] heap = new int[k];
+      for (int i = 0; i < k; i++) {
+        heap[i] = i;
+        siftUp(items, heap, i);
+      }
+      for (int i = k; i < items.length; i++) {
+        if (comparator.compare(items[i], items[heap[0]]) < 0) {
+          heap[0] = i;
+          siftDown(items, heap, k);
+        }
+      }
+      final Object[] output = new Object[k];
+      for (int size = k; size > 0; size--) {
+        output[size - 1] = items[heap[0]];
+        heap[0] = heap[size - 1];
+        siftDown(items, heap, size - 1);
+      }
+      return new ArrayList(Arrays.asList(output));
+    }
+
+    /**
+     * Compares the items at the given input indices, ordering equal items by index.
+     */
+    private int compare(@NonNull final Object[] items, final int first, final int second) {
+      final int result = comparator.compare(items[first], items[second]);
+      return result != 0 ? result : first < second ? -1 : 1;
+    }
+
+    private void siftUp(@NonNull final Object[] items, @NonNull final int[] heap, int index) {
+      final int value = heap[index];
+      while (index > 0) {
+        final int parent = (index - 1) / 2;
+        if (compare(items, heap[parent], value) >= 0) {
+          break;
+        }
+        heap[index] = heap[parent];
+        index = parent;
+      }
+      heap[index] = value;
+    }
+
+    private void siftDown(@NonNull final Object[] items, @NonNull final int[] heap,
+        final int size) {
+      int index = 0;
+      final int value = heap[0];
+      while (true) {
+        int child = 2 * index + 1;
+        if (child >= size) {
+          break;
+        }
+        if (child + 1 < size && compare(items, heap[child + 1], heap[child]) > 0) {
+          child++;
+        }
+        if (compare(items, value, heap[child]) >= 0) {
+          break;
+        }
+        heap[index] = heap[child];
+        index = child;
+      }
+      heap[index] = value;
+    }
+  }
+
+  /**
+   * Returns the length of the ranges to split a list of the given {@code size} into for
+   * processing on the {@link ParallelPool}, or the size itself if it is too short to split.
+   */
+  private static int parallelRangeSize(final int size) {
+    if (size < parallelThreshold) {
+      return size;
+    }
+    return Math.max(parallelThreshold / 4, size / (ParallelPool.PARALLELISM * 4) + 1);
+  }
+
+  /**
+   * Holder of the thread pool of the parallel list stages, created on first use. It is a plain
+   * {@link ThreadPoolExecutor} of daemon threads, one per processor, which time out when idle.
+   */
+  private static final class ParallelPool {
+    static final int PARALLELISM = Math.max(1, Runtime.getRuntime().availableProcessors());
+    static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    @NonNull
+    private static ThreadPoolExecutor createExecutor() {
+      final ThreadPoolExecutor executor = new ThreadPoolExecutor(PARALLELISM, PARALLELISM,
+          1, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @NonNull
+            @Override
+            public Thread newThread(@NonNull final Runnable runnable) {
+              final Thread thread =
+                  new Thread(runnable, "Agera parallel list #" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            }
+          });
+      executor.allowCoreThreadTimeOut(true);
+      return executor;
+    }
+  }
+
+  /**
+   * Processes the range [0, {@code size}) of a list in ranges of at most {@code rangeSize} items.
+   * The ranges are claimed one at a time by the calling thread and by helpers run on the
+   * {@link ParallelPool}; since the calling thread processes every range nobody else has claimed,
+   * it never waits on a queued helper, even when called from a pool thread.
+   */
+  private abstract static class RangeTask implements Runnable {
+    final int size;
+    final int rangeSize;
+    private final int rangeCount;
+    @NonNull
+    private final AtomicInteger nextRange = new AtomicInteger();
+    @NonNull
+    private final CountDownLatch done;
+    @Nullable
+    private volatile Throwable failure;
+
+    RangeTask(final int size, final int rangeSize) {
+      this.size = size;
+      this.rangeSize = rangeSize;
+      this.rangeCount = (size + rangeSize - 1) / rangeSize;
+      this.done = new CountDownLatch(rangeCount);
+    }
+
+    /**
+     * Processes all ranges and returns once they are processed, rethrowing the failure of any.
+     */
+    final void invoke() {
+      final int helpers = Math.min(rangeCount, ParallelPool.PARALLELISM) - 1;
+      for (int i = 0; i < helpers; i++) {
+        ParallelPool.EXECUTOR.execute(this);
+      }
+      run();
+      boolean interrupted = false;
+      while (true) {
+        try {
+          done.await();
+          break;
+        } catch (final InterruptedException e) {
+          // The helpers still write to the arrays of this task; wait for them regardless.
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      final Throwable failure = this.failure;
+      if (failure instanceof RuntimeException) {
+        throw (RuntimeException) failure;
+      }
+      if (failure instanceof Error) {
+        throw (Error) failure;
+      }
+    }
+
+    @Override
+    public final void run() {
+      int range;
+      while ((range = nextRange.getAndIncrement()) < rangeCount) {
+        final int from = range * rangeSize;
+        try {
+          computeRange(from, Math.min(size, from + rangeSize));
+        } catch (final Throwable e) {
+          failure = e;
+        } finally {
+          done.countDown();
+        }
+      }
+    }
+
+    abstract void computeRange(int from, int to);
+  }
+
+  private static final class ParallelMapFunction implements Function<List, List> {
+    @NonNull
+    private final Function function;
+
+    ParallelMapFunction(@NonNull final Function function) {
+      this.function = function;
+    }
+
+    @NonNull
+    @Override
+    public List apply(@NonNull final List input) {
+      if (input.isEmpty()) {
+        return emptyList();
+      }
+      final Object[] items = input.toArray();
+      final int rangeSize = parallelRangeSize(items.length);
+      if (rangeSize == items.length) {
+        map(items, 0, items.length);
+      } else {
+        new RangeTask(items.length, rangeSize) {
+          @Override
+          void computeRange(final int from, final int to) {
+            map(items, from, to);
+          }
+        }.invoke();
+      }
+      return new ArrayList(Arrays.asList(items));
+    }
+
+    /** Replaces the items in the range with their mapped values. */
+    private void map(@NonNull final Object[] items, final int from, final int to) {
+      for (int i = from; i < to; i++) {
+        items[i] = function.apply(items[i]);
+      }
+    }
+  }
+
+  private static final class ParallelFilterFunction implements Function<List, List> {
+    @NonNull
+    private final Predicate filter;
+
+    ParallelFilterFunction(@NonNull final Predicate filter) {
+      this.filter = filter;
+    }
+
+    @NonNull
+    @Override
+    public List apply(@NonNull final List input) {
+      if (input.isEmpty()) {
+        return emptyList();
+      }
+      final Object[] items = input.toArray();
+      final boolean[] kept = new boolean[items.length];
+      final int rangeSize = parallelRangeSize(items.length);
+      if (rangeSize == items.length) {
+        test(items, kept, 0, items.length);
+      } else {
+        new RangeTask(items.length, rangeSize) {
+          @Override
+          void computeRange(final int from, final int to) {
+            test(items, kept, from, to);
+          }
+        }.invoke();
+      }
+      final List output = new ArrayList(items.length);
+      for (int i = 0; i < items.length; i++) {
+        if (kept[i]) {
+          output.add(items[i]);
+        }
+      }
+      return output;
+    }
+
+    /** Marks the items in the range that pass the filter. */
+    private void test(@NonNull final Object[] items, @NonNull final boolean[] kept, final int from,
+        final int to) {
+      for (int i = from; i < to; i++) {
+        kept[i] = filter.apply(items[i]);
+      }
+    }
+  }
+
+  /**
+   * Sorts the ranges of a long list in parallel, then merges neighboring runs of doubling length
+   * through a buffer. Taking the earlier run's item on ties keeps the sort stable.
+   */
+  private static final class ParallelSortFunction implements Function<List, List> {
+    @NonNull
+    private final Comparator comparator;
+
+    ParallelSortFunction(@NonNull final Comparator comparator) {
+      this.comparator = comparator;
+    }
+
+    @NonNull
+    @Override
+    public List apply(@NonNull final List input) {
+      final Object[] items = input.toArray();
+      final int rangeSize = parallelRangeSize(items.length);
+      if (rangeSize >= items.length) {
+        Arrays.sort(items, comparator);
+      } else {
+        new RangeTask(items.length, rangeSize) {
+          @Override
+          void computeRange(final int from, final int to) {
+            Arrays.sort(items, from, to, comparator);
+          }
+        }.invoke();
+        mergeRuns(items, rangeSize);
+      }
+      return new ArrayList(Arrays.asList(items));
+    }
+
+    private void mergeRuns(@NonNull final Object[] items, final int runSize) {
+      Object[] from = items;
+      Object[] to = new Object[items.length];
+      for (int width = runSize; width < items.length; width *= 2) {
+        for (int start = 0; start < items.length; start += 2 * width) {
+          final int middle = Math.min(items.length, start + width);
+          final int end = Math.min(items.length, start + 2 * width);
+          merge(from, to, start, middle, end);
+        }
+        final Object[] swap = from;
+        from = to;
+        to = swap;
+      }
+      if (from != items) {
+        System.arraycopy(from, 0, items, 0, items.length);
+      }
+    }
+
+    private void merge(@NonNull final Object[] from, @NonNull final Object[] to, final int start,
+        final int middle, final int end) {
+      int left = start;
+      int right = middle;
+      int index = start;
+      while (left < middle && right < end) {
+        to[index++] = comparator.compare(from[right], from[left]) < 0
+            ? from[right++] : from[left++];
+      }
+      while (left < middle) {
+        to[index++] = from[left++];
+      }
+      while (right < end) {
+        to[index++] = from[right++];
+      }
+    }
+  }
 }
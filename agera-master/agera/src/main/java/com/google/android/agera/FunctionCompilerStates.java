@@ -16,6 +16,12 @@
 package com.google.android.agera;
 
 import android.support.annotation.NonNull;
+import com.google.android.agera.PrimitiveOperators.DoubleOperator;
+import com.google.android.agera.PrimitiveOperators.DoublePredicate;
+import com.google.android.agera.PrimitiveOperators.IntOperator;
+import com.google.android.agera.PrimitiveOperators.IntPredicate;
+import com.google.android.agera.PrimitiveOperators.LongOperator;
+import com.google.android.agera.PrimitiveOperators.LongPredicate;
 import java.util.Comparator;
 import java.util.List;
 
@@ -120,6 +126,42 @@ public interface FunctionCompilerStates {
     @NonNull
     FList<TPrev, TPrevList, TFrom> sort(@NonNull Comparator<TPrev> comparator);
 
+    /**
+     * Like {@link #map}, but maps the items of a list at least as long as the
+     * {@linkplain Functions#setParallelListThreshold parallel list threshold} on several threads,
+     * splitting it into ranges processed by the calling thread and a shared pool of one thread per
+     * processor. This works on all API levels. The order of the items is preserved. The function
+     * must be safe to call concurrently.
+     *
+     * @param function the function to apply to each item to create a new list
+     */
+    @NonNull
+    <TTo> FList<TTo, List<TTo>, TFrom> parallelMap(@NonNull Function<TPrev, TTo> function);
+
+    /**
+     * Like {@link #filter}, but tests the items of a list at least as long as the
+     * {@linkplain Functions#setParallelListThreshold parallel list threshold} on several threads,
+     * splitting it into ranges processed by the calling thread and a shared pool of one thread per
+     * processor. This works on all API levels. The order of the items is preserved. The predicate
+     * must be safe to call concurrently.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    FList<TPrev, TPrevList, TFrom> parallelFilter(@NonNull Predicate<? super TPrev> filter);
+
+    /**
+     * Like {@link #sort}, but sorts a list at least as long as the
+     * {@linkplain Functions#setParallelListThreshold parallel list threshold} on several threads,
+     * by sorting ranges of it on the calling thread and a shared pool of one thread per processor,
+     * then merging them. This works on all API levels. The sort is stable. The comparator must be
+     * safe to call concurrently.
+     *
+     * @param comparator the comparator to sort the items
+     */
+    @NonNull
+    FList<TPrev, TPrevList, TFrom> parallelSort(@NonNull Comparator<TPrev> comparator);
+
     /**
      * Adds a {@link Predicate} to the end of the behavior chain to filter out items.
      *
@@ -144,4 +186,266 @@ public interface FunctionCompilerStates {
     @NonNull
     Function<TFrom, TPrevList> thenSort(@NonNull Comparator<TPrev> comparator);
   }
+
+  /**
+   * Compiler state allowing to specify how the {@link Function} should modify {@link IntList}s,
+   * working on a primitive array rather than a list of boxed values.
+   */
+  interface FIntList<TFrom> {
+
+    /**
+     * Adds an {@link IntPredicate} to the behavior chain to filter out values.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    FIntList<TFrom> filter(@NonNull IntPredicate filter);
+
+    /**
+     * Adds an {@link IntOperator} to the behavior chain to map each value to a new value.
+     *
+     * @param operator the operator to apply to each value
+     */
+    @NonNull
+    FIntList<TFrom> map(@NonNull IntOperator operator);
+
+    /**
+     * Adds a max number of value limit to the behavior chain.
+     *
+     * @param limit the max number of values the list is limited to
+     */
+    @NonNull
+    FIntList<TFrom> limit(int limit);
+
+    /**
+     * Adds sorting the values in ascending order to the behavior chain.
+     */
+    @NonNull
+    FIntList<TFrom> sort();
+
+    /**
+     * Adds sorting the values in descending order to the behavior chain.
+     */
+    @NonNull
+    FIntList<TFrom> sortDescending();
+
+    /**
+     * Adds an {@link IntPredicate} to the end of the behavior chain to filter out values.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    Function<TFrom, IntList> thenFilter(@NonNull IntPredicate filter);
+
+    /**
+     * Adds an {@link IntOperator} to the end of the behavior chain to map each value to a new
+     * value.
+     *
+     * @param operator the operator to apply to each value
+     */
+    @NonNull
+    Function<TFrom, IntList> thenMap(@NonNull IntOperator operator);
+
+    /**
+     * Adds a max number of value limit to the end of the behavior chain.
+     *
+     * @param limit the max number of values the list is limited to
+     */
+    @NonNull
+    Function<TFrom, IntList> thenLimit(int limit);
+
+    /**
+     * Adds sorting the values in ascending order to the end of the behavior chain.
+     */
+    @NonNull
+    Function<TFrom, IntList> thenSort();
+
+    /**
+     * Adds sorting the values in descending order to the end of the behavior chain.
+     */
+    @NonNull
+    Function<TFrom, IntList> thenSortDescending();
+
+    /**
+     * Adds a {@link Function} to the end of the behavior chain to be applied to the list.
+     *
+     * @param function the function to apply to the list
+     */
+    @NonNull
+    <TTo> Function<TFrom, TTo> thenApply(@NonNull Function<? super IntList, TTo> function);
+  }
+  /**
+   * Compiler state allowing to specify how the {@link Function} should modify {@link LongList}s,
+   * working on a primitive array rather than a list of boxed values.
+   */
+  interface FLongList<TFrom> {
+
+    /**
+     * Adds a {@link LongPredicate} to the behavior chain to filter out values.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    FLongList<TFrom> filter(@NonNull LongPredicate filter);
+
+    /**
+     * Adds a {@link LongOperator} to the behavior chain to map each value to a new value.
+     *
+     * @param operator the operator to apply to each value
+     */
+    @NonNull
+    FLongList<TFrom> map(@NonNull LongOperator operator);
+
+    /**
+     * Adds a max number of value limit to the behavior chain.
+     *
+     * @param limit the max number of values the list is limited to
+     */
+    @NonNull
+    FLongList<TFrom> limit(int limit);
+
+    /**
+     * Adds sorting the values in ascending order to the behavior chain.
+     */
+    @NonNull
+    FLongList<TFrom> sort();
+
+    /**
+     * Adds sorting the values in descending order to the behavior chain.
+     */
+    @NonNull
+    FLongList<TFrom> sortDescending();
+
+    /**
+     * Adds a {@link LongPredicate} to the end of the behavior chain to filter out values.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    Function<TFrom, LongList> thenFilter(@NonNull LongPredicate filter);
+
+    /**
+     * Adds a {@link LongOperator} to the end of the behavior chain to map each value to a new
+     * value.
+     *
+     * @param operator the operator to apply to each value
+     */
+    @NonNull
+    Function<TFrom, LongList> thenMap(@NonNull LongOperator operator);
+
+    /**
+     * Adds a max number of value limit to the end of the behavior chain.
+     *
+     * @param limit the max number of values the list is limited to
+     */
+    @NonNull
+    Function<TFrom, LongList> thenLimit(int limit);
+
+    /**
+     * Adds sorting the values in ascending order to the end of the behavior chain.
+     */
+    @NonNull
+    Function<TFrom, LongList> thenSort();
+
+    /**
+     * Adds sorting the values in descending order to the end of the behavior chain.
+     */
+    @NonNull
+    Function<TFrom, LongList> thenSortDescending();
+
+    /**
+     * Adds a {@link Function} to the end of the behavior chain to be applied to the list.
+     *
+     * @param function the function to apply to the list
+     */
+    @NonNull
+    <TTo> Function<TFrom, TTo> thenApply(@NonNull Function<? super LongList, TTo> function);
+  }
+  /**
+   * Compiler state allowing to specify how the {@link Function} should modify {@link DoubleList}s,
+   * working on a primitive array rather than a list of boxed values.
+   */
+  interface FDoubleList<TFrom> {
+
+    /**
+     * Adds a {@link DoublePredicate} to the behavior chain to filter out values.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    FDoubleList<TFrom> filter(@NonNull DoublePredicate filter);
+
+    /**
+     * Adds a {@link DoubleOperator} to the behavior chain to map each value to a new value.
+     *
+     * @param operator the operator to apply to each value
+     */
+    @NonNull
+    FDoubleList<TFrom> map(@NonNull DoubleOperator operator);
+
+    /**
+     * Adds a max number of value limit to the behavior chain.
+     *
+     * @param limit the max number of values the list is limited to
+     */
+    @NonNull
+    FDoubleList<TFrom> limit(int limit);
+
+    /**
+     * Adds sorting the values in ascending order to the behavior chain.
+     */
+    @NonNull
+    FDoubleList<TFrom> sort();
+
+    /**
+     * Adds sorting the values in descending order to the behavior chain.
+     */
+    @NonNull
+    FDoubleList<TFrom> sortDescending();
+
+    /**
+     * Adds a {@link DoublePredicate} to the end of the behavior chain to filter out values.
+     *
+     * @param filter the predicate to filter by
+     */
+    @NonNull
+    Function<TFrom, DoubleList> thenFilter(@NonNull DoublePredicate filter);
+
+    /**
+     * Adds a {@link DoubleOperator} to the end of the behavior chain to map each value to a new
+     * value.
+     *
+     * @param operator the operator to apply to each value
+     */
+    @NonNull
+    Function<TFrom, DoubleList> thenMap(@NonNull DoubleOperator operator);
+
+    /**
+     * Adds a max number of value limit to the end of the behavior chain.
+     *
+     * @param limit the max number of values the list is limited to
+     */
+    @NonNull
+    Function<TFrom, DoubleList> thenLimit(int limit);
+
+    /**
+     * Adds sorting the values in ascending order to the end of the behavior chain.
+     */
+    @NonNull
+    Function<TFrom, DoubleList> thenSort();
+
+    /**
+     * Adds sorting the values in descending order to the end of the behavior chain.
+     */
+    @NonNull
+    Function<TFrom, DoubleList> thenSortDescending();
+
+    /**
+     * Adds a {@link Function} to the end of the behavior chain to be applied to the list.
+     *
+     * @param function the function to apply to the list
+     */
+    @NonNull
+    <TTo> Function<TFrom, TTo> thenApply(@NonNull Function<? super DoubleList, TTo> function);
+  }
 }
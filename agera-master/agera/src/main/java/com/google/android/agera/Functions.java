@@ -18,16 +18,23 @@ package com.google.android.agera;
 import static com.google.android.agera.Common.FAILED_RESULT;
 import static com.google.android.agera.Common.NULL_OPERATOR;
 import static com.google.android.agera.FunctionCompiler.functionCompiler;
+import static com.google.android.agera.Preconditions.checkArgument;
 import static com.google.android.agera.Preconditions.checkNotNull;
 import static java.util.Collections.singletonList;
 
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.google.android.agera.Common.StaticProducer;
+import com.google.android.agera.FunctionCompilerStates.FDoubleList;
+import com.google.android.agera.FunctionCompilerStates.FIntList;
 import com.google.android.agera.FunctionCompilerStates.FItem;
 import com.google.android.agera.FunctionCompilerStates.FList;
+import com.google.android.agera.FunctionCompilerStates.FLongList;
+import java.io.InterruptedIOException;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Utility methods for obtaining {@link Function} instances.
@@ -95,6 +102,59 @@ public final class Functions {
     return functionCompiler();
   }
 
+  /**
+   * Starts describing a {@link Function} that starts with an {@link IntList}, running its
+   * stages over the primitive values without boxing them.
+   *
+   * @return the next {@link FunctionCompilerStates} state
+   */
+  @NonNull
+  public static FIntList<IntList> functionFromIntList() {
+    return new PrimitiveListCompiler.IntListCompiler();
+  }
+
+  /**
+   * Starts describing a {@link Function} that starts with a {@link LongList}, running its
+   * stages over the primitive values without boxing them.
+   *
+   * @return the next {@link FunctionCompilerStates} state
+   */
+  @NonNull
+  public static FLongList<LongList> functionFromLongList() {
+    return new PrimitiveListCompiler.LongListCompiler();
+  }
+
+  /**
+   * Starts describing a {@link Function} that starts with a {@link DoubleList}, running its
+   * stages over the primitive values without boxing them.
+   *
+   * @return the next {@link FunctionCompilerStates} state
+   */
+  @NonNull
+  public static FDoubleList<DoubleList> functionFromDoubleList() {
+    return new PrimitiveListCompiler.DoubleListCompiler();
+  }
+
+  /**
+   * Sets the minimum size of the lists that the {@code parallelMap}, {@code parallelFilter} and
+   * {@code parallelSort} stages of {@link FList} process on several threads. Smaller lists are
+   * processed on the calling thread, where the overhead of splitting them would outweigh the gain.
+   * The threshold applies to all functions, including those already compiled.
+   *
+   * <p>Only these explicit stages go parallel. The plain {@code map}, {@code filter} and
+   * {@code sort} stages always run on the calling thread, however long the list, because their
+   * functions, predicates and comparators are not required to be safe to call concurrently.
+   *
+   * <p>The parallel stages run on a plain thread pool rather than a fork-join pool, so they work on
+   * all API levels.
+   *
+   * @param minSize The minimum list size; 4096 by default.
+   */
+  public static void setParallelListThreshold(final int minSize) {
+    checkArgument(minSize > 0, "Parallel list threshold must be positive");
+    FunctionCompiler.parallelThreshold = minSize;
+  }
+
   /**
    * Returns a {@link Function} that wraps a {@link Throwable} in a
    * {@link Result#failure(Throwable)}).
@@ -135,6 +195,28 @@ public final class Functions {
     return (Function) RESULT_LIST_AS_LIST_FUNCTION;
   }
 
+  /**
+   * Returns a {@link Function} that coalesces concurrent calls with equal inputs into one call of
+   * the given {@code function}. The first caller for an input runs the function; callers arriving
+   * with an {@link Object#equals equal} input before it returns wait for it and receive the same
+   * output, such as the same {@link Result} of an HTTP request or database query. Nothing is kept
+   * once the call returns, so later calls run the function again; combine with {@link Caches} to
+   * also memoize the output.
+   *
+   * <p>If the function throws, the waiting callers run it again themselves, one of them in place of
+   * the failed call. The same happens if the first caller was interrupted, as seen by its thread
+   * still being interrupted after the call or by a failed {@link Result} with an
+   * {@link InterruptedException} or {@link InterruptedIOException}, so that an interruption meant
+   * for one caller does not fail the others. A waiting caller that is interrupted stops waiting and
+   * runs the function itself with its interrupted status set, so that it gets the output of its own
+   * interruption. A call from within the function with an equal input runs the function directly.
+   */
+  @NonNull
+  public static <F, T> Function<F, T> singleFlightFunction(
+      @NonNull final Function<F, T> function) {
+    return new SingleFlightFunction<>(function);
+  }
+
   private static final class SupplierAsFunction<F, T> implements Function<F, T> {
     @NonNull
     private final Supplier<? extends T> supplier;
@@ -178,5 +260,100 @@ public final class Functions {
     }
   }
 
+  private static final class SingleFlightFunction<F, T> implements Function<F, T> {
+    @NonNull
+    private final Function<F, T> function;
+    @NonNull
+    private final Map<F, Flight<T>> flights;
+
+    SingleFlightFunction(@NonNull final Function<F, T> function) {
+      this.function = checkNotNull(function);
+      this.flights = new HashMap<>();
+    }
+
+    @NonNull
+    @Override
+    public T apply(@NonNull final F input) {
+      while (true) {
+        final Flight<T> flight;
+        final boolean leading;
+        synchronized (flights) {
+          final Flight<T> existingFlight = flights.get(input);
+          leading = existingFlight == null;
+          flight = leading ? new Flight<T>() : existingFlight;
+          if (leading) {
+            flights.put(input, flight);
+          }
+        }
+        if (!leading) {
+          if (flight.thread == Thread.currentThread()) {
+            return function.apply(input);
+          }
+          final T output;
+          try {
+            output = flight.await();
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return function.apply(input);
+          }
+          if (output != null) {
+            return output;
+          }
+          continue;
+        }
+        T output = null;
+        try {
+          output = function.apply(input);
+          return output;
+        } finally {
+          synchronized (flights) {
+            flights.remove(input);
+          }
+          flight.land(output == null || isInterruption(output) ? null : output);
+        }
+      }
+    }
+
+    private static boolean isInterruption(@NonNull final Object output) {
+      if (Thread.currentThread().isInterrupted()) {
+        return true;
+      }
+      if (output instanceof Result) {
+        final Throwable failure = ((Result<?>) output).failureOrNull();
+        return failure instanceof InterruptedException
+            || failure instanceof InterruptedIOException;
+      }
+      return false;
+    }
+  }
+
+  private static final class Flight<T> {
+    @NonNull
+    final Thread thread = Thread.currentThread();
+    @Nullable
+    private T output;
+    private boolean landed;
+
+    synchronized void land(@Nullable final T output) {
+      this.output = output;
+      this.landed = true;
+      notifyAll();
+    }
+
+    /**
+     * Waits for the flight to land and returns its output, or null if the function threw or was
+     * interrupted.
+     *
+     * @throws InterruptedException if the waiting thread is interrupted
+     */
+    @Nullable
+    synchronized T await() throws InterruptedException {
+      while (!landed) {
+        wait();
+      }
+      return output;
+    }
+  }
+
   private Functions() {}
 }
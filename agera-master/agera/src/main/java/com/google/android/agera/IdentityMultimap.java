@@ -1,61 +1,157 @@
 package com.google.android.agera;
 
+import static java.lang.System.identityHashCode;
+
 import android.support.annotation.NonNull;
-import java.util.Arrays;
 
+/**
+ * A multimap of key value pairs compared by identity, backed by a linear-probing table of keys
+ * and values stored side by side in a single array. All pairs of a key are found in the probe
+ * sequence of that key. Removed pairs leave a tombstone unless they end a probe sequence; the
+ * table is rehashed, dropping all tombstones, once live pairs and tombstones fill three quarters
+ * of it, or once it is mostly empty.
+ *
+ * <p>This class is not thread safe; {@link WorkerHandler} guards it with its own lock.
+ */
 final class IdentityMultimap<K, V> {
+  private static final int MIN_CAPACITY = 8;
   @NonNull
-  private static final Object[] NO_KEY_VALUES = new Object[0];
+  private static final Object TOMBSTONE = new Object();
 
+  // Keys at even indices, each followed by its value. A null key marks an empty slot.
   @NonNull
-  private Object[] keysValues = NO_KEY_VALUES;
+  private Object[] keysValues = new Object[MIN_CAPACITY * 2];
+  private int size;
+  private int tombstones;
 
-  synchronized boolean addKeyValuePair(@NonNull final K key, @NonNull final V value) {
-    int size = 0;
+  /**
+   * Adds the pair of {@code key} and {@code value} unless already added.
+   *
+   * @return Whether the {@code key} had no pairs before this call.
+   */
+  boolean addKeyValuePair(@NonNull final K key, @NonNull final V value) {
+    final int mask = keysValues.length - 1;
     int indexToAdd = -1;
-    boolean hasValue = false;
-    for (int index = 0; index < keysValues.length; index += 2) {
-      final Object keysValue = keysValues[index];
-      if (keysValue == null) {
-        indexToAdd = index;
-      }
-      if (keysValue == key) {
-        size++;
+    boolean hasKey = false;
+    int index = indexOf(key);
+    for (Object slotKey; (slotKey = keysValues[index]) != null; index = (index + 2) & mask) {
+      if (slotKey == key) {
         if (keysValues[index + 1] == value) {
-          indexToAdd = index;
-          hasValue = true;
+          return false;
         }
+        hasKey = true;
+      } else if (slotKey == TOMBSTONE && indexToAdd == -1) {
+        indexToAdd = index;
       }
     }
     if (indexToAdd == -1) {
-      indexToAdd = keysValues.length;
-      keysValues = Arrays.copyOf(keysValues, indexToAdd < 2 ? 2 : indexToAdd * 2);
-    }
-    if (!hasValue) {
-      keysValues[indexToAdd] = key;
-      keysValues[indexToAdd + 1] = value;
+      if ((size + tombstones + 1) * 4 > keysValues.length / 2 * 3) {
+        rehash(size + 1);
+        indexToAdd = emptyIndexFor(key);
+      } else {
+        indexToAdd = index;
+      }
+    } else {
+      tombstones--;
     }
-    return size == 0;
+    keysValues[indexToAdd] = key;
+    keysValues[indexToAdd + 1] = value;
+    size++;
+    return !hasKey;
   }
 
-  synchronized void removeKeyValuePair(@NonNull final K key, @NonNull final V value) {
-    for (int index = 0; index < keysValues.length; index += 2) {
+  void removeKeyValuePair(@NonNull final K key, @NonNull final V value) {
+    final int mask = keysValues.length - 1;
+    for (int index = indexOf(key); keysValues[index] != null; index = (index + 2) & mask) {
       if (keysValues[index] == key && keysValues[index + 1] == value) {
-        keysValues[index] = null;
-        keysValues[index + 1] = null;
+        delete(index);
+        maybeShrink();
+        return;
       }
     }
   }
 
-  synchronized boolean removeKey(@NonNull final K key) {
+  /**
+   * Removes all pairs of the {@code key}.
+   *
+   * @return Whether any pair was removed.
+   */
+  boolean removeKey(@NonNull final K key) {
+    final int mask = keysValues.length - 1;
     boolean removed = false;
-    for (int index = 0; index < keysValues.length; index += 2) {
+    for (int index = indexOf(key); keysValues[index] != null; index = (index + 2) & mask) {
       if (keysValues[index] == key) {
-        keysValues[index] = null;
-        keysValues[index + 1] = null;
+        delete(index);
         removed = true;
       }
     }
+    if (removed) {
+      maybeShrink();
+    }
     return removed;
   }
+
+  private int indexOf(@NonNull final Object key) {
+    final int hash = identityHashCode(key) * 0x9E3779B9;
+    return ((hash ^ (hash >>> 16)) << 1) & (keysValues.length - 1);
+  }
+
+  private int emptyIndexFor(@NonNull final Object key) {
+    final int mask = keysValues.length - 1;
+    int index = indexOf(key);
+    while (keysValues[index] != null) {
+      index = (index + 2) & mask;
+    }
+    return index;
+  }
+
+  /**
+   * Removes the pair at the given index. The slot becomes a tombstone only if the probe sequence
+   * continues after it; otherwise it is emptied, together with any tombstones directly before it.
+   */
+  private void delete(final int index) {
+    final int mask = keysValues.length - 1;
+    size--;
+    keysValues[index + 1] = null;
+    if (keysValues[(index + 2) & mask] != null) {
+      keysValues[index] = TOMBSTONE;
+      tombstones++;
+      return;
+    }
+    keysValues[index] = null;
+    for (int previous = (index - 2) & mask; keysValues[previous] == TOMBSTONE;
+        previous = (previous - 2) & mask) {
+      keysValues[previous] = null;
+      tombstones--;
+    }
+  }
+
+  private void maybeShrink() {
+    final int capacity = keysValues.length / 2;
+    if (capacity > MIN_CAPACITY && size * 8 <= capacity) {
+      rehash(size);
+    }
+  }
+
+  /**
+   * Rebuilds the table without tombstones, sized to keep the given number of pairs at or below
+   * half of its capacity.
+   */
+  private void rehash(final int minimumSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < minimumSize * 2) {
+      capacity *= 2;
+    }
+    final Object[] oldKeysValues = keysValues;
+    keysValues = new Object[capacity * 2];
+    tombstones = 0;
+    for (int index = 0; index < oldKeysValues.length; index += 2) {
+      final Object key = oldKeysValues[index];
+      if (key != null && key != TOMBSTONE) {
+        final int newIndex = emptyIndexFor(key);
+        keysValues[newIndex] = key;
+        keysValues[newIndex + 1] = oldKeysValues[index + 1];
+      }
+    }
+  }
 }
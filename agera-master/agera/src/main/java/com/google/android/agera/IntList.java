@@ -0,0 +1,184 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable list of {@code int} values, backed by a primitive array so that the values are not
+ * boxed. Functions over it are compiled with {@link Functions#functionFromIntList()}.
+ */
+public final class IntList {
+  @NonNull
+  private static final IntList EMPTY = new IntList(new int[0], 0);
+  @NonNull
+  private final int[] values;
+  private final int size;
+
+  /**
+   * Returns a list of the given {@code values}.
+   */
+  @NonNull
+  public static IntList of(@NonNull final int... values) {
+    return values.length == 0 ? EMPTY : new IntList(values.clone(), values.length);
+  }
+
+  /**
+   * Returns a list of the unboxed {@code values}, in iteration order.
+   */
+  @NonNull
+  public static IntList copyOf(@NonNull final Collection<Integer> values) {
+    if (values.isEmpty()) {
+      return EMPTY;
+    }
+    final int[] array = new int[values.size()];
+    int size = 0;
+    for (final Integer value : values) {
+      array[size++] = checkNotNull(value);
+    }
+    return new IntList(array, size);
+  }
+
+  /**
+   * Wraps the first {@code size} elements of {@code values} without copying. The caller must not
+   * modify the array afterwards.
+   */
+  IntList(@NonNull final int[] values, final int size) {
+    this.values = values;
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the value at {@code index}.
+   *
+   * @throws IndexOutOfBoundsException if {@code index} is not in {@code [0, size())}
+   */
+  public int get(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    return values[index];
+  }
+
+  /**
+   * Returns a new array of the values of this list.
+   */
+  @NonNull
+  public int[] toArray() {
+    return Arrays.copyOf(values, size);
+  }
+
+  /**
+   * Returns an unmodifiable {@link List} view of this list, boxing each value as it is read.
+   */
+  @NonNull
+  public List<Integer> asList() {
+    return new BoxedIntList(this);
+  }
+
+  /**
+   * Returns a copy of {@code values} to be modified by a compiled function, so that the input list
+   * stays unchanged.
+   */
+  @NonNull
+  int[] copyValues() {
+    return Arrays.copyOf(values, size);
+  }
+
+  /**
+   * Returns the backing array, of which the first {@link #size()} elements are the values, for a
+   * compiled function to read without copying. The array must not be modified.
+   */
+  @NonNull
+  int[] values() {
+    return values;
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof IntList)) {
+      return false;
+    }
+    final IntList other = (IntList) o;
+    if (size != other.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (values[i] != other.values[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 1;
+    for (int i = 0; i < size; i++) {
+      hashCode = 31 * hashCode + values[i];
+    }
+    return hashCode;
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append(values[i]);
+    }
+    return builder.append(']').toString();
+  }
+
+  private static final class BoxedIntList extends AbstractList<Integer> implements RandomAccess {
+    @NonNull
+    private final IntList list;
+
+    BoxedIntList(@NonNull final IntList list) {
+      this.list = list;
+    }
+
+    @Override
+    public Integer get(final int index) {
+      return list.get(index);
+    }
+
+    @Override
+    public int size() {
+      return list.size;
+    }
+  }
+}
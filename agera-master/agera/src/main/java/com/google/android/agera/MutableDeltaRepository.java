@@ -0,0 +1,40 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+
+/**
+ * A {@link DeltaRepository} that can receive new data through {@link #accept(Object, Object)},
+ * together with the delta from the current data, or through {@link Receiver#accept(Object)}
+ * without one.
+ *
+ * <p>Data received without a delta behaves as in a {@link MutableRepository}, and makes all the
+ * deltas up to the new version unavailable. Data received with a delta always notifies the added
+ * {@link Updatable}s. Both methods can be called on any thread.
+ *
+ * @param <TVal> The type of the data.
+ * @param <TDelta> The type of the deltas.
+ */
+public interface MutableDeltaRepository<TVal, TDelta>
+    extends DeltaRepository<TVal, TDelta>, MutableRepository<TVal> {
+
+  /**
+   * Accepts the given {@code value} as the new data, with the {@code delta} that turns the current
+   * data into it.
+   */
+  void accept(@NonNull TVal value, @NonNull TDelta delta);
+}
@@ -15,19 +15,25 @@
  */
 package com.google.android.agera;
 
+import static com.google.android.agera.Conditions.cachedConditionsOf;
+import static com.google.android.agera.Preconditions.checkArgument;
 import static com.google.android.agera.Preconditions.checkNotNull;
+import static com.google.android.agera.Preconditions.checkState;
+import static com.google.android.agera.Schedulers.currentScheduler;
+import static com.google.android.agera.WorkerHandler.workerHandler;
 
 import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import com.google.android.agera.Conditions.CachedCondition;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Utility methods for obtaining {@link Observable} instances.
  *
- * <p>Any {@link Observable} created by this class have to be created from a {@link Looper} thread
- * or they will throw an {@link IllegalStateException}
+ * <p>Any {@link Observable} created by this class have to be created from a {@link Looper} thread,
+ * or another thread with a {@link Scheduler}, or they will throw an {@link IllegalStateException}
  *
  * <p>{@link UpdateDispatcher}s created by this class will for any injected
  * {@link ActivationHandler} call {@link ActivationHandler#observableActivated(UpdateDispatcher)}
@@ -35,6 +41,9 @@ import java.util.List;
  * {@link UpdateDispatcher} was created on.
  */
 public final class Observables {
+  private static final int DEBOUNCE = 0;
+  private static final int THROTTLE_LATEST = 1;
+  private static final int SAMPLE = 2;
 
   /**
    * Returns an {@link Observable} that notifies added {@link Updatable}s that any of the
@@ -112,13 +121,88 @@ public final class Observables {
     return compositeObservable(observables);
   }
 
+  /**
+   * Returns an {@link Observable} that notifies added {@link Updatable}s that the
+   * {@code observables} have changed once they have not changed for {@code quietMillis}. A burst
+   * of updates, such as the keystrokes of a search query, results in a single update after the
+   * last one.
+   */
+  @NonNull
+  public static Observable debounceObservable(final int quietMillis,
+      @NonNull final Observable... observables) {
+    return debounceObservable(quietMillis, checkedCurrentScheduler(), observables);
+  }
+
+  /**
+   * Same as {@link #debounceObservable(int, Observable...)}, but measures the time with the clock
+   * of the given {@code timer}, and runs its timeouts on it.
+   */
+  @NonNull
+  public static Observable debounceObservable(final int quietMillis,
+      @NonNull final Scheduler timer, @NonNull final Observable... observables) {
+    return new TimedObservable(DEBOUNCE, quietMillis, timer, compositeObservable(observables));
+  }
+
+  /**
+   * Returns an {@link Observable} that notifies added {@link Updatable}s that the
+   * {@code observables} have changed right away, then at most once per {@code windowMillis} as
+   * long as they keep changing. An update within a window is sent when the window ends, so the
+   * last update of a burst is never lost.
+   */
+  @NonNull
+  public static Observable throttleLatestObservable(final int windowMillis,
+      @NonNull final Observable... observables) {
+    return throttleLatestObservable(windowMillis, checkedCurrentScheduler(), observables);
+  }
+
+  /**
+   * Same as {@link #throttleLatestObservable(int, Observable...)}, but measures the time with the
+   * clock of the given {@code timer}, and runs its timeouts on it.
+   */
+  @NonNull
+  public static Observable throttleLatestObservable(final int windowMillis,
+      @NonNull final Scheduler timer, @NonNull final Observable... observables) {
+    return new TimedObservable(THROTTLE_LATEST, windowMillis, timer,
+        compositeObservable(observables));
+  }
+
+  /**
+   * Returns an {@link Observable} that, while observed, checks every {@code periodMillis} whether
+   * the {@code observables} have changed since the last check, and if so notifies added
+   * {@link Updatable}s. This suits high frequency sources such as sensors, whose updates are sent
+   * at a fixed rate however often they change.
+   */
+  @NonNull
+  public static Observable sampleObservable(final int periodMillis,
+      @NonNull final Observable... observables) {
+    return sampleObservable(periodMillis, checkedCurrentScheduler(), observables);
+  }
+
+  /**
+   * Same as {@link #sampleObservable(int, Observable...)}, but measures the time with the clock of
+   * the given {@code timer}, and runs its periodic checks on it.
+   */
+  @NonNull
+  public static Observable sampleObservable(final int periodMillis,
+      @NonNull final Scheduler timer, @NonNull final Observable... observables) {
+    return new TimedObservable(SAMPLE, periodMillis, timer, compositeObservable(observables));
+  }
+
+  @NonNull
+  private static Scheduler checkedCurrentScheduler() {
+    final Scheduler scheduler = currentScheduler();
+    checkState(scheduler != null, "Can only be created on a Looper or Scheduler thread");
+    return scheduler;
+  }
+
   /**
    * Returns an asynchronous {@link UpdateDispatcher}.
    *
    * <p>{@link UpdateDispatcher#update()} can be called from any thread
    * {@link UpdateDispatcher#addUpdatable(Updatable)} and
-   * {@link UpdateDispatcher#removeUpdatable(Updatable)} can only be called from {@link Looper}
-   * threads. Any added {@link Updatable} will be called on the thread they were added from.
+   * {@link UpdateDispatcher#removeUpdatable(Updatable)} can only be called from {@link Looper} or
+   * {@link Scheduler} threads. Any added {@link Updatable} will be called on the thread they were
+   * added from.
    */
   @NonNull
   public static UpdateDispatcher updateDispatcher() {
@@ -143,6 +227,38 @@ public final class Observables {
     return new AsyncUpdateDispatcher(activationHandler);
   }
 
+  /**
+   * Sets the time budget for calling back scheduled {@link Updatable}s in a single turn of a
+   * {@link Looper} or {@link Scheduler}. Updates are delivered in batches; once a batch has taken
+   * {@code budgetMillis} the remaining updatables are called back in a later turn, letting input
+   * and frame work scheduled on the same thread run in between. The budget applies to all threads.
+   *
+   * @param budgetMillis The time budget in milliseconds, or {@code 0}, the default, to call back
+   *     all updatables scheduled before a batch in that batch.
+   */
+  public static void setUpdateDeliveryBudgetMillis(final int budgetMillis) {
+    checkArgument(budgetMillis >= 0, "Update delivery budget cannot be negative");
+    WorkerHandler.setUpdateDeliveryBudgetMillis(budgetMillis);
+  }
+
+  /**
+   * Returns the average time in milliseconds that the {@link Updatable}s of the given
+   * {@link UpdatePriority} added on the calling thread have waited between an update being
+   * scheduled and being called back, or {@code 0} if none has been called back yet.
+   */
+  public static long getAverageUpdateWaitMillis(@UpdatePriority final int priority) {
+    return workerHandler().averageWaitMillis(priority);
+  }
+
+  /**
+   * Returns the longest time in milliseconds that an {@link Updatable} of the given
+   * {@link UpdatePriority} added on the calling thread has waited between an update being
+   * scheduled and being called back.
+   */
+  public static long getMaxUpdateWaitMillis(@UpdatePriority final int priority) {
+    return workerHandler().maxWaitMillis(priority);
+  }
+
   private static final class CompositeObservable extends BaseObservable implements Updatable {
     @NonNull
     private final Observable[] observables;
@@ -178,31 +294,164 @@ public final class Observables {
     private final Observable observable;
     @NonNull
     private final Condition condition;
+    @NonNull
+    private final CachedCondition[] cachedConditions;
+    // The cached conditions invalidated by the observable, to invalidate before evaluating.
+    @NonNull
+    private final CachedCondition[] invalidatedConditions;
 
     ConditionalObservable(@NonNull final Observable observable,
         @NonNull final Condition condition) {
       this.observable = checkNotNull(observable);
       this.condition = checkNotNull(condition);
+      final List<CachedCondition> cachedConditions = cachedConditionsOf(condition);
+      final List<CachedCondition> invalidatedConditions = new ArrayList<>();
+      for (final CachedCondition cachedCondition : cachedConditions) {
+        if (cachedCondition.isInvalidatedBy(observable)) {
+          invalidatedConditions.add(cachedCondition);
+        }
+      }
+      this.cachedConditions =
+          cachedConditions.toArray(new CachedCondition[cachedConditions.size()]);
+      this.invalidatedConditions =
+          invalidatedConditions.toArray(new CachedCondition[invalidatedConditions.size()]);
     }
 
     @Override
     protected void observableActivated() {
+      for (final CachedCondition cachedCondition : cachedConditions) {
+        cachedCondition.activate();
+      }
       observable.addUpdatable(this);
     }
 
     @Override
     protected void observableDeactivated() {
       observable.removeUpdatable(this);
+      for (final CachedCondition cachedCondition : cachedConditions) {
+        cachedCondition.deactivate();
+      }
     }
 
     @Override
     public void update() {
+      for (final CachedCondition cachedCondition : invalidatedConditions) {
+        cachedCondition.update();
+      }
       if (condition.applies()) {
         dispatchUpdate();
       }
     }
   }
 
+  /**
+   * Debounces, throttles or samples the updates of an observable with timeouts run on a
+   * {@link Scheduler}, which has no way to cancel them: a timeout that is no longer wanted finds
+   * nothing to do when it runs, and a debounce timeout that finds a more recent update runs again
+   * for the rest of the quiet time.
+   */
+  private static final class TimedObservable extends BaseObservable
+      implements Updatable, Runnable {
+    @NonNull
+    private final Observable observable;
+    @NonNull
+    private final Scheduler timer;
+    private final int mode;
+    private final int windowMillis;
+    // All guarded by this.
+    private boolean active;
+    private boolean timeoutScheduled;
+    private boolean updatePending;
+    private long lastUpdateMillis;
+
+    TimedObservable(final int mode, final int windowMillis, @NonNull final Scheduler timer,
+        @NonNull final Observable observable) {
+      checkArgument(windowMillis > 0, "Time window must be positive");
+      this.observable = checkNotNull(observable);
+      this.timer = checkNotNull(timer);
+      this.mode = mode;
+      this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected void observableActivated() {
+      synchronized (this) {
+        active = true;
+        if (mode == SAMPLE && !timeoutScheduled) {
+          scheduleTimeout(windowMillis);
+        }
+      }
+      observable.addUpdatable(this);
+    }
+
+    @Override
+    protected void observableDeactivated() {
+      observable.removeUpdatable(this);
+      synchronized (this) {
+        active = false;
+        updatePending = false;
+      }
+    }
+
+    @Override
+    public void update() {
+      boolean shouldDispatchUpdate = false;
+      synchronized (this) {
+        updatePending = true;
+        lastUpdateMillis = timer.uptimeMillis();
+        if (mode == DEBOUNCE && !timeoutScheduled) {
+          scheduleTimeout(windowMillis);
+        } else if (mode == THROTTLE_LATEST && !timeoutScheduled) {
+          updatePending = false;
+          shouldDispatchUpdate = true;
+          scheduleTimeout(windowMillis);
+        }
+      }
+      if (shouldDispatchUpdate) {
+        dispatchUpdate();
+      }
+    }
+
+    /**
+     * Called on the timer when a quiet time, throttle window or sample period ends.
+     */
+    @Override
+    public void run() {
+      boolean shouldDispatchUpdate = false;
+      synchronized (this) {
+        timeoutScheduled = false;
+        if (!active) {
+          return;
+        }
+        if (mode == DEBOUNCE && updatePending) {
+          final long quietMillis = timer.uptimeMillis() - lastUpdateMillis;
+          if (quietMillis < windowMillis) {
+            scheduleTimeout(windowMillis - quietMillis);
+            return;
+          }
+        }
+        if (updatePending) {
+          updatePending = false;
+          shouldDispatchUpdate = true;
+          if (mode == THROTTLE_LATEST) {
+            scheduleTimeout(windowMillis);
+          }
+        }
+        if (mode == SAMPLE) {
+          scheduleTimeout(windowMillis);
+        }
+      }
+      if (shouldDispatchUpdate) {
+        dispatchUpdate();
+      }
+    }
+
+    private void scheduleTimeout(final long delayMillis) {
+      timeoutScheduled = true;
+      timer.executeDelayed(this, delayMillis);
+    }
+  }
+
   private static final class AsyncUpdateDispatcher extends BaseObservable
       implements UpdateDispatcher {
 
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Preconditions.checkArgument;
+import static com.google.android.agera.Preconditions.checkNotNull;
+import static com.google.android.agera.Result.failure;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.AbstractList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * An unmodifiable {@link List} of a known size whose items are loaded lazily, a page at a time,
+ * from a {@link PageSource} as they are read. At most a given number of pages are kept in memory;
+ * reading an item of another page then evicts the least recently read page, to be loaded again if
+ * it is read again. Neither the time to create the list nor its memory use grow with its size, so
+ * a repository can publish a huge result set and a presenter only loads the rows it binds.
+ *
+ * <p>Reading the list never fails. An item that is not available, because its page is still
+ * loading, failed to load or came back shorter than requested, reads as the placeholder given on
+ * creation; a failed page is not kept, so it is loaded again when next read. The source should
+ * return the same items for an offset for as long as the list is in use; a list reflecting new
+ * data should be a new {@link PagedList}.
+ *
+ * <p>Pages are loaded either on the thread reading the list or, when the list is created with an
+ * {@link Executor}, on that executor, in which case reading an item that is not in memory returns
+ * the placeholder at once and the {@link Updatable} given on creation is updated, from the loading
+ * thread, once the page is in memory. An {@link Observables#updateDispatcher() update dispatcher}
+ * added as an additional observable of the adapter showing the list makes the adapter rebind the
+ * loaded items. The pages in memory should cover all items shown at once, otherwise loading one
+ * page evicts another one being shown and the list keeps reloading them.
+ *
+ * <p>Unlike other lists, a {@link PagedList} is only {@linkplain #equals equal} to itself, since
+ * comparing its items would load all of them. A repository holding {@link PagedList}s therefore
+ * notifies of every new list. For the same reason {@link #toString} does not list the items.
+ */
+public final class PagedList<T> extends AbstractList<T> implements RandomAccess {
+  private static final Executor CALLING_THREAD = new Executor() {
+    @Override
+    public void execute(@NonNull final Runnable command) {
+      command.run();
+    }
+  };
+
+  @NonNull
+  private final PageSource<T> source;
+  private final int size;
+  private final int pageSize;
+  @Nullable
+  private final T placeholder;
+  @NonNull
+  private final Executor loadExecutor;
+  @Nullable
+  private final Updatable onPageLoaded;
+  // Keyed by page index, in least recently read first order. Guarded by itself.
+  @NonNull
+  private final Map<Integer, List<T>> pages;
+  // Indices of the pages being loaded. Guarded by pages.
+  @NonNull
+  private final Set<Integer> loadingPages;
+
+  /**
+   * Loads the pages of a {@link PagedList}.
+   */
+  public interface PageSource<T> {
+
+    /**
+     * Returns the {@code count} items starting at {@code offset}, or the failure to load them.
+     * Fewer items may be returned if the underlying data has shrunk.
+     */
+    @NonNull
+    Result<List<T>> loadPage(int offset, int count);
+  }
+
+  /**
+   * Returns a {@link PagedList} of {@code size} items loaded from {@code source} in pages of
+   * {@code pageSize} items, keeping at most {@code maxLoadedPages} pages in memory. Pages are
+   * loaded on the thread reading the list; items that failed to load read as {@code placeholder}.
+   */
+  @NonNull
+  public static <T> PagedList<T> pagedList(final int size, @NonNull final PageSource<T> source,
+      final int pageSize, final int maxLoadedPages, @Nullable final T placeholder) {
+    return pagedList(size, source, pageSize, maxLoadedPages, placeholder, CALLING_THREAD, null);
+  }
+
+  /**
+   * Returns a {@link PagedList} of {@code size} items loaded from {@code source} in pages of
+   * {@code pageSize} items, keeping at most {@code maxLoadedPages} pages in memory. Pages are
+   * loaded on {@code loadExecutor}; items not yet loaded read as {@code placeholder}, and
+   * {@code onPageLoaded}, if not null, is updated from the loading thread after each page loads.
+   */
+  @NonNull
+  public static <T> PagedList<T> pagedList(final int size, @NonNull final PageSource<T> source,
+      final int pageSize, final int maxLoadedPages, @Nullable final T placeholder,
+      @NonNull final Executor loadExecutor, @Nullable final Updatable onPageLoaded) {
+    checkArgument(size >= 0, "Size must not be negative");
+    checkArgument(pageSize > 0, "Page size must be positive");
+    checkArgument(maxLoadedPages > 0, "Max loaded pages must be positive");
+    return new PagedList<>(size, checkNotNull(source), pageSize, maxLoadedPages, placeholder,
+        checkNotNull(loadExecutor), onPageLoaded);
+  }
+
+  private PagedList(final int size, @NonNull final PageSource<T> source, final int pageSize,
+      final int maxLoadedPages, @Nullable final T placeholder,
+      @NonNull final Executor loadExecutor, @Nullable final Updatable onPageLoaded) {
+    this.size = size;
+    this.source = source;
+    this.pageSize = pageSize;
+    this.placeholder = placeholder;
+    this.loadExecutor = loadExecutor;
+    this.onPageLoaded = onPageLoaded;
+    this.loadingPages = new HashSet<>();
+    this.pages = new LinkedHashMap<Integer, List<T>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Integer, List<T>> eldest) {
+        return size() > maxLoadedPages;
+      }
+    };
+  }
+
+  /**
+   * Returns the item at {@code index}, or the placeholder if its page is not in memory and cannot
+   * be loaded on this thread right away. Requests the page to be loaded if it is not in memory.
+   */
+  @Override
+  public T get(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+    final int page = index / pageSize;
+    final int offset = page * pageSize;
+    synchronized (pages) {
+      final List<T> items = pages.get(page);
+      if (items != null) {
+        return itemOrPlaceholder(items, index - offset);
+      }
+      if (!loadingPages.add(page)) {
+        return placeholder;
+      }
+    }
+    try {
+      loadExecutor.execute(new PageLoad(page, Thread.currentThread()));
+    } catch (final RejectedExecutionException e) {
+      synchronized (pages) {
+        loadingPages.remove(page);
+      }
+      return placeholder;
+    }
+    synchronized (pages) {
+      final List<T> items = pages.get(page);
+      return items == null ? placeholder : itemOrPlaceholder(items, index - offset);
+    }
+  }
+
+  private T itemOrPlaceholder(@NonNull final List<T> items, final int indexInPage) {
+    if (indexInPage >= items.size()) {
+      return placeholder;
+    }
+    final T item = items.get(indexInPage);
+    return item == null ? placeholder : item;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the number of pages currently in memory.
+   */
+  public int loadedPageCount() {
+    synchronized (pages) {
+      return pages.size();
+    }
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    return this == o;
+  }
+
+  @Override
+  public int hashCode() {
+    return System.identityHashCode(this);
+  }
+
+  @Override
+  public String toString() {
+    return "PagedList{size=" + size + ", pageSize=" + pageSize + "}";
+  }
+
+  private final class PageLoad implements Runnable {
+    private final int page;
+    @NonNull
+    private final Thread requestingThread;
+
+    PageLoad(final int page, @NonNull final Thread requestingThread) {
+      this.page = page;
+      this.requestingThread = requestingThread;
+    }
+
+    @Override
+    public void run() {
+      final int offset = page * pageSize;
+      Result<List<T>> result;
+      try {
+        result = source.loadPage(offset, Math.min(pageSize, size - offset));
+      } catch (final RuntimeException e) {
+        result = failure(e);
+      }
+      synchronized (pages) {
+        loadingPages.remove(page);
+        if (result.succeeded()) {
+          pages.put(page, result.get());
+        }
+      }
+      if (result.succeeded() && onPageLoaded != null
+          && Thread.currentThread() != requestingThread) {
+        onPageLoaded.update();
+      }
+    }
+  }
+}
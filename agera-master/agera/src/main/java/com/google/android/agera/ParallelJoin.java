@@ -0,0 +1,196 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Preconditions.checkNotNull;
+import static java.lang.Thread.currentThread;
+import static java.util.Arrays.asList;
+import static java.util.Collections.unmodifiableList;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the suppliers of one {@code mergeInAll} directive run concurrently and joins their values.
+ */
+final class ParallelJoin {
+  @NonNull
+  private final Supplier<?>[] suppliers;
+  @NonNull
+  private final Receiver<Object> discardedValuesDisposer;
+  /** Values of the completed suppliers, in supplier order; guarded by this. */
+  @NonNull
+  private final Object[] values;
+  /** Threads currently running the suppliers, to interrupt on cancellation; guarded by this. */
+  @NonNull
+  private final Thread[] threads;
+  private int remaining;
+  private boolean cancelled;
+  @Nullable
+  private Throwable failure;
+
+  ParallelJoin(@NonNull final Supplier<?>[] suppliers,
+      @NonNull final Receiver<Object> discardedValuesDisposer) {
+    this.suppliers = suppliers;
+    this.discardedValuesDisposer = discardedValuesDisposer;
+    this.values = new Object[suppliers.length];
+    this.threads = new Thread[suppliers.length];
+    this.remaining = suppliers.length;
+  }
+
+  /**
+   * Runs every supplier on the given executor and waits until all of them complete, one of them
+   * fails, or this join is cancelled. An interruption of the waiting thread does not end the wait,
+   * but the interrupted flag is restored before returning. If this join is cancelled, or one of the
+   * suppliers fails, the values of the others are discarded, and the failure is rethrown.
+   *
+   * @return The values of the suppliers in supplier order, or null if this join was cancelled.
+   */
+  @Nullable
+  List<Object> forkAndJoin(@NonNull final Executor executor) {
+    boolean joined = false;
+    try {
+      for (int i = 0; i < suppliers.length; i++) {
+        executor.execute(new Branch(i));
+      }
+      final List<Object> values = join();
+      joined = values != null;
+      return values;
+    } finally {
+      if (!joined) {
+        discardValues();
+      }
+    }
+  }
+
+  @Nullable
+  private List<Object> join() {
+    final Throwable failure;
+    synchronized (this) {
+      boolean interrupted = false;
+      while (remaining > 0 && !cancelled && this.failure == null) {
+        try {
+          wait();
+        } catch (final InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        currentThread().interrupt();
+      }
+      if (cancelled) {
+        return null;
+      }
+      failure = this.failure;
+      if (failure == null) {
+        return unmodifiableList(asList(values));
+      }
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new RuntimeException(failure);
+  }
+
+  /**
+   * Cancels this join, so that the waiting thread returns and the suppliers that complete from now
+   * on discard their values.
+   *
+   * @param interrupt Whether to also interrupt the threads currently running the suppliers.
+   */
+  synchronized void cancel(final boolean interrupt) {
+    cancelled = true;
+    if (interrupt) {
+      for (final Thread thread : threads) {
+        if (thread != null) {
+          thread.interrupt();
+        }
+      }
+    }
+    notifyAll();
+  }
+
+  /**
+   * Marks this join as cancelled if it is not already, and sends the values collected so far to
+   * the disposer.
+   */
+  private void discardValues() {
+    final Object[] discardedValues;
+    synchronized (this) {
+      cancelled = true;
+      discardedValues = values.clone();
+      for (int i = 0; i < values.length; i++) {
+        values[i] = null;
+      }
+    }
+    for (final Object discardedValue : discardedValues) {
+      if (discardedValue != null) {
+        discardedValuesDisposer.accept(discardedValue);
+      }
+    }
+  }
+
+  private final class Branch implements Runnable {
+    private final int index;
+
+    Branch(final int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+      synchronized (ParallelJoin.this) {
+        if (cancelled) {
+          return;
+        }
+        threads[index] = currentThread();
+      }
+      Object value = null;
+      Throwable branchFailure = null;
+      try {
+        value = checkNotNull(suppliers[index].get());
+      } catch (final Throwable e) {
+        branchFailure = e;
+      }
+      final boolean discard;
+      synchronized (ParallelJoin.this) {
+        threads[index] = null;
+        discard = cancelled;
+        if (!discard) {
+          if (branchFailure == null) {
+            values[index] = value;
+          } else if (failure == null) {
+            failure = branchFailure;
+          }
+        }
+        remaining--;
+        ParallelJoin.this.notifyAll();
+      }
+      if (discard) {
+        // consume any interrupted flag set by cancel(), which can no longer reach this thread
+        Thread.interrupted();
+        if (value != null) {
+          discardedValuesDisposer.accept(value);
+        }
+      }
+    }
+  }
+}
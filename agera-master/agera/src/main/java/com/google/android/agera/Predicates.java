@@ -115,7 +115,7 @@ public final class Predicates {
   @SafeVarargs
   @NonNull
   public static <T> Predicate<T> any(@NonNull final Predicate<? super T>... predicates) {
-    return composite(predicates, falsePredicate(), truePredicate(), true);
+    return composite(predicates, falsePredicate(), truePredicate(), true, false);
   }
 
   /**
@@ -127,14 +127,40 @@ public final class Predicates {
   @NonNull
   @SuppressWarnings("unchecked")
   public static <T> Predicate<T> all(@NonNull final Predicate<? super T>... predicates) {
-    return composite(predicates, truePredicate(), falsePredicate(), false);
+    return composite(predicates, truePredicate(), falsePredicate(), false, false);
+  }
+
+  /**
+   * Like {@link #any}, but reorders the {@code predicates} as it is applied, so that those most
+   * likely to evaluate to {@code true} for the least time are applied first. The predicates must be
+   * independent of each other and free of side effects, since the order they are applied in
+   * changes.
+   */
+  @SuppressWarnings("unchecked")
+  @SafeVarargs
+  @NonNull
+  public static <T> Predicate<T> adaptiveAny(@NonNull final Predicate<? super T>... predicates) {
+    return composite(predicates, falsePredicate(), truePredicate(), true, true);
+  }
+
+  /**
+   * Like {@link #all}, but reorders the {@code predicates} as it is applied, so that those most
+   * likely to evaluate to {@code false} for the least time are applied first. The predicates must
+   * be independent of each other and free of side effects, since the order they are applied in
+   * changes.
+   */
+  @SuppressWarnings("unchecked")
+  @SafeVarargs
+  @NonNull
+  public static <T> Predicate<T> adaptiveAll(@NonNull final Predicate<? super T>... predicates) {
+    return composite(predicates, truePredicate(), falsePredicate(), false, true);
   }
 
   @SuppressWarnings("unchecked")
   @NonNull
   private static Predicate composite(@NonNull final Predicate[] predicates,
       @NonNull final Predicate defaultPredicate, @NonNull final Predicate definingPredicate,
-      final boolean definingResult) {
+      final boolean definingResult, final boolean adaptive) {
     int nonDefaultCount = 0;
     Predicate lastNonDefaultPredicate = null;
     for (final Predicate predicate : predicates) {
@@ -150,6 +176,9 @@ public final class Predicates {
     } else if (nonDefaultCount == 1) {
       return lastNonDefaultPredicate;
     }
+    if (adaptive) {
+      return new AdaptiveCompositePredicate<>(predicates.clone(), definingResult);
+    }
     return new CompositePredicate<>(predicates.clone(), definingResult);
   }
 
@@ -174,6 +203,35 @@ public final class Predicates {
     }
   }
 
+  private static final class AdaptiveCompositePredicate<T> implements Predicate<T> {
+    @NonNull
+    private final Predicate<T>[] predicates;
+    private final boolean definingResult;
+    @NonNull
+    private final AdaptiveOrder adaptiveOrder;
+
+    AdaptiveCompositePredicate(@NonNull final Predicate<T>[] predicates,
+        final boolean definingResult) {
+      this.definingResult = definingResult;
+      this.predicates = checkNotNull(predicates);
+      this.adaptiveOrder = new AdaptiveOrder(predicates.length);
+    }
+
+    @Override
+    public boolean apply(@NonNull final T value) {
+      final boolean timed = adaptiveOrder.startEvaluation();
+      for (final int index : adaptiveOrder.order()) {
+        final long start = timed ? System.nanoTime() : 0;
+        final boolean deciding = predicates[index].apply(value) == definingResult;
+        adaptiveOrder.record(index, deciding, timed ? System.nanoTime() - start : -1);
+        if (deciding) {
+          return definingResult;
+        }
+      }
+      return !definingResult;
+    }
+  }
+
   private static final class EmptyStringPredicate implements Predicate<CharSequence> {
 
     @Override
@@ -0,0 +1,599 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Preconditions.checkArgument;
+import static com.google.android.agera.Preconditions.checkNotNull;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.FunctionCompilerStates.FDoubleList;
+import com.google.android.agera.FunctionCompilerStates.FIntList;
+import com.google.android.agera.FunctionCompilerStates.FLongList;
+import com.google.android.agera.PrimitiveOperators.DoubleOperator;
+import com.google.android.agera.PrimitiveOperators.DoublePredicate;
+import com.google.android.agera.PrimitiveOperators.IntOperator;
+import com.google.android.agera.PrimitiveOperators.IntPredicate;
+import com.google.android.agera.PrimitiveOperators.LongOperator;
+import com.google.android.agera.PrimitiveOperators.LongPredicate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compilers of the functions over {@link IntList}, {@link LongList} and {@link DoubleList}.
+ *
+ * <p>A compiled function copies the values of its input into a single new array and runs all of
+ * its stages in place on that array: a filter compacts the kept values to the front, a map
+ * overwrites each value, a sort sorts the live range and a limit shrinks it. The output list wraps
+ * that array, so each call allocates one array and one list whatever the number of stages, and no
+ * value is ever boxed. Filters and maps before the first limit are instead run value by value while
+ * copying, so that the copy stops, and the later values are neither filtered nor mapped, once the
+ * limit is reached.
+ *
+ * <p>The stages are dispatched by {@link StagesCompiler} and {@link StagesFunction} for all three
+ * list types; only the loops over the typed arrays are written out per type.
+ */
+final class PrimitiveListCompiler {
+  private static final int FILTER = 0;
+  private static final int MAP = 1;
+  private static final int LIMIT = 2;
+  private static final int SORT = 3;
+  private static final int SORT_DESCENDING = 4;
+  @NonNull
+  private static final Object NO_OPERAND = new Object();
+
+  /**
+   * Collects the stages of a function over {@code TList}, each as its kind and its operator, its
+   * boxed limit or {@link #NO_OPERAND}. {@code TState} is the compiler state implemented by the
+   * subclass.
+   */
+  private abstract static class StagesCompiler<TList, TState> {
+    @NonNull
+    private final List<Object> stages = new ArrayList<>();
+    @NonNull
+    private final List<Integer> kinds = new ArrayList<>();
+
+    @SuppressWarnings("unchecked")
+    @NonNull
+    final TState addStage(final int kind, @NonNull final Object stage) {
+      kinds.add(kind);
+      stages.add(checkNotNull(stage));
+      return (TState) this;
+    }
+
+    @NonNull
+    public final TState limit(final int limit) {
+      checkArgument(limit >= 0, "Limit must not be negative");
+      return addStage(LIMIT, limit);
+    }
+
+    @NonNull
+    public final TState sort() {
+      return addStage(SORT, NO_OPERAND);
+    }
+
+    @NonNull
+    public final TState sortDescending() {
+      return addStage(SORT_DESCENDING, NO_OPERAND);
+    }
+
+    @NonNull
+    public final Function<TList, TList> thenLimit(final int limit) {
+      limit(limit);
+      return compile();
+    }
+
+    @NonNull
+    public final Function<TList, TList> thenSort() {
+      sort();
+      return compile();
+    }
+
+    @NonNull
+    public final Function<TList, TList> thenSortDescending() {
+      sortDescending();
+      return compile();
+    }
+
+    @NonNull
+    public final <TTo> Function<TList, TTo> thenApply(
+        @NonNull final Function<? super TList, TTo> function) {
+      return new ChainFunction<>(compile(), function);
+    }
+
+    @NonNull
+    final Function<TList, TList> compile() {
+      final int[] kinds = new int[this.kinds.size()];
+      for (int i = 0; i < kinds.length; i++) {
+        kinds[i] = this.kinds.get(i);
+      }
+      return newFunction(stages.toArray(), kinds);
+    }
+
+    @NonNull
+    abstract Function<TList, TList> newFunction(@NonNull Object[] stages, @NonNull int[] kinds);
+  }
+
+  /**
+   * Runs the stages of a function over {@code TList}, whose values are held in a {@code TArray}.
+   * Subclasses provide the loops over the typed arrays.
+   */
+  private abstract static class StagesFunction<TList, TArray> implements Function<TList, TList> {
+    @NonNull
+    private final Object[] stages;
+    @NonNull
+    private final int[] kinds;
+    // The index of the first limit if only filters and maps come before it, otherwise -1.
+    private final int leadingLimitIndex;
+
+    StagesFunction(@NonNull final Object[] stages, @NonNull final int[] kinds) {
+      this.stages = stages;
+      this.kinds = kinds;
+      int index = 0;
+      while (index < kinds.length && (kinds[index] == FILTER || kinds[index] == MAP)) {
+        index++;
+      }
+      this.leadingLimitIndex = index < kinds.length && kinds[index] == LIMIT ? index : -1;
+    }
+
+    @NonNull
+    @Override
+    public final TList apply(@NonNull final TList input) {
+      final TArray values;
+      int size;
+      int first;
+      if (leadingLimitIndex >= 0) {
+        final int limit = (Integer) stages[leadingLimitIndex];
+        values = newArray(Math.min(size(input), limit));
+        size = copyLeadingStages(input, values, stages, kinds, leadingLimitIndex);
+        first = leadingLimitIndex + 1;
+      } else {
+        values = copyValues(input);
+        size = size(input);
+        first = 0;
+      }
+      for (int i = first; i < stages.length; i++) {
+        switch (kinds[i]) {
+          case FILTER:
+            size = filter(stages[i], values, size);
+            break;
+          case MAP:
+            map(stages[i], values, size);
+            break;
+          case LIMIT:
+            size = Math.min(size, (Integer) stages[i]);
+            break;
+          default:
+            sort(values, size, kinds[i] == SORT_DESCENDING);
+            break;
+        }
+      }
+      return newList(values, size);
+    }
+
+    abstract int size(@NonNull TList list);
+
+    @NonNull
+    abstract TArray newArray(int length);
+
+    @NonNull
+    abstract TArray copyValues(@NonNull TList list);
+
+    /**
+     * Runs the first {@code count} stages, all filters and maps, on the values of {@code input}
+     * until {@code output} is full, and returns the number of values written to it.
+     */
+    abstract int copyLeadingStages(@NonNull TList input, @NonNull TArray output,
+        @NonNull Object[] stages, @NonNull int[] kinds, int count);
+
+    /**
+     * Compacts the first {@code size} values kept by the filter to the front of {@code values},
+     * and returns their number.
+     */
+    abstract int filter(@NonNull Object filter, @NonNull TArray values, int size);
+
+    abstract void map(@NonNull Object operator, @NonNull TArray values, int size);
+
+    abstract void sort(@NonNull TArray values, int size, boolean descending);
+
+    @NonNull
+    abstract TList newList(@NonNull TArray values, int size);
+  }
+
+  static final class IntListCompiler extends StagesCompiler<IntList, FIntList<IntList>>
+      implements FIntList<IntList> {
+
+    @NonNull
+    @Override
+    public FIntList<IntList> filter(@NonNull final IntPredicate filter) {
+      return addStage(FILTER, filter);
+    }
+
+    @NonNull
+    @Override
+    public FIntList<IntList> map(@NonNull final IntOperator operator) {
+      return addStage(MAP, operator);
+    }
+
+    @NonNull
+    @Override
+    public Function<IntList, IntList> thenFilter(@NonNull final IntPredicate filter) {
+      filter(filter);
+      return compile();
+    }
+
+    @NonNull
+    @Override
+    public Function<IntList, IntList> thenMap(@NonNull final IntOperator operator) {
+      map(operator);
+      return compile();
+    }
+
+    @NonNull
+    @Override
+    Function<IntList, IntList> newFunction(@NonNull final Object[] stages,
+        @NonNull final int[] kinds) {
+      return new IntListFunction(stages, kinds);
+    }
+  }
+
+  private static final class IntListFunction extends StagesFunction<IntList, int[]> {
+
+    IntListFunction(@NonNull final Object[] stages, @NonNull final int[] kinds) {
+      super(stages, kinds);
+    }
+
+    @Override
+    int size(@NonNull final IntList list) {
+      return list.size();
+    }
+
+    @NonNull
+    @Override
+    int[] newArray(final int length) {
+      return new int[length];
+    }
+
+    @NonNull
+    @Override
+    int[] copyValues(@NonNull final IntList list) {
+      return list.copyValues();
+    }
+
+    @Override
+    int copyLeadingStages(@NonNull final IntList input, @NonNull final int[] output,
+        @NonNull final Object[] stages, @NonNull final int[] kinds, final int count) {
+      final int[] values = input.values();
+      final int size = input.size();
+      int kept = 0;
+      nextValue:
+      for (int i = 0; i < size && kept < output.length; i++) {
+        int value = values[i];
+        for (int j = 0; j < count; j++) {
+          if (kinds[j] == MAP) {
+            value = ((IntOperator) stages[j]).apply(value);
+          } else if (!((IntPredicate) stages[j]).apply(value)) {
+            continue nextValue;
+          }
+        }
+        output[kept++] = value;
+      }
+      return kept;
+    }
+
+    @Override
+    int filter(@NonNull final Object filter, @NonNull final int[] values, final int size) {
+      final IntPredicate predicate = (IntPredicate) filter;
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        final int value = values[i];
+        if (predicate.apply(value)) {
+          values[kept++] = value;
+        }
+      }
+      return kept;
+    }
+
+    @Override
+    void map(@NonNull final Object operator, @NonNull final int[] values, final int size) {
+      final IntOperator intOperator = (IntOperator) operator;
+      for (int i = 0; i < size; i++) {
+        values[i] = intOperator.apply(values[i]);
+      }
+    }
+
+    @Override
+    void sort(@NonNull final int[] values, final int size, final boolean descending) {
+      Arrays.sort(values, 0, size);
+      if (descending) {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+          final int value = values[i];
+          values[i] = values[j];
+          values[j] = value;
+        }
+      }
+    }
+
+    @NonNull
+    @Override
+    IntList newList(@NonNull final int[] values, final int size) {
+      return new IntList(values, size);
+    }
+  }
+
+  static final class LongListCompiler extends StagesCompiler<LongList, FLongList<LongList>>
+      implements FLongList<LongList> {
+
+    @NonNull
+    @Override
+    public FLongList<LongList> filter(@NonNull final LongPredicate filter) {
+      return addStage(FILTER, filter);
+    }
+
+    @NonNull
+    @Override
+    public FLongList<LongList> map(@NonNull final LongOperator operator) {
+      return addStage(MAP, operator);
+    }
+
+    @NonNull
+    @Override
+    public Function<LongList, LongList> thenFilter(@NonNull final LongPredicate filter) {
+      filter(filter);
+      return compile();
+    }
+
+    @NonNull
+    @Override
+    public Function<LongList, LongList> thenMap(@NonNull final LongOperator operator) {
+      map(operator);
+      return compile();
+    }
+
+    @NonNull
+    @Override
+    Function<LongList, LongList> newFunction(@NonNull final Object[] stages,
+        @NonNull final int[] kinds) {
+      return new LongListFunction(stages, kinds);
+    }
+  }
+
+  private static final class LongListFunction extends StagesFunction<LongList, long[]> {
+
+    LongListFunction(@NonNull final Object[] stages, @NonNull final int[] kinds) {
+      super(stages, kinds);
+    }
+
+    @Override
+    int size(@NonNull final LongList list) {
+      return list.size();
+    }
+
+    @NonNull
+    @Override
+    long[] newArray(final int length) {
+      return new long[length];
+    }
+
+    @NonNull
+    @Override
+    long[] copyValues(@NonNull final LongList list) {
+      return list.copyValues();
+    }
+
+    @Override
+    int copyLeadingStages(@NonNull final LongList input, @NonNull final long[] output,
+        @NonNull final Object[] stages, @NonNull final int[] kinds, final int count) {
+      final long[] values = input.values();
+      final int size = input.size();
+      int kept = 0;
+      nextValue:
+      for (int i = 0; i < size && kept < output.length; i++) {
+        long value = values[i];
+        for (int j = 0; j < count; j++) {
+          if (kinds[j] == MAP) {
+            value = ((LongOperator) stages[j]).apply(value);
+          } else if (!((LongPredicate) stages[j]).apply(value)) {
+            continue nextValue;
+          }
+        }
+        output[kept++] = value;
+      }
+      return kept;
+    }
+
+    @Override
+    int filter(@NonNull final Object filter, @NonNull final long[] values, final int size) {
+      final LongPredicate predicate = (LongPredicate) filter;
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        final long value = values[i];
+        if (predicate.apply(value)) {
+          values[kept++] = value;
+        }
+      }
+      return kept;
+    }
+
+    @Override
+    void map(@NonNull final Object operator, @NonNull final long[] values, final int size) {
+      final LongOperator longOperator = (LongOperator) operator;
+      for (int i = 0; i < size; i++) {
+        values[i] = longOperator.apply(values[i]);
+      }
+    }
+
+    @Override
+    void sort(@NonNull final long[] values, final int size, final boolean descending) {
+      Arrays.sort(values, 0, size);
+      if (descending) {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+          final long value = values[i];
+          values[i] = values[j];
+          values[j] = value;
+        }
+      }
+    }
+
+    @NonNull
+    @Override
+    LongList newList(@NonNull final long[] values, final int size) {
+      return new LongList(values, size);
+    }
+  }
+
+  static final class DoubleListCompiler extends StagesCompiler<DoubleList, FDoubleList<DoubleList>>
+      implements FDoubleList<DoubleList> {
+
+    @NonNull
+    @Override
+    public FDoubleList<DoubleList> filter(@NonNull final DoublePredicate filter) {
+      return addStage(FILTER, filter);
+    }
+
+    @NonNull
+    @Override
+    public FDoubleList<DoubleList> map(@NonNull final DoubleOperator operator) {
+      return addStage(MAP, operator);
+    }
+
+    @NonNull
+    @Override
+    public Function<DoubleList, DoubleList> thenFilter(@NonNull final DoublePredicate filter) {
+      filter(filter);
+      return compile();
+    }
+
+    @NonNull
+    @Override
+    public Function<DoubleList, DoubleList> thenMap(@NonNull final DoubleOperator operator) {
+      map(operator);
+      return compile();
+    }
+
+    @NonNull
+    @Override
+    Function<DoubleList, DoubleList> newFunction(@NonNull final Object[] stages,
+        @NonNull final int[] kinds) {
+      return new DoubleListFunction(stages, kinds);
+    }
+  }
+
+  private static final class DoubleListFunction extends StagesFunction<DoubleList, double[]> {
+
+    DoubleListFunction(@NonNull final Object[] stages, @NonNull final int[] kinds) {
+      super(stages, kinds);
+    }
+
+    @Override
+    int size(@NonNull final DoubleList list) {
+      return list.size();
+    }
+
+    @NonNull
+    @Override
+    double[] newArray(final int length) {
+      return new double[length];
+    }
+
+    @NonNull
+    @Override
+    double[] copyValues(@NonNull final DoubleList list) {
+      return list.copyValues();
+    }
+
+    @Override
+    int copyLeadingStages(@NonNull final DoubleList input, @NonNull final double[] output,
+        @NonNull final Object[] stages, @NonNull final int[] kinds, final int count) {
+      final double[] values = input.values();
+      final int size = input.size();
+      int kept = 0;
+      nextValue:
+      for (int i = 0; i < size && kept < output.length; i++) {
+        double value = values[i];
+        for (int j = 0; j < count; j++) {
+          if (kinds[j] == MAP) {
+            value = ((DoubleOperator) stages[j]).apply(value);
+          } else if (!((DoublePredicate) stages[j]).apply(value)) {
+            continue nextValue;
+          }
+        }
+        output[kept++] = value;
+      }
+      return kept;
+    }
+
+    @Override
+    int filter(@NonNull final Object filter, @NonNull final double[] values, final int size) {
+      final DoublePredicate predicate = (DoublePredicate) filter;
+      int kept = 0;
+      for (int i = 0; i < size; i++) {
+        final double value = values[i];
+        if (predicate.apply(value)) {
+          values[kept++] = value;
+        }
+      }
+      return kept;
+    }
+
+    @Override
+    void map(@NonNull final Object operator, @NonNull final double[] values, final int size) {
+      final DoubleOperator doubleOperator = (DoubleOperator) operator;
+      for (int i = 0; i < size; i++) {
+        values[i] = doubleOperator.apply(values[i]);
+      }
+    }
+
+    @Override
+    void sort(@NonNull final double[] values, final int size, final boolean descending) {
+      Arrays.sort(values, 0, size);
+      if (descending) {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+          final double value = values[i];
+          values[i] = values[j];
+          values[j] = value;
+        }
+      }
+    }
+
+    @NonNull
+    @Override
+    DoubleList newList(@NonNull final double[] values, final int size) {
+      return new DoubleList(values, size);
+    }
+  }
+
+  private static final class ChainFunction<TFrom, TMid, TTo> implements Function<TFrom, TTo> {
+    @NonNull
+    private final Function<TFrom, TMid> first;
+    @NonNull
+    private final Function<? super TMid, TTo> second;
+
+    ChainFunction(@NonNull final Function<TFrom, TMid> first,
+        @NonNull final Function<? super TMid, TTo> second) {
+      this.first = first;
+      this.second = checkNotNull(second);
+    }
+
+    @NonNull
+    @Override
+    public TTo apply(@NonNull final TFrom input) {
+      return second.apply(first.apply(input));
+    }
+  }
+
+  private PrimitiveListCompiler() {}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+/**
+ * Container of the primitive counterparts of {@link Predicate} and {@link Function} used by the
+ * {@link FunctionCompilerStates.FIntList}, {@link FunctionCompilerStates.FLongList} and
+ * {@link FunctionCompilerStates.FDoubleList} compiler states.
+ */
+public interface PrimitiveOperators {
+  /**
+   * Determines a true or false value for an {@code int}, like a {@link Predicate} without boxing.
+   */
+  interface IntPredicate {
+    boolean apply(int value);
+  }
+
+  /**
+   * Computes a {@code int} from an {@code int}, like a {@link Function} without boxing.
+   */
+  interface IntOperator {
+    int apply(int value);
+  }
+
+  /**
+   * Determines a true or false value for a {@code long}, like a {@link Predicate} without boxing.
+   */
+  interface LongPredicate {
+    boolean apply(long value);
+  }
+
+  /**
+   * Computes a {@code long} from a {@code long}, like a {@link Function} without boxing.
+   */
+  interface LongOperator {
+    long apply(long value);
+  }
+
+  /**
+   * Determines a true or false value for a {@code double}, like a {@link Predicate} without boxing.
+   */
+  interface DoublePredicate {
+    boolean apply(double value);
+  }
+
+  /**
+   * Computes a {@code double} from a {@code double}, like a {@link Function} without boxing.
+   */
+  interface DoubleOperator {
+    double apply(double value);
+  }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+/**
+ * An {@link Updatable} with an {@link UpdatePriority}. When updates are scheduled for several
+ * updatables of the same thread, those of a higher priority are called back first. The priority is
+ * read when the updatable is added to an {@link Observable}, and must not change afterwards.
+ *
+ * <p>The time the updates wait to be called back is reported per priority by
+ * {@link Observables#getAverageUpdateWaitMillis} and {@link Observables#getMaxUpdateWaitMillis}.
+ */
+public interface PrioritizedUpdatable extends Updatable {
+
+  /**
+   * Returns the {@link UpdatePriority} of this updatable.
+   */
+  @UpdatePriority
+  int getUpdatePriority();
+}
@@ -15,17 +15,23 @@
  */
 package com.google.android.agera;
 
+import static com.google.android.agera.Preconditions.checkArgument;
 import static com.google.android.agera.Preconditions.checkNotNull;
+import static com.google.android.agera.Result.absent;
+import static com.google.android.agera.Result.success;
+import static java.util.Collections.unmodifiableList;
 
 import android.os.Looper;
 import android.support.annotation.NonNull;
 import com.google.android.agera.RepositoryCompilerStates.REventSource;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utility methods for obtaining {@link Repository} instances.
  *
- * <p>Any {@link Repository} created by this class have to be created from a {@link Looper} thread
- * or they will throw an {@link IllegalStateException}
+ * <p>Any {@link Repository} created by this class have to be created from a {@link Looper} thread,
+ * or another thread with a {@link Scheduler}, or they will throw an {@link IllegalStateException}
  */
 public final class Repositories {
 
@@ -53,6 +59,17 @@ public final class Repositories {
     return new SimpleRepository<>(object);
   }
 
+  /**
+   * Returns a {@link MutableDeltaRepository} with the given {@code object} as the initial data,
+   * keeping the latest {@code maxDeltaCount} deltas.
+   */
+  @NonNull
+  public static <T, D> MutableDeltaRepository<T, D> mutableDeltaRepository(
+      @NonNull final T object, final int maxDeltaCount) {
+    checkArgument(maxDeltaCount >= 0, "maxDeltaCount cannot be negative");
+    return new SimpleDeltaRepository<>(object, maxDeltaCount);
+  }
+
   private static final class SimpleRepository<T> extends BaseObservable
       implements MutableRepository<T> {
     @NonNull
@@ -81,5 +98,88 @@ public final class Repositories {
     }
   }
 
+  private static final class SimpleDeltaRepository<T, D> extends BaseObservable
+      implements MutableDeltaRepository<T, D> {
+    /** Ring buffer of the latest deltas, the oldest at {@link #first}. */
+    @NonNull
+    private final Object[] deltas;
+    @NonNull
+    private T reference;
+    private long version;
+    private int first;
+    private int count;
+
+    SimpleDeltaRepository(@NonNull final T reference, final int maxDeltaCount) {
+      this.reference = checkNotNull(reference);
+      this.deltas = new Object[maxDeltaCount];
+    }
+
+    @NonNull
+    @Override
+    public synchronized T get() {
+      return reference;
+    }
+
+    @Override
+    public synchronized long getVersion() {
+      return version;
+    }
+
+    @Override
+    public void accept(@NonNull final T reference) {
+      checkNotNull(reference);
+      synchronized (this) {
+        if (reference.equals(this.reference)) {
+          return;
+        }
+        this.reference = reference;
+        version++;
+        for (int i = 0; i < count; i++) {
+          deltas[(first + i) % deltas.length] = null;
+        }
+        first = 0;
+        count = 0;
+      }
+      dispatchUpdate();
+    }
+
+    @Override
+    public void accept(@NonNull final T reference, @NonNull final D delta) {
+      checkNotNull(reference);
+      checkNotNull(delta);
+      synchronized (this) {
+        this.reference = reference;
+        version++;
+        if (deltas.length > 0) {
+          if (count == deltas.length) {
+            deltas[first] = delta;
+            first = (first + 1) % deltas.length;
+          } else {
+            deltas[(first + count) % deltas.length] = delta;
+            count++;
+          }
+        }
+      }
+      dispatchUpdate();
+    }
+
+    @NonNull
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized Result<List<D>> getDeltas(final long fromVersion, final long toVersion) {
+      final long oldestVersion = version - count;
+      if (fromVersion < oldestVersion || fromVersion > toVersion || toVersion > version) {
+        return absent();
+      }
+      final int size = (int) (toVersion - fromVersion);
+      final int offset = first + (int) (fromVersion - oldestVersion);
+      final List<D> result = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        result.add((D) deltas[(offset + i) % deltas.length]);
+      }
+      return success(unmodifiableList(result));
+    }
+  }
+
   private Repositories() {}
 }
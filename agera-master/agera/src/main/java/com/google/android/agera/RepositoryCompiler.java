@@ -25,6 +25,7 @@ import static com.google.android.agera.CompiledRepository.addGetFrom;
 import static com.google.android.agera.CompiledRepository.addGoLazy;
 import static com.google.android.agera.CompiledRepository.addGoTo;
 import static com.google.android.agera.CompiledRepository.addMergeIn;
+import static com.google.android.agera.CompiledRepository.addMergeInAll;
 import static com.google.android.agera.CompiledRepository.addSendTo;
 import static com.google.android.agera.CompiledRepository.addTransform;
 import static com.google.android.agera.CompiledRepository.compiledRepository;
@@ -32,14 +33,17 @@ import static com.google.android.agera.Functions.identityFunction;
 import static com.google.android.agera.Mergers.objectsUnequal;
 import static com.google.android.agera.Preconditions.checkNotNull;
 import static com.google.android.agera.Preconditions.checkState;
+import static com.google.android.agera.Reservoirs.getAllFrom;
+import static com.google.android.agera.Schedulers.currentScheduler;
+import static com.google.android.agera.Schedulers.virtualThreadPerTaskExecutor;
 
-import android.os.Looper;
 import android.support.annotation.IntDef;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Executor;
 
 @SuppressWarnings({"unchecked, rawtypes"})
@@ -54,7 +58,7 @@ final class RepositoryCompiler implements
   @NonNull
   static <TVal> RepositoryCompilerStates.REventSource<TVal, TVal> repositoryWithInitialValue(
       @NonNull final TVal initialValue) {
-    checkNotNull(Looper.myLooper());
+    checkNotNull(currentScheduler());
     RepositoryCompiler compiler = compilers.get();
     if (compiler == null) {
       compiler = new RepositoryCompiler();
@@ -93,6 +97,7 @@ final class RepositoryCompiler implements
   // for use in terminate(); if null then terminate() is terminating an attempt directive.
   private Function caseExtractor;
   private Predicate casePredicate;
+  private boolean goToUsed;
   private boolean goLazyUsed;
   private Merger notifyChecker = objectsUnequal();
   @RepositoryConfig
@@ -101,6 +106,9 @@ final class RepositoryCompiler implements
   private int concurrentUpdateConfig;
   @NonNull
   private Receiver discardedValueDisposer = NULL_OPERATOR;
+  private boolean fuseDirectives = true;
+  @UpdatePriority
+  private int updatePriority = UpdatePriority.NORMAL;
 
   @Expect
   private int expect;
@@ -267,6 +275,14 @@ final class RepositoryCompiler implements
     return this;
   }
 
+  @NonNull
+  @Override
+  @SuppressWarnings("unchecked")
+  public RepositoryCompiler attemptGetAllFrom(@NonNull final BatchReservoir reservoir,
+      final int maxCount) {
+    return attemptGetFrom(getAllFrom(reservoir, maxCount));
+  }
+
   @NonNull
   @Override
   public RepositoryCompiler attemptMergeIn(
@@ -319,6 +335,28 @@ final class RepositoryCompiler implements
     checkExpect(FLOW);
     checkGoLazyUnused();
     addGoTo(executor, directives);
+    goToUsed = true;
+    return this;
+  }
+
+  @NonNull
+  @Override
+  public RepositoryCompiler goToVirtualThread() {
+    return goTo(virtualThreadPerTaskExecutor());
+  }
+
+  @NonNull
+  @Override
+  public RepositoryCompiler mergeInAll(@NonNull final Executor executor,
+      @NonNull final List suppliers, @NonNull final Merger merger) {
+    checkExpect(FLOW);
+    checkGoLazyUnused();
+    checkState(goToUsed, "mergeInAll() blocks the flow thread, so it must follow a goTo()");
+    final Supplier[] supplierArray = (Supplier[]) suppliers.toArray(new Supplier[suppliers.size()]);
+    for (final Supplier supplier : supplierArray) {
+      checkNotNull(supplier);
+    }
+    addMergeInAll(checkNotNull(executor), supplierArray, checkNotNull(merger), directives);
     return this;
   }
 
@@ -411,6 +449,22 @@ final class RepositoryCompiler implements
     return this;
   }
 
+  @NonNull
+  @Override
+  public RepositoryCompiler updatePriority(@UpdatePriority final int priority) {
+    checkExpect(CONFIG);
+    this.updatePriority = priority;
+    return this;
+  }
+
+  @NonNull
+  @Override
+  public RepositoryCompiler checkCancellationPerDirective() {
+    checkExpect(CONFIG);
+    fuseDirectives = false;
+    return this;
+  }
+
   @NonNull
   @Override
   public Repository compile() {
@@ -432,17 +486,21 @@ final class RepositoryCompiler implements
   private Repository compileRepositoryAndReset() {
     checkExpect(CONFIG);
     Repository repository = compiledRepository(initialValue, eventSources, frequency, directives,
-        notifyChecker, concurrentUpdateConfig, deactivationConfig, discardedValueDisposer);
+        notifyChecker, concurrentUpdateConfig, deactivationConfig, discardedValueDisposer,
+        fuseDirectives, updatePriority);
     expect = NOTHING;
     initialValue = null;
     eventSources.clear();
     frequency = 0;
     directives.clear();
+    goToUsed = false;
     goLazyUsed = false;
     notifyChecker = objectsUnequal();
     deactivationConfig = RepositoryConfig.CONTINUE_FLOW;
     concurrentUpdateConfig = RepositoryConfig.CONTINUE_FLOW;
     discardedValueDisposer = NULL_OPERATOR;
+    fuseDirectives = true;
+    updatePriority = UpdatePriority.NORMAL;
     return repository;
   }
 
@@ -17,6 +17,7 @@ package com.google.android.agera;
 
 import android.support.annotation.NonNull;
 import java.io.Closeable;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 
@@ -43,6 +44,8 @@ import java.util.concurrent.RejectedExecutionException;
  *   <li>{@link RFlow#sendTo sendTo(r)}
  *   <li>{@link RFlow#bindWith bindWith(s, b)}
  *   <li>{@link RFlow#goTo goTo(e)}
+ *   <li>{@link RFlow#goToVirtualThread goToVirtualThread()}
+ *   <li>{@link RFlow#mergeInAll mergeInAll(e, [s], m)}
  *   <li>{@link RFlow#goLazy goLazy()}
  *   <li>{@link RFlow#thenSkip thenSkip()}
  * </ul>
@@ -127,6 +130,11 @@ public interface RepositoryCompilerStates {
         RFlow<TVal, Throwable, ?>> thenAttemptGetFrom(
             @NonNull Supplier<? extends Result<? extends TVal>> attemptSupplier);
 
+    @NonNull
+    @Override
+    <TCur> RTermination<TVal, Throwable, RFlow<TVal, List<TCur>, ?>> attemptGetAllFrom(
+        @NonNull BatchReservoir<TCur> reservoir, int maxCount);
+
     @NonNull
     @Override
     <TAdd, TCur> RFlow<TVal, TCur, ?> mergeIn(@NonNull Supplier<TAdd> supplier,
@@ -176,6 +184,41 @@ public interface RepositoryCompilerStates {
     @NonNull
     TSelf goTo(@NonNull Executor executor);
 
+    /**
+     * Go to a new virtual thread to continue the data processing flow, as {@link #goTo(Executor)}
+     * does with an executor that starts a virtual thread for every task. Blocking operators that
+     * follow, such as I/O in suppliers and functions, then need no thread pool sized for them, and
+     * {@link RepositoryConfig#SEND_INTERRUPT} interrupts the virtual thread running the flow.
+     *
+     * @throws UnsupportedOperationException If the Java runtime does not support virtual threads.
+     */
+    @NonNull
+    TSelf goToVirtualThread();
+
+    /**
+     * Run all the given suppliers concurrently on the given {@code executor}, wait for all of their
+     * values, then take the input value and the list of the values, in the order of the suppliers,
+     * merge them using the given merger, and use the resulting value as the output value. The wait
+     * takes as long as the slowest supplier rather than all of them in turn, which suits
+     * independent reads such as network or database requests. Each supplier needs its own thread,
+     * so the executor should not be the one running the flow, unless it can run them all at once.
+     *
+     * <p>The thread running the flow is blocked while waiting, so this directive must follow a
+     * {@link #goTo} to a background executor; otherwise it would block the thread that started the
+     * flow, typically the main thread. Using it before any {@code goTo} throws
+     * {@link IllegalStateException}.
+     *
+     * <p>If the flow is cancelled while waiting, it stops without waiting for the rest of the
+     * suppliers. With {@link RepositoryConfig#SEND_INTERRUPT}, the threads running the suppliers
+     * are also interrupted. The values of the suppliers that have completed or complete later are
+     * sent to the {@linkplain RConfig#sendDiscardedValuesTo disposer}. This also happens if one of
+     * the suppliers throws, in which case the exception is rethrown from this directive.
+     */
+    @NonNull
+    <TAdd, TCur> RFlow<TVal, TCur, ?> mergeInAll(@NonNull Executor executor,
+        @NonNull List<? extends Supplier<? extends TAdd>> suppliers,
+        @NonNull Merger<? super TPre, ? super List<TAdd>, TCur> merger);
+
     /**
      * Suspend the data processing flow and notify the registered {@link Updatable}s of updates.
      * The remaining of the flow will be run synchronously <i>and uninterruptibly</i> the first time
@@ -214,6 +257,19 @@ public interface RepositoryCompilerStates {
     RTermination<TVal, Throwable, ? extends RSyncFlow<TVal, TCur, ?>> attemptGetFrom(
         @NonNull Supplier<Result<TCur>> attemptSupplier);
 
+    /**
+     * Like {@link #attemptGetFrom}, ignore the input value and attempt to dequeue up to
+     * {@code maxCount} values from the given reservoir with {@link BatchReservoir#getAll}, so that
+     * a burst of values enqueued in the reservoir is consumed in one flow run instead of one flow
+     * run per value. If the reservoir is empty, terminate the data processing flow by sending the
+     * {@link Result#absent() absent} failure to the termination clause that follows; otherwise
+     * take the list of dequeued values as the output of this directive.
+     */
+    @NonNull
+    <TCur>
+    RTermination<TVal, Throwable, ? extends RSyncFlow<TVal, List<TCur>, ?>> attemptGetAllFrom(
+        @NonNull BatchReservoir<TCur> reservoir, int maxCount);
+
     /**
      * Take the input value and the value newly obtained from the given supplier, merge them using
      * the given merger, and use the resulting value as the output value.
@@ -495,6 +551,28 @@ public interface RepositoryCompilerStates {
     @NonNull
     RConfig<TVal> sendDiscardedValuesTo(@NonNull Receiver<Object> disposer);
 
+    /**
+     * Specifies the {@link UpdatePriority} with which the updates of the event sources are
+     * delivered to the repository, and so the order in which its data processing flow is started
+     * relative to other {@link Updatable}s scheduled on the same thread. The default is
+     * {@link UpdatePriority#NORMAL}.
+     */
+    @NonNull
+    RConfig<TVal> updatePriority(@UpdatePriority int priority);
+
+    /**
+     * Specifies that the data processing flow should check for cancellation before every directive.
+     * By default, runs of consecutive directives that do not change the thread or suspend the flow
+     * ({@code getFrom}, {@code mergeIn}, {@code transform}, {@code check}, {@code sendTo},
+     * {@code bindWith} and their attempt variants) are fused into one step, and in the
+     * asynchronous stage of the flow cancellation is only checked before each step. A cancelled
+     * flow therefore finishes the step it is running before it stops. Use this configuration if
+     * some of these directives are expensive enough for the finer cancellation granularity to pay
+     * off; {@link RepositoryConfig#SEND_INTERRUPT} may be an alternative.
+     */
+    @NonNull
+    RConfig<TVal> checkCancellationPerDirective();
+
     /**
      * Compiles a {@link Repository} that exhibits the previously defined behaviors.
      */
@@ -41,14 +41,17 @@ public @interface RepositoryConfig {
 
   /**
    * If a data processing flow is ongoing, cancel it at the earliest opportunity, which is
-   * immediately after the currently running directive, or during it if {@link #SEND_INTERRUPT} is
-   * used and the current operator ({@link Function}, {@link Supplier}, {@link Merger} etc.) has
-   * adequate support for the thread interruption signal. If this is the configuration for a
-   * repository, cancellation prevents the flow from updating the repository value, even if the last
-   * run directive would have set the new value otherwise. If this is the configuration for the
-   * concurrent update, the new data processing flow will commence as soon as the current one is
-   * terminated, effectively redoing the data processing from the start. This behavior is implicit
-   * if {@link #RESET_TO_INITIAL_VALUE} or {@link #SEND_INTERRUPT} is specified.
+   * immediately after the currently running directive (or run of synchronous directives fused into
+   * one step, unless the repository is compiled with
+   * {@link RepositoryCompilerStates.RConfig#checkCancellationPerDirective()}), or during it if
+   * {@link #SEND_INTERRUPT} is used and the current operator ({@link Function}, {@link Supplier},
+   * {@link Merger} etc.) has adequate support for the thread interruption signal. If this is the
+   * configuration for a repository, cancellation prevents the flow from updating the repository
+   * value, even if the last run directive would have set the new value otherwise. If this is the
+   * configuration for the concurrent update, the new data processing flow will commence as soon as
+   * the current one is terminated, effectively redoing the data processing from the start. This
+   * behavior is implicit if {@link #RESET_TO_INITIAL_VALUE} or {@link #SEND_INTERRUPT} is
+   * specified.
    */
   int CANCEL_FLOW = 1;
 
@@ -15,23 +15,37 @@
  */
 package com.google.android.agera;
 
+import static com.google.android.agera.Preconditions.checkArgument;
 import static com.google.android.agera.Preconditions.checkNotNull;
 import static com.google.android.agera.Result.absentIfNull;
+import static com.google.android.agera.Result.success;
 
 import android.os.Looper;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Utility methods for creating {@link Reservoir} instances.
  *
- * <p>Any {@link Reservoir} created by this class has to be created from a {@link Looper} thread
- * or the method will throw an {@link IllegalStateException}.
+ * <p>Any {@link Reservoir} created by this class has to be created from a {@link Looper} thread,
+ * or another thread with a {@link Scheduler}, or the method will throw an
+ * {@link IllegalStateException}.
  */
 public final class Reservoirs {
+  private static final int DROP_OLDEST = 0;
+  private static final int DROP_NEWEST = 1;
+  private static final int BLOCK = 2;
 
   /**
    * Returns a {@link Reservoir} for the given value type.
@@ -63,6 +77,15 @@ public final class Reservoirs {
     return reservoir(new ArrayDeque<T>());
   }
 
+  /**
+   * Like {@link #reservoir()}, but returns the reservoir as a {@link BatchReservoir}, so that
+   * values can also be dequeued in batches with {@link BatchReservoir#getAll}.
+   */
+  @NonNull
+  public static <T> BatchReservoir<T> batchReservoir() {
+    return new SynchronizedReservoir<>(new ArrayDeque<T>());
+  }
+
   /**
    * Returns a {@link Reservoir} that uses the given {@code queue} as the backing storage for
    * enqueuing and dequeuing values. It is up to the concrete {@link Queue#offer} implementation of
@@ -82,8 +105,84 @@ public final class Reservoirs {
     return new SynchronizedReservoir<>(checkNotNull(queue));
   }
 
+  /**
+   * Returns a {@link BoundedReservoir} of the given {@code capacity} that dequeues values in FIFO
+   * order, and makes room for a value enqueued while full by dropping the oldest value.
+   */
+  @NonNull
+  public static <T> BoundedReservoir<T> droppingOldestReservoir(final int capacity) {
+    return new BoundedQueueReservoir<>(capacity, DROP_OLDEST, null);
+  }
+
+  /**
+   * Returns a {@link BoundedReservoir} of the given {@code capacity} that dequeues values in FIFO
+   * order, and drops any value enqueued while full.
+   */
+  @NonNull
+  public static <T> BoundedReservoir<T> droppingNewestReservoir(final int capacity) {
+    return new BoundedQueueReservoir<>(capacity, DROP_NEWEST, null);
+  }
+
+  /**
+   * Returns a {@link BoundedReservoir} of the given {@code capacity} that dequeues values in FIFO
+   * order, and blocks the producer thread enqueuing a value while full until a value is dequeued.
+   * If the blocked thread is interrupted, the value is dropped and the interrupted status is kept.
+   *
+   * <p>The values must not be enqueued from the thread that dequeues them, which would deadlock
+   * once the reservoir is full.
+   */
+  @NonNull
+  public static <T> BoundedReservoir<T> blockingReservoir(final int capacity) {
+    return new BoundedQueueReservoir<>(capacity, BLOCK, null);
+  }
+
+  /**
+   * Returns a {@link BoundedReservoir} of the given {@code capacity} that keeps only the latest
+   * value per key, as computed by the given {@code keyFunction}. A value whose key is already
+   * enqueued replaces the enqueued value in its place in the FIFO order; a value of a new key
+   * enqueued while full makes room by dropping the oldest value.
+   */
+  @NonNull
+  public static <T> BoundedReservoir<T> coalescingReservoir(final int capacity,
+      @NonNull final Function<? super T, ?> keyFunction) {
+    return new BoundedQueueReservoir<T>(capacity, DROP_OLDEST, checkNotNull(keyFunction));
+  }
+
+  /**
+   * Returns a {@link BoundedReservoir} backed by a preallocated ring buffer, for many threads
+   * enqueuing values at a high rate, such as a stream of sensor events. Enqueuing a value takes no
+   * lock and allocates nothing; a value enqueued while full is dropped. Dequeuing is serialized,
+   * but does not block the producers.
+   *
+   * @param capacity The minimum capacity; it is rounded up to the next power of two.
+   */
+  @NonNull
+  public static <T> BoundedReservoir<T> ringReservoir(final int capacity) {
+    checkArgument(capacity > 0 && capacity <= 1 << 30, "capacity must be in [1, 2^30]");
+    return new RingReservoir<>(capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1);
+  }
+
+  /**
+   * Returns a {@link Supplier} that dequeues up to {@code maxCount} values from the given
+   * {@code reservoir} with {@link BatchReservoir#getAll}.
+   */
+  @NonNull
+  static <T> Supplier<Result<List<T>>> getAllFrom(@NonNull final BatchReservoir<T> reservoir,
+      final int maxCount) {
+    checkArgument(maxCount > 0, "maxCount must be positive");
+    return new GetAllSupplier<>(checkNotNull(reservoir), maxCount);
+  }
+
+  /**
+   * Returns the values dequeued into the given {@code list}, or absent if there are none.
+   */
+  @NonNull
+  private static <T> Result<List<T>> absentIfEmpty(@NonNull final List<T> list) {
+    return list.isEmpty() ? Result.<List<T>>absent() : success(list);
+  }
+
   private static final class SynchronizedReservoir<T> extends BaseObservable
-      implements Reservoir<T> {
+      implements BatchReservoir<T> {
     @NonNull
     private final Queue<T> queue;
 
@@ -119,6 +218,25 @@ public final class Reservoirs {
       return absentIfNull(nullableValue);
     }
 
+    @NonNull
+    @Override
+    public Result<List<T>> getAll(final int maxCount) {
+      checkArgument(maxCount > 0, "maxCount must be positive");
+      final List<T> values = new ArrayList<>();
+      final boolean shouldDispatchUpdate;
+      synchronized (queue) {
+        T value;
+        while (values.size() < maxCount && (value = queue.poll()) != null) {
+          values.add(value);
+        }
+        shouldDispatchUpdate = !queue.isEmpty();
+      }
+      if (shouldDispatchUpdate) {
+        dispatchUpdate();
+      }
+      return absentIfEmpty(values);
+    }
+
     @Override
     protected void observableActivated() {
       synchronized (queue) {
@@ -130,5 +248,321 @@ public final class Reservoirs {
     }
   }
 
+  private static final class BoundedQueueReservoir<T> extends BaseObservable
+      implements BoundedReservoir<T> {
+    /** The enqueued values, or their keys if coalescing. */
+    @NonNull
+    private final ArrayDeque<Object> queue;
+    @Nullable
+    private final Function<? super T, ?> keyFunction;
+    @Nullable
+    private final Map<Object, T> valuesByKey;
+    private final int capacity;
+    private final int overflowPolicy;
+    private int highWaterMark;
+
+    private BoundedQueueReservoir(final int capacity, final int overflowPolicy,
+        @Nullable final Function<? super T, ?> keyFunction) {
+      checkArgument(capacity > 0, "capacity must be positive");
+      this.queue = new ArrayDeque<>(capacity);
+      this.keyFunction = keyFunction;
+      this.valuesByKey = keyFunction == null ? null : new HashMap<Object, T>();
+      this.capacity = capacity;
+      this.overflowPolicy = overflowPolicy;
+    }
+
+    @Override
+    public void accept(@NonNull final T value) {
+      final boolean shouldDispatchUpdate;
+      synchronized (queue) {
+        final Object key = keyFunction == null ? value : checkNotNull(keyFunction.apply(value));
+        if (valuesByKey != null && valuesByKey.containsKey(key)) {
+          valuesByKey.put(key, value);
+          return;
+        }
+        while (queue.size() >= capacity) {
+          if (overflowPolicy == DROP_NEWEST) {
+            return;
+          } else if (overflowPolicy == DROP_OLDEST) {
+            poll();
+          } else {
+            try {
+              queue.wait();
+            } catch (final InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return;
+            }
+          }
+        }
+        shouldDispatchUpdate = queue.isEmpty();
+        queue.offer(key);
+        if (valuesByKey != null) {
+          valuesByKey.put(key, value);
+        }
+        highWaterMark = Math.max(highWaterMark, queue.size());
+      }
+      if (shouldDispatchUpdate) {
+        dispatchUpdate();
+      }
+    }
+
+    @NonNull
+    @Override
+    public Result<T> get() {
+      final T nullableValue;
+      final boolean shouldDispatchUpdate;
+      synchronized (queue) {
+        nullableValue = poll();
+        shouldDispatchUpdate = !queue.isEmpty();
+        if (overflowPolicy == BLOCK && nullableValue != null) {
+          queue.notifyAll();
+        }
+      }
+      if (shouldDispatchUpdate) {
+        dispatchUpdate();
+      }
+      return absentIfNull(nullableValue);
+    }
+
+    @NonNull
+    @Override
+    public Result<List<T>> getAll(final int maxCount) {
+      checkArgument(maxCount > 0, "maxCount must be positive");
+      final List<T> values;
+      final boolean shouldDispatchUpdate;
+      synchronized (queue) {
+        values = new ArrayList<>(Math.min(maxCount, queue.size()));
+        while (values.size() < maxCount && !queue.isEmpty()) {
+          values.add(poll());
+        }
+        shouldDispatchUpdate = !queue.isEmpty();
+        if (overflowPolicy == BLOCK && !values.isEmpty()) {
+          queue.notifyAll();
+        }
+      }
+      if (shouldDispatchUpdate) {
+        dispatchUpdate();
+      }
+      return absentIfEmpty(values);
+    }
+
+    @Override
+    public int drainTo(@NonNull final List<? super T> list) {
+      synchronized (queue) {
+        final int size = queue.size();
+        T value;
+        while ((value = poll()) != null) {
+          list.add(value);
+        }
+        if (overflowPolicy == BLOCK && size > 0) {
+          queue.notifyAll();
+        }
+        return size;
+      }
+    }
+
+    @Override
+    public int size() {
+      synchronized (queue) {
+        return queue.size();
+      }
+    }
+
+    @Override
+    public int getHighWaterMark() {
+      synchronized (queue) {
+        return highWaterMark;
+      }
+    }
+
+    /**
+     * Dequeues the oldest value, or returns null if empty. Must be called while holding the lock.
+     */
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private T poll() {
+      final Object key = queue.poll();
+      if (key == null || valuesByKey == null) {
+        return (T) key;
+      }
+      return valuesByKey.remove(key);
+    }
+
+    @Override
+    protected void observableActivated() {
+      synchronized (queue) {
+        if (queue.isEmpty()) {
+          return;
+        }
+      }
+      dispatchUpdate();
+    }
+  }
+
+  /**
+   * A bounded multi-producer queue after Dmitry Vyukov's: each slot has a sequence number telling
+   * the producers whether the slot is free for the lap at hand, and the consumer whether its value
+   * is published. The {@code count} is updated after publishing and after consuming a value, and an
+   * update is dispatched by whoever brings it from zero to one, or leaves it above zero when
+   * consuming.
+   */
+  private static final class RingReservoir<T> extends BaseObservable
+      implements BoundedReservoir<T> {
+    @NonNull
+    private final AtomicReferenceArray<T> values;
+    @NonNull
+    private final AtomicLongArray sequences;
+    @NonNull
+    private final AtomicLong tail;
+    @NonNull
+    private final AtomicInteger count;
+    @NonNull
+    private final AtomicInteger highWaterMark;
+    @NonNull
+    private final Object consumerLock;
+    private final int mask;
+    private long head;
+
+    private RingReservoir(final int capacity) {
+      this.values = new AtomicReferenceArray<>(capacity);
+      this.sequences = new AtomicLongArray(capacity);
+      for (int i = 0; i < capacity; i++) {
+        sequences.set(i, i);
+      }
+      this.tail = new AtomicLong();
+      this.count = new AtomicInteger();
+      this.highWaterMark = new AtomicInteger();
+      this.consumerLock = new Object();
+      this.mask = capacity - 1;
+    }
+
+    @Override
+    public void accept(@NonNull final T value) {
+      checkNotNull(value);
+      long position = tail.get();
+      while (true) {
+        final long difference = sequences.get((int) position & mask) - position;
+        if (difference == 0) {
+          if (tail.compareAndSet(position, position + 1)) {
+            break;
+          }
+          position = tail.get();
+        } else if (difference < 0) {
+          return;
+        } else {
+          position = tail.get();
+        }
+      }
+      final int index = (int) position & mask;
+      values.lazySet(index, value);
+      sequences.set(index, position + 1);
+      final int size = count.incrementAndGet();
+      int mark = highWaterMark.get();
+      while (size > mark && !highWaterMark.compareAndSet(mark, size)) {
+        mark = highWaterMark.get();
+      }
+      if (size == 1) {
+        dispatchUpdate();
+      }
+    }
+
+    @NonNull
+    @Override
+    public Result<T> get() {
+      final T nullableValue;
+      synchronized (consumerLock) {
+        nullableValue = poll();
+      }
+      if (nullableValue != null && count.decrementAndGet() > 0) {
+        dispatchUpdate();
+      }
+      return absentIfNull(nullableValue);
+    }
+
+    @NonNull
+    @Override
+    public Result<List<T>> getAll(final int maxCount) {
+      checkArgument(maxCount > 0, "maxCount must be positive");
+      final List<T> values = new ArrayList<>(Math.min(maxCount, mask + 1));
+      synchronized (consumerLock) {
+        T value;
+        while (values.size() < maxCount && (value = poll()) != null) {
+          values.add(value);
+        }
+      }
+      if (!values.isEmpty() && count.addAndGet(-values.size()) > 0) {
+        dispatchUpdate();
+      }
+      return absentIfEmpty(values);
+    }
+
+    @Override
+    public int drainTo(@NonNull final List<? super T> list) {
+      int drained = 0;
+      synchronized (consumerLock) {
+        T value;
+        while ((value = poll()) != null) {
+          list.add(value);
+          drained++;
+        }
+      }
+      if (drained > 0 && count.addAndGet(-drained) > 0) {
+        dispatchUpdate();
+      }
+      return drained;
+    }
+
+    /**
+     * Dequeues the oldest published value, or returns null if there is none. Must be called while
+     * holding the consumer lock.
+     */
+    @Nullable
+    private T poll() {
+      final int index = (int) head & mask;
+      if (sequences.get(index) != head + 1) {
+        return null;
+      }
+      final T value = values.get(index);
+      values.lazySet(index, null);
+      sequences.set(index, head + mask + 1);
+      head++;
+      return value;
+    }
+
+    @Override
+    public int size() {
+      return Math.max(0, count.get());
+    }
+
+    @Override
+    public int getHighWaterMark() {
+      return highWaterMark.get();
+    }
+
+    @Override
+    protected void observableActivated() {
+      if (count.get() > 0) {
+        dispatchUpdate();
+      }
+    }
+  }
+
+  private static final class GetAllSupplier<T> implements Supplier<Result<List<T>>> {
+    @NonNull
+    private final BatchReservoir<T> reservoir;
+    private final int maxCount;
+
+    private GetAllSupplier(@NonNull final BatchReservoir<T> reservoir, final int maxCount) {
+      this.reservoir = reservoir;
+      this.maxCount = maxCount;
+    }
+
+    @NonNull
+    @Override
+    public Result<List<T>> get() {
+      return reservoir.getAll(maxCount);
+    }
+  }
+
   private Reservoirs() {}
 }
@@ -45,6 +45,17 @@ public final class Result<T> {
   private static final Result<Object> FAILURE;
   @NonNull
   private static final Throwable ABSENT_THROWABLE;
+  @NonNull
+  private static final Result<Object> TRUE;
+  @NonNull
+  private static final Result<Object> FALSE;
+  private static final int SMALL_VALUE_OFFSET = 128;
+  /** Successes of the {@link Integer}s in [-128, 127], which {@link Integer#valueOf} caches. */
+  @NonNull
+  private static final Result<?>[] SMALL_INTEGERS;
+  /** Successes of the {@link Long}s in [-128, 127], which {@link Long#valueOf} caches. */
+  @NonNull
+  private static final Result<?>[] SMALL_LONGS;
 
   static {
     final Throwable failureThrowable = new Throwable("Attempt failed");
@@ -53,28 +64,60 @@ public final class Result<T> {
     ABSENT_THROWABLE = new NullPointerException("Value is absent");
     ABSENT_THROWABLE.setStackTrace(new StackTraceElement[0]);
     ABSENT = new Result<>(null, ABSENT_THROWABLE);
+    TRUE = new Result<Object>(Boolean.TRUE, null);
+    FALSE = new Result<Object>(Boolean.FALSE, null);
+    SMALL_INTEGERS = new Result<?>[2 * SMALL_VALUE_OFFSET];
+    SMALL_LONGS = new Result<?>[2 * SMALL_VALUE_OFFSET];
+    for (int i = 0; i < 2 * SMALL_VALUE_OFFSET; i++) {
+      SMALL_INTEGERS[i] = new Result<>(Integer.valueOf(i - SMALL_VALUE_OFFSET), null);
+      SMALL_LONGS[i] = new Result<>(Long.valueOf(i - SMALL_VALUE_OFFSET), null);
+    }
   }
 
   @Nullable
   private final T value;
   @Nullable
-  private transient volatile List<T> list;
-  @Nullable
   private final Throwable failure;
 
   Result(@Nullable final T value, @Nullable final Throwable failure) {
     checkArgument(value != null ^ failure != null, "Illegal Result arguments");
     this.value = value;
     this.failure = failure;
-    this.list = value != null ? null : Collections.<T>emptyList();
   }
 
   /**
    * Creates a {@link Result} of a successful attempt that produced the given {@code value}.
+   *
+   * <p>Successes of {@link Boolean}s, and of the small {@link Integer}s and {@link Long}s that
+   * autoboxing shares, such as counts of updated rows, are preallocated and returned instead of
+   * allocating a new result.
    */
   @NonNull
   public static <T> Result<T> success(@NonNull final T value) {
-    return new Result<>(checkNotNull(value), null);
+    final Result<T> cached = cachedSuccess(checkNotNull(value));
+    return cached != null ? cached : new Result<>(value, null);
+  }
+
+  /**
+   * Returns the preallocated success of the given {@code value}, if it is the very instance held
+   * by one, or null otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  @Nullable
+  private static <T> Result<T> cachedSuccess(@NonNull final T value) {
+    final Result<?> cached;
+    if (value instanceof Boolean) {
+      cached = value == Boolean.TRUE ? TRUE : value == Boolean.FALSE ? FALSE : null;
+    } else if (value instanceof Integer) {
+      final int index = (Integer) value + SMALL_VALUE_OFFSET;
+      cached = index >= 0 && index < SMALL_INTEGERS.length ? SMALL_INTEGERS[index] : null;
+    } else if (value instanceof Long) {
+      final long index = (Long) value + SMALL_VALUE_OFFSET;
+      cached = index >= 0 && index < SMALL_LONGS.length ? SMALL_LONGS[(int) index] : null;
+    } else {
+      return null;
+    }
+    return cached != null && cached.value == value ? (Result<T>) cached : null;
   }
 
   /**
@@ -173,16 +216,7 @@ public final class Result<T> {
    */
   @NonNull
   public List<T> asList() {
-    List<T> list = this.list;
-    if (list == null) {
-      synchronized (this) {
-        list = this.list;
-        if (list == null) {
-          this.list = list = singletonList(value);
-        }
-      }
-    }
-    return list;
+    return value != null ? singletonList(value) : Collections.<T>emptyList();
   }
 
   /**
@@ -411,7 +445,7 @@ public final class Result<T> {
   @NonNull
   public <U> Result<U> ifSucceededMap(@NonNull final Function<? super T, U> function) {
     if (value != null) {
-      return success(function.apply(value));
+      return successOrThis(function.apply(value));
     }
     return sameFailure();
   }
@@ -439,7 +473,7 @@ public final class Result<T> {
   public <U, V> Result<V> ifSucceededMerge(@NonNull final U mergeValue,
       @NonNull final Merger<? super T, ? super U, V> merger) {
     if (value != null) {
-      return success(merger.merge(value, mergeValue));
+      return successOrThis(merger.merge(value, mergeValue));
     }
     return sameFailure();
   }
@@ -467,7 +501,7 @@ public final class Result<T> {
   public <U, V> Result<V> ifSucceededMergeFrom(@NonNull final Supplier<U> mergeValueSupplier,
       @NonNull final Merger<? super T, ? super U, V> merger) {
     if (value != null) {
-      return success(merger.merge(value, mergeValueSupplier.get()));
+      return successOrThis(merger.merge(value, mergeValueSupplier.get()));
     }
     return sameFailure();
   }
@@ -493,6 +527,16 @@ public final class Result<T> {
     return sameFailure();
   }
 
+  /**
+   * Returns this result if it already holds the given {@code newValue}, such as after an identity
+   * function or a merger keeping its first value, or the {@link #success} of it otherwise.
+   */
+  @SuppressWarnings("unchecked")
+  @NonNull
+  private <U> Result<U> successOrThis(@NonNull final U newValue) {
+    return newValue == value ? (Result<U>) this : success(newValue);
+  }
+
   /**
    * Returns the output value if the attempt has succeeded, or the given {@code other} value
    * otherwise.
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the internal work of Agera on a single thread: calling back {@link Updatable}s, activating
+ * and deactivating {@link Observable}s and starting the data processing flows of
+ * {@link Repository Repositories}. Agera objects can only be created, and updatables can only be
+ * added and removed, on a thread that has a scheduler, see {@link Schedulers#currentScheduler()};
+ * an {@link Updatable} is always called back on the thread it was added from.
+ *
+ * <p>On Android, the scheduler of a {@link android.os.Looper} thread runs on that looper. On other
+ * threads a scheduler can be started with {@link Schedulers#singleThreadScheduler()} or
+ * {@link Schedulers#virtualThreadScheduler()}, and Agera code can then be run on it through
+ * {@link #execute(Runnable)}.
+ */
+public interface Scheduler extends Executor {
+
+  /**
+   * Runs the {@code task} on the thread of this scheduler, after the tasks that are already due.
+   */
+  @Override
+  void execute(@NonNull Runnable task);
+
+  /**
+   * Runs the {@code task} on the thread of this scheduler once {@code delayMillis} have passed on
+   * the clock of {@link #uptimeMillis()}.
+   */
+  void executeDelayed(@NonNull Runnable task, long delayMillis);
+
+  /**
+   * Returns whether the calling thread is the thread of this scheduler.
+   */
+  boolean isSchedulerThread();
+
+  /**
+   * Returns the milliseconds of the monotonic clock that delays are measured with.
+   */
+  long uptimeMillis();
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Preconditions.checkNotNull;
+import static com.google.android.agera.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Utility methods for obtaining {@link Scheduler} instances.
+ *
+ * <p>The threads started by the schedulers of this class only end with the process; the
+ * schedulers are meant to be started once and shared, like the {@link Looper} threads they stand
+ * in for.
+ */
+public final class Schedulers {
+  private static final ThreadLocal<Scheduler> schedulers = new ThreadLocal<>();
+  private static final boolean LOOPER_AVAILABLE = isLooperAvailable();
+
+  /**
+   * Returns the {@link Scheduler} of the calling thread, or null if the calling thread has none.
+   * A thread started by a scheduler of this class has that scheduler, and on Android a
+   * {@link Looper} thread has a scheduler running on its looper.
+   */
+  @Nullable
+  public static Scheduler currentScheduler() {
+    final Scheduler scheduler = schedulers.get();
+    if (scheduler != null) {
+      return scheduler;
+    }
+    return LOOPER_AVAILABLE ? LooperScheduler.currentLooperScheduler() : null;
+  }
+
+  /**
+   * Makes {@code scheduler} the {@link Scheduler} of the calling thread. A custom scheduler has to
+   * call this from its thread before running any task.
+   */
+  public static void setCurrentScheduler(@NonNull final Scheduler scheduler) {
+    checkState(scheduler.isSchedulerThread(), "Can only be set on the thread of the scheduler");
+    schedulers.set(scheduler);
+  }
+
+  /**
+   * Returns a {@link Scheduler} running on a new daemon thread.
+   */
+  @NonNull
+  public static Scheduler singleThreadScheduler() {
+    return singleThreadScheduler(new SchedulerThreadFactory());
+  }
+
+  /**
+   * Returns a {@link Scheduler} running on a new thread made by the {@code threadFactory}.
+   */
+  @NonNull
+  public static Scheduler singleThreadScheduler(@NonNull final ThreadFactory threadFactory) {
+    return new ThreadScheduler(threadFactory);
+  }
+
+  /**
+   * Returns a {@link Scheduler} running on a new virtual thread, for a Java runtime that supports
+   * them. The scheduler waits for tasks without pinning its carrier thread.
+   *
+   * @throws UnsupportedOperationException If the runtime does not support virtual threads.
+   */
+  @NonNull
+  public static Scheduler virtualThreadScheduler() {
+    return new ThreadScheduler(virtualThreadExecutor().threadFactory);
+  }
+
+  /**
+   * Returns an {@link Executor} running every task on a new virtual thread.
+   *
+   * @throws UnsupportedOperationException If the runtime does not support virtual threads.
+   */
+  @NonNull
+  static Executor virtualThreadPerTaskExecutor() {
+    return virtualThreadExecutor();
+  }
+
+  @NonNull
+  private static ThreadPerTaskExecutor virtualThreadExecutor() {
+    final ThreadPerTaskExecutor executor = VirtualThreads.PER_TASK_EXECUTOR;
+    if (executor == null) {
+      throw new UnsupportedOperationException("Virtual threads are not supported");
+    }
+    return executor;
+  }
+
+  private static boolean isLooperAvailable() {
+    try {
+      Class.forName("android.os.Looper");
+      return true;
+    } catch (final ClassNotFoundException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Holder of the executor starting virtual threads, looked up reflectively on first use since the
+   * library is compiled for runtimes without virtual threads; null if the lookup failed.
+   */
+  private static final class VirtualThreads {
+    @Nullable
+    static final ThreadPerTaskExecutor PER_TASK_EXECUTOR = perTaskExecutor();
+
+    @Nullable
+    private static ThreadPerTaskExecutor perTaskExecutor() {
+      try {
+        final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        return new ThreadPerTaskExecutor((ThreadFactory) Class.forName("java.lang.Thread$Builder")
+            .getMethod("factory").invoke(builder));
+      } catch (final Exception e) {
+        return null;
+      }
+    }
+  }
+
+  private static final class ThreadPerTaskExecutor implements Executor {
+    @NonNull
+    final ThreadFactory threadFactory;
+
+    ThreadPerTaskExecutor(@NonNull final ThreadFactory threadFactory) {
+      this.threadFactory = threadFactory;
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable task) {
+      threadFactory.newThread(task).start();
+    }
+  }
+
+  private static final class LooperScheduler extends Handler implements Scheduler {
+    private static final ThreadLocal<LooperScheduler> looperSchedulers = new ThreadLocal<>();
+
+    @Nullable
+    static Scheduler currentLooperScheduler() {
+      final Looper looper = Looper.myLooper();
+      if (looper == null) {
+        return null;
+      }
+      LooperScheduler scheduler = looperSchedulers.get();
+      if (scheduler == null || scheduler.getLooper() != looper) {
+        scheduler = new LooperScheduler(looper);
+        looperSchedulers.set(scheduler);
+      }
+      return scheduler;
+    }
+
+    private LooperScheduler(@NonNull final Looper looper) {
+      super(looper);
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable task) {
+      post(task);
+    }
+
+    @Override
+    public void executeDelayed(@NonNull final Runnable task, final long delayMillis) {
+      postDelayed(task, delayMillis);
+    }
+
+    @Override
+    public boolean isSchedulerThread() {
+      return Looper.myLooper() == getLooper();
+    }
+
+    @Override
+    public long uptimeMillis() {
+      return SystemClock.uptimeMillis();
+    }
+  }
+
+  private static final class ThreadScheduler implements Scheduler, Runnable {
+    @NonNull
+    private final ReentrantLock lock;
+    @NonNull
+    private final Condition tasksChanged;
+    @NonNull
+    private final PriorityQueue<ScheduledTask> tasks;
+    @NonNull
+    private final Thread thread;
+    private long sequence;
+
+    ThreadScheduler(@NonNull final ThreadFactory threadFactory) {
+      this.lock = new ReentrantLock();
+      this.tasksChanged = lock.newCondition();
+      this.tasks = new PriorityQueue<>();
+      this.thread = checkNotNull(threadFactory.newThread(this));
+      thread.start();
+    }
+
+    @Override
+    public void execute(@NonNull final Runnable task) {
+      executeDelayed(task, 0);
+    }
+
+    @Override
+    public void executeDelayed(@NonNull final Runnable task, final long delayMillis) {
+      checkNotNull(task);
+      final long uptimeMillis = uptimeMillis() + Math.max(0, delayMillis);
+      lock.lock();
+      try {
+        final ScheduledTask scheduledTask = new ScheduledTask(task, uptimeMillis, sequence++);
+        tasks.add(scheduledTask);
+        if (tasks.peek() == scheduledTask) {
+          tasksChanged.signal();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    @Override
+    public boolean isSchedulerThread() {
+      return Thread.currentThread() == thread;
+    }
+
+    @Override
+    public long uptimeMillis() {
+      return NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    @Override
+    public void run() {
+      setCurrentScheduler(this);
+      while (true) {
+        final Runnable task = takeTask();
+        try {
+          task.run();
+        } catch (final Throwable e) {
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+      }
+    }
+
+    @NonNull
+    private Runnable takeTask() {
+      lock.lock();
+      try {
+        while (true) {
+          final ScheduledTask next = tasks.peek();
+          final long waitMillis = next == null ? 0 : next.uptimeMillis - uptimeMillis();
+          if (next != null && waitMillis <= 0) {
+            return tasks.poll().task;
+          }
+          try {
+            if (next == null) {
+              tasksChanged.await();
+            } else {
+              tasksChanged.await(waitMillis, MILLISECONDS);
+            }
+          } catch (final InterruptedException ignored) {
+            // An interrupt sent to a directive that already ran on this thread; keep waiting.
+          }
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private static final class ScheduledTask implements Comparable<ScheduledTask> {
+    @NonNull
+    final Runnable task;
+    final long uptimeMillis;
+    final long sequence;
+
+    ScheduledTask(@NonNull final Runnable task, final long uptimeMillis, final long sequence) {
+      this.task = task;
+      this.uptimeMillis = uptimeMillis;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(@NonNull final ScheduledTask other) {
+      if (uptimeMillis != other.uptimeMillis) {
+        return uptimeMillis < other.uptimeMillis ? -1 : 1;
+      }
+      return sequence < other.sequence ? -1 : 1;
+    }
+  }
+
+  private static final class SchedulerThreadFactory implements ThreadFactory {
+    private static final AtomicInteger threadCount = new AtomicInteger();
+
+    @NonNull
+    @Override
+    public Thread newThread(@NonNull final Runnable runnable) {
+      final Thread thread =
+          new Thread(runnable, "Agera scheduler " + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  private Schedulers() {}
+}
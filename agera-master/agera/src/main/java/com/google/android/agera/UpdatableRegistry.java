@@ -0,0 +1,204 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static java.lang.System.identityHashCode;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * The registry of {@link Updatable}s and their associated {@link WorkerHandler}s behind
+ * {@link BaseObservable}. Each updatable is held in a {@link Registration}; registrations are kept
+ * densely packed, so iteration only visits registered updatables, and are indexed by an
+ * identity-hashed open-addressing table, so that adding and removing an updatable costs O(1)
+ * regardless of the fan-out. Removal fills the hole with the last registration; the capacity
+ * shrinks again once the registry is a quarter full.
+ *
+ * <p>This class is not thread safe; {@link BaseObservable} guards it with its own lock.
+ */
+final class UpdatableRegistry {
+  private static final int MIN_CAPACITY = 4;
+  @NonNull
+  static final Registration[] NO_REGISTRATIONS = new Registration[0];
+  @NonNull
+  private static final int[] NO_INDICES = new int[0];
+
+  /**
+   * The registration of an {@link Updatable} to an observable, delivering updates through the
+   * {@link WorkerHandler} of the thread it was added on, with the {@link UpdatePriority} of a
+   * {@link PrioritizedUpdatable} read at registration. A registration outlives its removal in
+   * any snapshot taken before; {@link #removed} is guarded by the {@link #handler} monitor, so that
+   * the handler never schedules an update for a removed registration.
+   */
+  static final class Registration {
+    @NonNull
+    final Updatable updatable;
+    @NonNull
+    final WorkerHandler handler;
+    @UpdatePriority
+    final int priority;
+    boolean removed;
+
+    Registration(@NonNull final Updatable updatable, @NonNull final WorkerHandler handler) {
+      this.updatable = updatable;
+      this.handler = handler;
+      this.priority = updatable instanceof PrioritizedUpdatable
+          ? ((PrioritizedUpdatable) updatable).getUpdatePriority() : UpdatePriority.NORMAL;
+    }
+  }
+
+  // Registrations packed in [0, size).
+  @NonNull
+  private Registration[] registrations = NO_REGISTRATIONS;
+  // Linear-probing table of 1-based registration indices, 0 marking an empty slot. Always twice
+  // the power-of-two length of registrations, keeping the load factor at or below one half.
+  @NonNull
+  private int[] indices = NO_INDICES;
+  private int size;
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns a copy of the current registrations, unaffected by later additions and removals.
+   */
+  @NonNull
+  Registration[] toArray() {
+    return size == 0 ? NO_REGISTRATIONS : Arrays.copyOf(registrations, size);
+  }
+
+  /**
+   * Adds the {@code updatable} and its {@code handler}.
+   *
+   * @return The new registration, or null if the updatable was already registered.
+   */
+  @Nullable
+  Registration add(@NonNull final Updatable updatable, @NonNull final WorkerHandler handler) {
+    if (slotOf(updatable) >= 0) {
+      return null;
+    }
+    if (size == registrations.length) {
+      resize(Math.max(MIN_CAPACITY, size * 2));
+    }
+    final Registration registration = new Registration(updatable, handler);
+    registrations[size] = registration;
+    size++;
+    indices[emptySlotFor(updatable)] = size;
+    return registration;
+  }
+
+  /**
+   * Removes the {@code updatable}.
+   *
+   * @return The registration of the removed updatable, or null if it was not registered.
+   */
+  @Nullable
+  Registration remove(@NonNull final Updatable updatable) {
+    final int slot = slotOf(updatable);
+    if (slot < 0) {
+      return null;
+    }
+    final int index = indices[slot] - 1;
+    final Registration registration = registrations[index];
+    deleteSlot(slot);
+    final int last = size - 1;
+    if (index != last) {
+      final Registration lastRegistration = registrations[last];
+      indices[slotOfIndex(lastRegistration.updatable, last)] = index + 1;
+      registrations[index] = lastRegistration;
+    }
+    registrations[last] = null;
+    size = last;
+    final int capacity = registrations.length;
+    if (capacity > MIN_CAPACITY && size * 4 <= capacity) {
+      resize(capacity / 2);
+    }
+    return registration;
+  }
+
+  private int mask() {
+    return indices.length - 1;
+  }
+
+  private static int hash(@NonNull final Object updatable) {
+    final int hash = identityHashCode(updatable) * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  private int slotOf(@NonNull final Object updatable) {
+    if (size == 0) {
+      return -1;
+    }
+    final int mask = mask();
+    for (int slot = hash(updatable) & mask; ; slot = (slot + 1) & mask) {
+      final int entry = indices[slot];
+      if (entry == 0) {
+        return -1;
+      }
+      if (registrations[entry - 1].updatable == updatable) {
+        return slot;
+      }
+    }
+  }
+
+  private int slotOfIndex(@NonNull final Object updatable, final int index) {
+    final int mask = mask();
+    int slot = hash(updatable) & mask;
+    while (indices[slot] != index + 1) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private int emptySlotFor(@NonNull final Object updatable) {
+    final int mask = mask();
+    int slot = hash(updatable) & mask;
+    while (indices[slot] != 0) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Empties the given slot, shifting back any following entries of the probe sequence so that no
+   * tombstones are needed.
+   */
+  private void deleteSlot(final int slot) {
+    final int mask = mask();
+    int gap = slot;
+    for (int next = (slot + 1) & mask; indices[next] != 0; next = (next + 1) & mask) {
+      final int home = hash(registrations[indices[next] - 1].updatable) & mask;
+      // Move the entry into the gap unless its home slot lies cyclically within (gap, next].
+      final boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+      if (!stays) {
+        indices[gap] = indices[next];
+        gap = next;
+      }
+    }
+    indices[gap] = 0;
+  }
+
+  private void resize(final int capacity) {
+    registrations = Arrays.copyOf(registrations, capacity);
+    indices = new int[capacity * 2];
+    for (int index = 0; index < size; index++) {
+      indices[emptySlotFor(registrations[index].updatable)] = index + 1;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.IntDef;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * Constants ordering the calls to the {@link Updatable}s scheduled on the same thread. Updatables
+ * of a higher priority are called back first, so that, for example, an update to what is on the
+ * screen is not held up by updates to prefetched data. See {@link PrioritizedUpdatable}.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@IntDef({
+    UpdatePriority.HIGH,
+    UpdatePriority.NORMAL,
+    UpdatePriority.LOW,
+})
+public @interface UpdatePriority {
+
+  /**
+   * For updates the user is waiting for, such as those of the visible UI.
+   */
+  int HIGH = 0;
+
+  /**
+   * The priority of any {@link Updatable} that does not specify one.
+   */
+  int NORMAL = 1;
+
+  /**
+   * For updates that can wait, such as those of prefetching or other background work.
+   */
+  int LOW = 2;
+}
@@ -1,75 +1,214 @@
 package com.google.android.agera;
 
-import android.os.Handler;
-import android.os.Message;
+import static com.google.android.agera.Preconditions.checkState;
+import static com.google.android.agera.Schedulers.currentScheduler;
+
 import android.support.annotation.NonNull;
+import com.google.android.agera.UpdatableRegistry.Registration;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 
 /**
- * Shared per-thread worker Handler behind internal logic of various Agera classes.
+ * Shared per-thread worker behind internal logic of various Agera classes, running its work on the
+ * {@link Scheduler} of its thread.
+ *
+ * <p>Scheduled {@link Updatable}s are queued and called back in batches, with a single task in the
+ * scheduler at any time, rather than one task per updatable. A batch covers the updatables queued
+ * when it starts, and ends early once the
+ * {@link #setUpdateDeliveryBudgetMillis update delivery budget} is used up, leaving the rest to a
+ * later task so that other work on the thread can run in between.
+ *
+ * <p>Updatables are queued per {@link UpdatePriority}, and each call back takes the oldest
+ * updatable of the highest priority, so an updatable scheduled during a batch may overtake those of
+ * a lower priority queued before it. The time between scheduling and calling back is recorded per
+ * priority.
  */
-final class WorkerHandler extends Handler {
-  static final int MSG_FIRST_ADDED = 0;
-  static final int MSG_LAST_REMOVED = 1;
-  static final int MSG_UPDATE = 2;
-  static final int MSG_CALL_UPDATABLE = 3;
-  static final int MSG_CALL_MAYBE_START_FLOW = 4;
-  static final int MSG_CALL_ACKNOWLEDGE_CANCEL = 5;
+final class WorkerHandler implements Runnable {
+  private static final int PRIORITY_COUNT = UpdatePriority.LOW + 1;
   private static final ThreadLocal<WeakReference<WorkerHandler>> handlers = new ThreadLocal<>();
+  private static volatile int updateDeliveryBudgetMillis = 0;
+  @NonNull
+  final Scheduler scheduler;
   @NonNull
   private final IdentityMultimap<Updatable, Object> scheduledUpdatables;
+  // All guarded by this, and indexed by priority.
+  @NonNull
+  private final PendingQueue[] pendingQueues;
+  @NonNull
+  private final long[] totalWaitMillis;
+  @NonNull
+  private final long[] maxWaitMillis;
+  @NonNull
+  private final long[] deliveredCounts;
+  private int pendingCount;
+  private boolean callUpdatablesScheduled;
 
   @NonNull
   static WorkerHandler workerHandler() {
     final WeakReference<WorkerHandler> handlerReference = handlers.get();
     WorkerHandler handler = handlerReference != null ? handlerReference.get() : null;
     if (handler == null) {
-      handler = new WorkerHandler();
+      final Scheduler scheduler = currentScheduler();
+      checkState(scheduler != null, "Can only be used on a Looper or Scheduler thread");
+      handler = new WorkerHandler(scheduler);
       handlers.set(new WeakReference<>(handler));
     }
     return handler;
   }
 
-  private WorkerHandler() {
+  static void setUpdateDeliveryBudgetMillis(final int budgetMillis) {
+    updateDeliveryBudgetMillis = budgetMillis;
+  }
+
+  private WorkerHandler(@NonNull final Scheduler scheduler) {
+    this.scheduler = scheduler;
     this.scheduledUpdatables = new IdentityMultimap<>();
+    this.pendingQueues = new PendingQueue[PRIORITY_COUNT];
+    for (int i = 0; i < PRIORITY_COUNT; i++) {
+      pendingQueues[i] = new PendingQueue();
+    }
+    this.totalWaitMillis = new long[PRIORITY_COUNT];
+    this.maxWaitMillis = new long[PRIORITY_COUNT];
+    this.deliveredCounts = new long[PRIORITY_COUNT];
+  }
+
+  /**
+   * Returns the average time in milliseconds that the updatables of the given {@code priority}
+   * have waited between being scheduled and being called back, or 0 if none has been.
+   */
+  synchronized long averageWaitMillis(@UpdatePriority final int priority) {
+    final long count = deliveredCounts[priority];
+    return count == 0 ? 0 : totalWaitMillis[priority] / count;
   }
 
-  synchronized void removeUpdatable(@NonNull final Updatable updatable,
+  /**
+   * Returns the longest time in milliseconds that an updatable of the given {@code priority} has
+   * waited between being scheduled and being called back.
+   */
+  synchronized long maxWaitMillis(@UpdatePriority final int priority) {
+    return maxWaitMillis[priority];
+  }
+
+  synchronized void removeUpdatable(@NonNull final Registration registration,
       @NonNull final Object token) {
-    scheduledUpdatables.removeKeyValuePair(updatable, token);
+    registration.removed = true;
+    scheduledUpdatables.removeKeyValuePair(registration.updatable, token);
   }
 
-  synchronized void update(@NonNull final Updatable updatable, @NonNull final Object token) {
-    if (scheduledUpdatables.addKeyValuePair(updatable, token)) {
-      obtainMessage(WorkerHandler.MSG_CALL_UPDATABLE, updatable).sendToTarget();
+  synchronized void update(@NonNull final Registration registration, @NonNull final Object token) {
+    if (!registration.removed
+        && scheduledUpdatables.addKeyValuePair(registration.updatable, token)) {
+      pendingQueues[registration.priority].add(registration.updatable, scheduler.uptimeMillis());
+      pendingCount++;
+      if (!callUpdatablesScheduled) {
+        callUpdatablesScheduled = true;
+        scheduler.execute(this);
+      }
     }
   }
 
+  /**
+   * Calls back a batch of the scheduled updatables.
+   */
   @Override
-  public void handleMessage(final Message message) {
-    switch (message.what) {
-      case MSG_UPDATE:
-        ((BaseObservable) message.obj).sendUpdate();
-        break;
-      case MSG_FIRST_ADDED:
-        ((BaseObservable) message.obj).observableActivated();
-        break;
-      case MSG_LAST_REMOVED:
-        ((BaseObservable) message.obj).observableDeactivated();
-        break;
-      case MSG_CALL_UPDATABLE:
-        final Updatable updatable = (Updatable) message.obj;
-        if (scheduledUpdatables.removeKey(updatable)) {
-          updatable.update();
+  public void run() {
+    final int budgetMillis = updateDeliveryBudgetMillis;
+    final long deadline = budgetMillis > 0 ? scheduler.uptimeMillis() + budgetMillis : 0;
+    int remaining;
+    synchronized (this) {
+      remaining = pendingCount;
+    }
+    try {
+      while (remaining > 0) {
+        remaining--;
+        final Updatable updatable;
+        synchronized (this) {
+          updatable = pollHighestPriority();
+          if (!scheduledUpdatables.removeKey(updatable)) {
+            continue;
+          }
+        }
+        updatable.update();
+        if (deadline != 0 && scheduler.uptimeMillis() >= deadline) {
+          break;
         }
-        break;
-      case MSG_CALL_MAYBE_START_FLOW:
-        ((CompiledRepository) message.obj).maybeStartFlow();
-        break;
-      case MSG_CALL_ACKNOWLEDGE_CANCEL:
-        ((CompiledRepository) message.obj).acknowledgeCancel();
-        break;
-      default:
+      }
+    } finally {
+      synchronized (this) {
+        if (pendingCount == 0) {
+          callUpdatablesScheduled = false;
+        } else {
+          scheduler.execute(this);
+        }
+      }
+    }
+  }
+
+  /**
+   * Dequeues the oldest updatable of the highest priority and records its wait time. Must be
+   * called while holding the lock, with at least one updatable pending.
+   */
+  @NonNull
+  private Updatable pollHighestPriority() {
+    int priority = 0;
+    while (pendingQueues[priority].size == 0) {
+      priority++;
+    }
+    final PendingQueue queue = pendingQueues[priority];
+    final long waitMillis = scheduler.uptimeMillis() - queue.headMillis();
+    totalWaitMillis[priority] += waitMillis;
+    maxWaitMillis[priority] = Math.max(maxWaitMillis[priority], waitMillis);
+    deliveredCounts[priority]++;
+    pendingCount--;
+    return queue.poll();
+  }
+
+  /**
+   * A FIFO ring of updatables and the times they were scheduled, growing as needed, so that
+   * queuing an updatable allocates nothing once the ring is large enough.
+   */
+  private static final class PendingQueue {
+    private static final int INITIAL_CAPACITY = 16;
+    @NonNull
+    private Updatable[] updatables = new Updatable[INITIAL_CAPACITY];
+    @NonNull
+    private long[] scheduledMillis = new long[INITIAL_CAPACITY];
+    private int head;
+    int size;
+
+    void add(@NonNull final Updatable updatable, final long uptimeMillis) {
+      if (size == updatables.length) {
+        grow();
+      }
+      final int tail = (head + size) & (updatables.length - 1);
+      updatables[tail] = updatable;
+      scheduledMillis[tail] = uptimeMillis;
+      size++;
+    }
+
+    long headMillis() {
+      return scheduledMillis[head];
+    }
+
+    @NonNull
+    Updatable poll() {
+      final Updatable updatable = updatables[head];
+      updatables[head] = null;
+      head = (head + 1) & (updatables.length - 1);
+      size--;
+      return updatable;
+    }
+
+    private void grow() {
+      final int capacity = updatables.length;
+      final Updatable[] newUpdatables = Arrays.copyOf(updatables, capacity * 2);
+      final long[] newScheduledMillis = Arrays.copyOf(scheduledMillis, capacity * 2);
+      // Move the wrapped-around part, [0, head), after the end of the old ring.
+      System.arraycopy(updatables, 0, newUpdatables, capacity, head);
+      System.arraycopy(scheduledMillis, 0, newScheduledMillis, capacity, head);
+      Arrays.fill(newUpdatables, 0, head, null);
+      updatables = newUpdatables;
+      scheduledMillis = newScheduledMillis;
     }
   }
 }
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Caches.cache;
+import static com.google.android.agera.Observables.updateDispatcher;
+import static com.google.android.agera.Repositories.mutableRepository;
+import static com.google.android.agera.Result.failure;
+import static com.google.android.agera.Result.success;
+import static com.google.android.agera.test.matchers.HasPrivateConstructor.hasPrivateConstructor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.MockitoAnnotations.initMocks;
+import static org.robolectric.annotation.Config.NONE;
+import static org.robolectric.shadows.ShadowLooper.runUiThreadTasksIncludingDelayedTasks;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.Caches.CachingFunction;
+import com.google.android.agera.Caches.CachingSupplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = NONE)
+@RunWith(RobolectricTestRunner.class)
+public final class CachesTest {
+  private static final String FIRST_VALUE = "first";
+  private static final String SECOND_VALUE = "second";
+  private static final int EXPIRY_MILLIS = 100;
+
+  private MutableRepository<Long> clock;
+  @Mock
+  private Supplier<String> mockSupplier;
+  @Mock
+  private Function<Integer, String> mockFunction;
+  @Mock
+  private Supplier<Result<String>> mockResultSupplier;
+  @Mock
+  private ActivationHandler mockActivationHandler;
+
+  @Before
+  public void setUp() {
+    initMocks(this);
+    clock = mutableRepository(0L);
+    when(mockSupplier.get()).thenReturn(FIRST_VALUE, SECOND_VALUE);
+    when(mockFunction.apply(1)).thenReturn(FIRST_VALUE);
+    when(mockFunction.apply(2)).thenReturn(SECOND_VALUE);
+  }
+
+  @Test
+  public void shouldMemoizeSupplierValue() {
+    final CachingSupplier<String> supplier = cache().supplier(mockSupplier);
+
+    assertThat(supplier.get(), is(FIRST_VALUE));
+    assertThat(supplier.get(), is(FIRST_VALUE));
+    verify(mockSupplier, times(1)).get();
+    assertThat(supplier.getMissCount(), is(1L));
+    assertThat(supplier.getHitCount(), is(1L));
+  }
+
+  @Test
+  public void shouldRecomputeSupplierValueAfterInvalidateAll() {
+    final CachingSupplier<String> supplier = cache().supplier(mockSupplier);
+
+    supplier.get();
+    supplier.invalidateAll();
+
+    assertThat(supplier.get(), is(SECOND_VALUE));
+    assertThat(supplier.getEvictionCount(), is(0L));
+  }
+
+  @Test
+  public void shouldMemoizeFunctionValuePerInput() {
+    final CachingFunction<Integer, String> function = cache().function(mockFunction);
+
+    assertThat(function.apply(1), is(FIRST_VALUE));
+    assertThat(function.apply(2), is(SECOND_VALUE));
+    assertThat(function.apply(1), is(FIRST_VALUE));
+    verify(mockFunction, times(1)).apply(1);
+    verify(mockFunction, times(1)).apply(2);
+  }
+
+  @Test
+  public void shouldRecomputeOnlyInvalidatedInput() {
+    final CachingFunction<Integer, String> function = cache().function(mockFunction);
+    function.apply(1);
+    function.apply(2);
+
+    function.invalidate(1);
+    function.apply(1);
+    function.apply(2);
+
+    verify(mockFunction, times(2)).apply(1);
+    verify(mockFunction, times(1)).apply(2);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedValueBeyondMaxSize() {
+    when(mockFunction.apply(3)).thenReturn(FIRST_VALUE);
+    final CachingFunction<Integer, String> function = cache().maxSize(2).function(mockFunction);
+    function.apply(1);
+    function.apply(2);
+    function.apply(1);
+
+    function.apply(3);
+    function.apply(1);
+    function.apply(2);
+
+    verify(mockFunction, times(1)).apply(1);
+    verify(mockFunction, times(2)).apply(2);
+    assertThat(function.getEvictionCount(), is(2L));
+  }
+
+  @Test
+  public void shouldExpireValueAfterWrite() {
+    final CachingSupplier<String> supplier =
+        cache().expireAfterWrite(EXPIRY_MILLIS, MILLISECONDS).clock(clock).supplier(mockSupplier);
+    supplier.get();
+
+    clock.accept(EXPIRY_MILLIS - 1L);
+    assertThat(supplier.get(), is(FIRST_VALUE));
+    clock.accept((long) EXPIRY_MILLIS);
+    assertThat(supplier.get(), is(SECOND_VALUE));
+    assertThat(supplier.getEvictionCount(), is(1L));
+  }
+
+  @Test
+  public void shouldInvalidateWhenObservableUpdates() {
+    final UpdateDispatcher updateDispatcher = updateDispatcher();
+    final CachingSupplier<String> supplier =
+        cache().invalidatedBy(updateDispatcher).supplier(mockSupplier);
+    supplier.get();
+
+    updateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+
+    assertThat(supplier.get(), is(SECOND_VALUE));
+  }
+
+  @Test
+  public void shouldStopObservingWhenClosed() {
+    final UpdateDispatcher updateDispatcher = updateDispatcher(mockActivationHandler);
+    final CachingSupplier<String> supplier =
+        cache().invalidatedBy(updateDispatcher).supplier(mockSupplier);
+    runUiThreadTasksIncludingDelayedTasks();
+    verify(mockActivationHandler).observableActivated(updateDispatcher);
+
+    supplier.close();
+    runUiThreadTasksIncludingDelayedTasks();
+    verify(mockActivationHandler).observableDeactivated(updateDispatcher);
+
+    supplier.get();
+    updateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+    assertThat(supplier.get(), is(FIRST_VALUE));
+    verify(mockSupplier).get();
+  }
+
+  @Test
+  public void shouldExpireValueAfterWriteFromEndOfComputation() {
+    final CachingSupplier<String> supplier = cache()
+        .expireAfterWrite(EXPIRY_MILLIS, MILLISECONDS)
+        .clock(clock)
+        .supplier(new Supplier<String>() {
+          @NonNull
+          @Override
+          public String get() {
+            clock.accept(clock.get() + EXPIRY_MILLIS);
+            return FIRST_VALUE;
+          }
+        });
+    supplier.get();
+
+    clock.accept(2L * EXPIRY_MILLIS - 1);
+    assertThat(supplier.getHitCount(), is(0L));
+    supplier.get();
+    assertThat(supplier.getHitCount(), is(1L));
+  }
+
+  @Test
+  public void shouldNotCacheFailedResult() {
+    final Result<String> failure = failure();
+    final Result<String> success = success(FIRST_VALUE);
+    when(mockResultSupplier.get()).thenReturn(failure, success);
+    final CachingSupplier<Result<String>> supplier = cache().supplier(mockResultSupplier);
+
+    assertThat(supplier.get(), sameInstance(failure));
+    assertThat(supplier.get(), sameInstance(success));
+    assertThat(supplier.get(), sameInstance(success));
+    verify(mockResultSupplier, times(2)).get();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowForNonPositiveMaxSize() {
+    cache().maxSize(0);
+  }
+
+  @Test
+  public void shouldHavePrivateConstructor() {
+    assertThat(Caches.class, hasPrivateConstructor());
+  }
+}
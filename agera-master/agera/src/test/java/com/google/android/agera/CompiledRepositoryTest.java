@@ -0,0 +1,206 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Repositories.mutableRepository;
+import static com.google.android.agera.Repositories.repositoryWithInitialValue;
+import static com.google.android.agera.Suppliers.staticSupplier;
+import static com.google.android.agera.test.matchers.SupplierGives.has;
+import static com.google.android.agera.test.matchers.UpdatableUpdated.wasUpdated;
+import static com.google.android.agera.test.mocks.MockUpdatable.mockUpdatable;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.robolectric.annotation.Config.NONE;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.test.SingleSlotDelayedExecutor;
+import com.google.android.agera.test.mocks.MockUpdatable;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = NONE)
+@RunWith(RobolectricTestRunner.class)
+public final class CompiledRepositoryTest {
+  private static final int INITIAL_VALUE = 0;
+  private static final Merger<Integer, Integer, Integer> ADD =
+      new Merger<Integer, Integer, Integer>() {
+        @NonNull
+        @Override
+        public Integer merge(@NonNull final Integer first, @NonNull final Integer second) {
+          return first + second;
+        }
+      };
+  private static final Function<Integer, Integer> DOUBLE = new Function<Integer, Integer>() {
+    @NonNull
+    @Override
+    public Integer apply(@NonNull final Integer input) {
+      return input * 2;
+    }
+  };
+  private static final Predicate<Integer> POSITIVE = new Predicate<Integer>() {
+    @Override
+    public boolean apply(@NonNull final Integer value) {
+      return value > 0;
+    }
+  };
+
+  private static final Merger<String, List<String>, String> APPEND_ALL =
+      new Merger<String, List<String>, String>() {
+        @NonNull
+        @Override
+        public String merge(@NonNull final String first, @NonNull final List<String> second) {
+          return first + second;
+        }
+      };
+
+  private MockUpdatable updatable;
+  private SingleSlotDelayedExecutor delayedExecutor;
+  private MutableRepository<Integer> sentValue;
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = newCachedThreadPool();
+    updatable = mockUpdatable();
+    delayedExecutor = new SingleSlotDelayedExecutor();
+    sentValue = mutableRepository(INITIAL_VALUE);
+  }
+
+  @After
+  public void tearDown() {
+    updatable.removeFromObservables();
+    CompiledRepository.compileFlowNodes = true;
+    executor.shutdown();
+  }
+
+  @Test
+  public void shouldRunFlowOnFlowNodes() {
+    CompiledRepository.compileFlowNodes = true;
+    shouldRunFlowThroughAllDirectives();
+  }
+
+  @Test
+  public void shouldRunFlowOnDirectiveInterpreter() {
+    CompiledRepository.compileFlowNodes = false;
+    shouldRunFlowThroughAllDirectives();
+  }
+
+  private void shouldRunFlowThroughAllDirectives() {
+    final Repository<Integer> repository = repositoryWithInitialValue(INITIAL_VALUE)
+        .observe()
+        .onUpdatesPerLoop()
+        .getFrom(staticSupplier(2))
+        .mergeIn(staticSupplier(3), ADD)
+        .goTo(delayedExecutor)
+        .transform(DOUBLE)
+        .check(POSITIVE).orSkip()
+        .sendTo(sentValue)
+        .goLazy()
+        .thenMergeIn(sentValue, ADD)
+        .compile();
+
+    updatable.addToObservable(repository);
+    assertThat(delayedExecutor.hasRunnable(), is(true));
+
+    delayedExecutor.resumeOrThrow();
+
+    assertThat(updatable, wasUpdated());
+    assertThat(sentValue, has(10));
+    assertThat(repository, has(20));
+  }
+
+  @Test
+  public void shouldMergeInAllSupplierValuesConcurrentlyInSupplierOrder() {
+    final CountDownLatch allStarted = new CountDownLatch(2);
+    final Repository<String> repository = repositoryWithInitialValue("")
+        .observe()
+        .onUpdatesPerLoop()
+        .getFrom(staticSupplier("a"))
+        .goTo(delayedExecutor)
+        .mergeInAll(executor, asList(new AwaitingSupplier(allStarted, "b"),
+            new AwaitingSupplier(allStarted, "c")), APPEND_ALL)
+        .thenTransform(Functions.<String>identityFunction())
+        .compile();
+
+    updatable.addToObservable(repository);
+    delayedExecutor.resumeOrThrow();
+
+    assertThat(repository, has("a[b, c]"));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldRethrowMergeInAllSupplierFailure() {
+    final Repository<String> repository = repositoryWithInitialValue("")
+        .observe()
+        .onUpdatesPerLoop()
+        .getFrom(staticSupplier("a"))
+        .goTo(delayedExecutor)
+        .mergeInAll(executor, asList(staticSupplier("b"), new Supplier<String>() {
+          @NonNull
+          @Override
+          public String get() {
+            throw new IllegalStateException();
+          }
+        }), APPEND_ALL)
+        .thenTransform(Functions.<String>identityFunction())
+        .compile();
+
+    updatable.addToObservable(repository);
+    delayedExecutor.resumeOrThrow();
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotAllowMergeInAllBeforeGoTo() {
+    repositoryWithInitialValue("")
+        .observe()
+        .onUpdatesPerLoop()
+        .mergeInAll(executor, asList(staticSupplier("a")), APPEND_ALL);
+  }
+
+  private static final class AwaitingSupplier implements Supplier<String> {
+    @NonNull
+    private final CountDownLatch allStarted;
+    @NonNull
+    private final String value;
+
+    AwaitingSupplier(@NonNull final CountDownLatch allStarted, @NonNull final String value) {
+      this.allStarted = allStarted;
+      this.value = value;
+    }
+
+    @NonNull
+    @Override
+    public String get() {
+      allStarted.countDown();
+      try {
+        return allStarted.await(20, SECONDS) ? value : "NOT_CONCURRENT";
+      } catch (final InterruptedException e) {
+        return "INTERRUPTED";
+      }
+    }
+  }
+}
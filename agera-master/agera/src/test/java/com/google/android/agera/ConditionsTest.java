@@ -15,8 +15,11 @@
  */
 package com.google.android.agera;
 
+import static com.google.android.agera.Conditions.adaptiveAll;
+import static com.google.android.agera.Conditions.adaptiveAny;
 import static com.google.android.agera.Conditions.all;
 import static com.google.android.agera.Conditions.any;
+import static com.google.android.agera.Conditions.cachedCondition;
 import static com.google.android.agera.Conditions.falseCondition;
 import static com.google.android.agera.Conditions.not;
 import static com.google.android.agera.Conditions.predicateAsCondition;
@@ -31,6 +34,8 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -171,6 +176,49 @@ public final class ConditionsTest {
     assertThat(any(mockConditionFalse, mockConditionFalse), doesNotApply());
   }
 
+  @Test
+  public void shouldReturnTrueForAdaptiveAllWithNoConditions() {
+    assertThat(adaptiveAll(), sameInstance(trueCondition()));
+  }
+
+  @Test
+  public void shouldReturnOriginalConditionIfAdaptiveAnyOfOne() {
+    assertThat(adaptiveAny(mockConditionFalse, falseCondition()),
+        is(sameInstance(mockConditionFalse)));
+  }
+
+  @Test
+  public void shouldReturnTrueForAdaptiveAllWithNonStaticTrueConditions() {
+    assertThat(adaptiveAll(mockConditionTrue, mockConditionTrue), applies());
+  }
+
+  @Test
+  public void shouldReturnFalseForAdaptiveAllWithNonStaticOneFalseCondition() {
+    assertThat(adaptiveAll(mockConditionTrue, mockConditionFalse), doesNotApply());
+  }
+
+  @Test
+  public void shouldReturnTrueForAdaptiveAnyWithNonStaticOneTrueCondition() {
+    assertThat(adaptiveAny(mockConditionFalse, mockConditionTrue), applies());
+  }
+
+  @Test
+  public void shouldEvaluateDecidingConditionFirstInAdaptiveAll() {
+    final Condition condition = adaptiveAll(mockConditionTrue, mockConditionFalse);
+
+    for (int i = 0; i < 1024; i++) {
+      condition.applies();
+    }
+
+    verify(mockConditionFalse, times(1024)).applies();
+    verify(mockConditionTrue, atMost(256)).applies();
+  }
+
+  @Test
+  public void shouldReturnStaticConditionForCachedStaticCondition() {
+    assertThat(cachedCondition(trueCondition()), sameInstance(trueCondition()));
+  }
+
   @Test
   public void shouldReturnTrueForTruePredicateAsCondition() {
     assertThat(predicateAsCondition(truePredicate(), mockValueSupplier),
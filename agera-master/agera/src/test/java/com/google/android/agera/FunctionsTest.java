@@ -17,8 +17,13 @@ package com.google.android.agera;
 
 import static com.google.android.agera.Functions.failedResult;
 import static com.google.android.agera.Functions.functionFrom;
+import static com.google.android.agera.Functions.functionFromDoubleList;
+import static com.google.android.agera.Functions.functionFromIntList;
 import static com.google.android.agera.Functions.functionFromListOf;
+import static com.google.android.agera.Functions.functionFromLongList;
 import static com.google.android.agera.Functions.identityFunction;
+import static com.google.android.agera.Functions.setParallelListThreshold;
+import static com.google.android.agera.Functions.singleFlightFunction;
 import static com.google.android.agera.Functions.staticFunction;
 import static com.google.android.agera.Functions.supplierAsFunction;
 import static com.google.android.agera.Result.absent;
@@ -30,20 +35,34 @@ import static java.util.Arrays.asList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import android.support.annotation.NonNull;
+import com.google.android.agera.PrimitiveOperators.DoubleOperator;
+import com.google.android.agera.PrimitiveOperators.IntOperator;
+import com.google.android.agera.PrimitiveOperators.IntPredicate;
+import com.google.android.agera.PrimitiveOperators.LongOperator;
+import com.google.android.agera.PrimitiveOperators.LongPredicate;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 import org.junit.Test;
@@ -156,6 +175,84 @@ public final class FunctionsTest {
     assertThat(Functions.class, hasPrivateConstructor());
   }
 
+  @Test
+  public void shouldShareOneCallOfSingleFlightFunctionForConcurrentEqualInputs()
+      throws Exception {
+    final BlockingFirstCallFunction blockingFunction = new BlockingFirstCallFunction();
+    final Function<String, Object> function = singleFlightFunction(blockingFunction);
+    final AtomicReference<Object> leaderOutput = new AtomicReference<>();
+    final AtomicReference<Object> followerOutput = new AtomicReference<>();
+    final Thread leader = new Thread(new ApplyFunction(function, leaderOutput));
+    final Thread follower = new Thread(new ApplyFunction(function, followerOutput));
+
+    leader.start();
+    blockingFunction.entered.await();
+    follower.start();
+    awaitWaiting(follower);
+    blockingFunction.release.countDown();
+    leader.join();
+    follower.join();
+
+    assertThat(blockingFunction.calls.get(), is(1));
+    assertThat(followerOutput.get(), is(sameInstance(leaderOutput.get())));
+  }
+
+  @Test
+  public void shouldStopWaitingForSingleFlightFunctionWhenInterrupted() throws Exception {
+    final BlockingFirstCallFunction blockingFunction = new BlockingFirstCallFunction();
+    final Function<String, Object> function = singleFlightFunction(blockingFunction);
+    final AtomicReference<Object> leaderOutput = new AtomicReference<>();
+    final AtomicReference<Object> followerOutput = new AtomicReference<>();
+    final Thread leader = new Thread(new ApplyFunction(function, leaderOutput));
+    final Thread follower = new Thread(new ApplyFunction(function, followerOutput));
+
+    leader.start();
+    blockingFunction.entered.await();
+    follower.start();
+    awaitWaiting(follower);
+    follower.interrupt();
+    follower.join();
+
+    assertThat(blockingFunction.calls.get(), is(2));
+    assertThat(followerOutput.get(), is(not(nullValue())));
+
+    blockingFunction.release.countDown();
+    leader.join();
+    assertThat(followerOutput.get(), is(not(sameInstance(leaderOutput.get()))));
+  }
+
+  @Test
+  public void shouldNotShareOutputOfInterruptedSingleFlightCall() throws Exception {
+    final BlockingFirstCallFunction blockingFunction = new BlockingFirstCallFunction();
+    final Function<String, Object> function = singleFlightFunction(blockingFunction);
+    final AtomicReference<Object> leaderOutput = new AtomicReference<>();
+    final AtomicReference<Object> followerOutput = new AtomicReference<>();
+    final Thread leader = new Thread(new ApplyFunction(function, leaderOutput));
+    final Thread follower = new Thread(new ApplyFunction(function, followerOutput));
+
+    leader.start();
+    blockingFunction.entered.await();
+    follower.start();
+    awaitWaiting(follower);
+    leader.interrupt();
+    leader.join();
+    follower.join();
+
+    assertThat(blockingFunction.calls.get(), is(2));
+    assertThat(((Result<?>) leaderOutput.get()).getFailure(),
+        is(instanceOf(InterruptedIOException.class)));
+    assertThat(followerOutput.get(), is(not(instanceOf(Result.class))));
+  }
+
+  @Test
+  public void shouldCallSingleFlightFunctionAgainAfterPreviousCallReturned() {
+    final Function<Integer, Integer> function = singleFlightFunction(mockPlusTwoFunction);
+
+    assertThat(function.apply(VALUE), is(VALUE_PLUS_TWO));
+    assertThat(function.apply(VALUE), is(VALUE_PLUS_TWO));
+    verify(mockPlusTwoFunction, times(2)).apply(VALUE);
+  }
+
   @Test
   public void shouldCreateFunctionFromItemToItem() {
     final Function<String, Integer> function = functionFrom(String.class)
@@ -247,6 +344,131 @@ public final class FunctionsTest {
     assertThat(inputList, is(INPUT_LIST));
   }
 
+  @Test
+  public void shouldStopMappingOnceFusedLimitIsReached() {
+    final List<String> mapped = new ArrayList<>();
+    final Function<List<String>, List<Integer>> function = functionFromListOf(String.class)
+        .map(new Function<String, Integer>() {
+          @NonNull
+          @Override
+          public Integer apply(@NonNull final String input) {
+            mapped.add(input);
+            return input.length();
+          }
+        })
+        .thenLimit(2);
+
+    assertThat(function.apply(INPUT_LIST), contains(4, 7));
+    assertThat(mapped, contains("some", "strings"));
+  }
+
+  @Test
+  public void shouldKeepItemsPastFusedLimitOutAfterLaterFilter() {
+    final Function<List<String>, List<String>> function = functionFromListOf(String.class)
+        .limit(3)
+        .filter(new Predicate<String>() {
+          @Override
+          public boolean apply(@NonNull final String value) {
+            return value.length() > 3;
+          }
+        })
+        .limit(1)
+        .thenFilter(new Predicate<String>() {
+          @Override
+          public boolean apply(@NonNull final String value) {
+            return value.startsWith("s");
+          }
+        });
+
+    assertThat(function.apply(INPUT_LIST), contains("some"));
+  }
+
+  @Test
+  public void shouldKeepFirstItemsOfStableSortWhenLimitingSortedList() {
+    final Function<List<String>, List<String>> function = functionFromListOf(String.class)
+        .sort(new Comparator<String>() {
+          @Override
+          public int compare(final String lhs, final String rhs) {
+            return rhs.length() - lhs.length();
+          }
+        })
+        .thenLimit(3);
+
+    assertThat(function.apply(INPUT_LIST), contains("strings", "testing", "some"));
+  }
+
+  @Test
+  public void shouldRunParallelStagesInOrder() {
+    setParallelListThreshold(2);
+    try {
+      final Function<List<String>, List<Integer>> function = functionFromListOf(String.class)
+          .parallelFilter(new Predicate<String>() {
+            @Override
+            public boolean apply(@NonNull final String value) {
+              return !value.equals("for");
+            }
+          })
+          .parallelMap(new StringLength())
+          .parallelSort(new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer lhs, final Integer rhs) {
+              return lhs.compareTo(rhs);
+            }
+          })
+          .thenLimit(INPUT_LIST.size());
+
+      assertThat(function.apply(INPUT_LIST), contains(4, 7, 7));
+    } finally {
+      setParallelListThreshold(4096);
+    }
+  }
+
+  @Test
+  public void shouldKeepEqualItemsInOrderInParallelSort() {
+    setParallelListThreshold(2);
+    try {
+      final Function<List<String>, List<String>> function = functionFromListOf(String.class)
+          .parallelSort(new Comparator<String>() {
+            @Override
+            public int compare(final String lhs, final String rhs) {
+              return lhs.length() - rhs.length();
+            }
+          })
+          .thenLimit(INPUT_LIST.size());
+
+      assertThat(function.apply(INPUT_LIST), contains("for", "some", "strings", "testing"));
+    } finally {
+      setParallelListThreshold(4096);
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldRethrowFailureOfParallelMapOnCallingThread() {
+    setParallelListThreshold(2);
+    try {
+      functionFromListOf(String.class)
+          .parallelMap(new Function<String, String>() {
+            @NonNull
+            @Override
+            public String apply(@NonNull final String input) {
+              if (input.equals("for")) {
+                throw new IllegalStateException();
+              }
+              return input;
+            }
+          })
+          .thenLimit(INPUT_LIST.size())
+          .apply(INPUT_LIST);
+    } finally {
+      setParallelListThreshold(4096);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowForNonPositiveParallelListThreshold() {
+    setParallelListThreshold(0);
+  }
+
   @Test
   public void shouldCreateFunctionFromListToListWithZeroLimit() {
     final Function<List<String>, List<Integer>> function = functionFromListOf(String.class)
@@ -287,6 +509,129 @@ public final class FunctionsTest {
     assertThat(function, sameInstance(Functions.<List<String>>identityFunction()));
   }
 
+  @Test
+  public void shouldFilterMapSortAndLimitLongList() {
+    final Function<LongList, LongList> function = functionFromLongList()
+        .filter(new LongPredicate() {
+          @Override
+          public boolean apply(final long value) {
+            return value % 2 == 0;
+          }
+        })
+        .map(new LongOperator() {
+          @Override
+          public long apply(final long value) {
+            return value * 10;
+          }
+        })
+        .sort()
+        .thenLimit(3);
+
+    assertThat(function.apply(LongList.of(8, 3, 4, 7, 2, 6)), is(LongList.of(20, 40, 60)));
+  }
+
+  @Test
+  public void shouldNotModifyInputLongList() {
+    final LongList input = LongList.of(3, 1, 2);
+
+    functionFromLongList().thenSort().apply(input);
+
+    assertThat(input, is(LongList.of(3, 1, 2)));
+  }
+
+  @Test
+  public void shouldSortIntListDescending() {
+    final Function<IntList, IntList> function = functionFromIntList()
+        .filter(new IntPredicate() {
+          @Override
+          public boolean apply(final int value) {
+            return value > 0;
+          }
+        })
+        .thenSortDescending();
+
+    assertThat(function.apply(IntList.of(3, -1, 5, 0, 1)), is(IntList.of(5, 3, 1)));
+  }
+
+  @Test
+  public void shouldStopMappingIntListOnceLimitReached() {
+    final AtomicInteger calls = new AtomicInteger();
+    final Function<IntList, IntList> function = functionFromIntList()
+        .filter(new IntPredicate() {
+          @Override
+          public boolean apply(final int value) {
+            return value % 2 == 0;
+          }
+        })
+        .map(new IntOperator() {
+          @Override
+          public int apply(final int value) {
+            calls.incrementAndGet();
+            return value * 10;
+          }
+        })
+        .limit(2)
+        .thenSortDescending();
+
+    assertThat(function.apply(IntList.of(1, 2, 3, 4, 5, 6, 8)), is(IntList.of(40, 20)));
+    assertThat(calls.get(), is(2));
+  }
+
+  @Test
+  public void shouldApplyFunctionToDoubleListResult() {
+    final Function<DoubleList, List<Double>> function = functionFromDoubleList()
+        .map(new DoubleOperator() {
+          @Override
+          public double apply(final double value) {
+            return value / 2;
+          }
+        })
+        .limit(2)
+        .thenApply(new Function<DoubleList, List<Double>>() {
+          @NonNull
+          @Override
+          public List<Double> apply(@NonNull final DoubleList input) {
+            return input.asList();
+          }
+        });
+
+    assertThat(function.apply(DoubleList.of(1, 3, 5)), contains(0.5, 1.5));
+  }
+
+  @Test
+  public void shouldCopyLongListFromCollection() {
+    final LongList list = LongList.copyOf(asList(5L, 6L, 7L));
+
+    assertThat(list.size(), is(3));
+    assertThat(list.get(1), is(6L));
+    assertThat(list.toArray(), is(new long[] {5, 6, 7}));
+    assertThat(list.asList(), contains(5L, 6L, 7L));
+    assertThat(list.toString(), is("[5, 6, 7]"));
+  }
+
+  @Test
+  public void shouldCompareLongListsByValues() {
+    assertThat(LongList.of(1, 2), is(LongList.copyOf(asList(1L, 2L))));
+    assertThat(LongList.of(1, 2).hashCode(), is(asList(1L, 2L).hashCode()));
+    assertThat(LongList.of(1, 2), is(not(LongList.of(2, 1))));
+  }
+
+  @Test
+  public void shouldCompareDoubleListsLikeDoubleEquals() {
+    assertThat(DoubleList.of(Double.NaN), is(DoubleList.of(Double.NaN)));
+    assertThat(DoubleList.of(0.0), is(not(DoubleList.of(-0.0))));
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowForIndexBeyondLimitedLongList() {
+    functionFromLongList().thenLimit(1).apply(LongList.of(1, 2)).get(1);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowForNegativePrimitiveListLimit() {
+    functionFromIntList().limit(-1);
+  }
+
   private static final class DoubleString implements Function<String, String> {
     @NonNull
     @Override
@@ -353,6 +698,49 @@ public final class FunctionsTest {
     }
   }
 
+  private static void awaitWaiting(@NonNull final Thread thread) {
+    while (thread.getState() != Thread.State.WAITING
+        && thread.getState() != Thread.State.TERMINATED) {
+      Thread.yield();
+    }
+  }
+
+  private static final class BlockingFirstCallFunction implements Function<String, Object> {
+    final AtomicInteger calls = new AtomicInteger();
+    final CountDownLatch entered = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+
+    @NonNull
+    @Override
+    public Object apply(@NonNull final String input) {
+      if (calls.getAndIncrement() == 0) {
+        entered.countDown();
+        try {
+          release.await();
+        } catch (final InterruptedException e) {
+          return failure(new InterruptedIOException());
+        }
+      }
+      return new Object();
+    }
+  }
+
+  private static final class ApplyFunction implements Runnable {
+    private final Function<String, Object> function;
+    private final AtomicReference<Object> output;
+
+    ApplyFunction(final Function<String, Object> function,
+        final AtomicReference<Object> output) {
+      this.function = function;
+      this.output = output;
+    }
+
+    @Override
+    public void run() {
+      output.set(function.apply(INPUT_STRING));
+    }
+  }
+
   private static final class SumOfIntegersInList implements Function<List<Integer>, Integer> {
     @NonNull
     @Override
@@ -3,6 +3,9 @@ package com.google.android.agera;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -41,6 +44,23 @@ public final class IdentityMultimapTest {
     assertThat(identityMultimap.addKeyValuePair(KEY_1, VALUE_1), is(false));
   }
 
+  @Test
+  public void shouldReturnThatSecondValueForKeyWasNotFirstForKey() {
+    identityMultimap.addKeyValuePair(KEY_1, VALUE_1);
+
+    assertThat(identityMultimap.addKeyValuePair(KEY_1, VALUE_2), is(false));
+  }
+
+  @Test
+  public void shouldKeepKeyAfterRemovalOfOneOfItsKeyValuePairs() {
+    identityMultimap.addKeyValuePair(KEY_1, VALUE_1);
+    identityMultimap.addKeyValuePair(KEY_1, VALUE_2);
+
+    identityMultimap.removeKeyValuePair(KEY_1, VALUE_2);
+
+    assertThat(identityMultimap.addKeyValuePair(KEY_1, VALUE_2), is(false));
+  }
+
   @Test
   public void shouldHandleRemovalOfAddedKeyValuePairWithoutKeyOrValue() {
     identityMultimap.addKeyValuePair(KEY_1, VALUE_1);
@@ -88,4 +108,33 @@ public final class IdentityMultimapTest {
 
     assertThat(identityMultimap.removeKey(KEY_2), is(true));
   }
+
+  @Test
+  public void shouldHandleRandomChurnOfManyKeyValuePairs() {
+    final Random random = new Random(42);
+    final Object[] values = {VALUE_1, VALUE_2, new Object()};
+    final List<Object> keys = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      keys.add(new Object());
+    }
+    final boolean[][] added = new boolean[keys.size()][values.length];
+    for (int step = 0; step < 50000; step++) {
+      final int key = random.nextInt(keys.size());
+      final int value = random.nextInt(values.length);
+      final boolean hadKey = added[key][0] || added[key][1] || added[key][2];
+      switch (random.nextInt(3)) {
+        case 0:
+          assertThat(identityMultimap.addKeyValuePair(keys.get(key), values[value]), is(!hadKey));
+          added[key][value] = true;
+          break;
+        case 1:
+          identityMultimap.removeKeyValuePair(keys.get(key), values[value]);
+          added[key][value] = false;
+          break;
+        default:
+          assertThat(identityMultimap.removeKey(keys.get(key)), is(hadKey));
+          added[key] = new boolean[values.length];
+      }
+    }
+  }
 }
@@ -16,19 +16,26 @@
 package com.google.android.agera;
 
 import static android.os.Looper.myLooper;
+import static com.google.android.agera.Conditions.all;
+import static com.google.android.agera.Conditions.cachedCondition;
 import static com.google.android.agera.Conditions.falseCondition;
 import static com.google.android.agera.Conditions.trueCondition;
 import static com.google.android.agera.Observables.compositeObservable;
 import static com.google.android.agera.Observables.conditionalObservable;
+import static com.google.android.agera.Observables.debounceObservable;
 import static com.google.android.agera.Observables.perLoopObservable;
 import static com.google.android.agera.Observables.perMillisecondObservable;
+import static com.google.android.agera.Observables.sampleObservable;
+import static com.google.android.agera.Observables.setUpdateDeliveryBudgetMillis;
+import static com.google.android.agera.Observables.throttleLatestObservable;
 import static com.google.android.agera.Observables.updateDispatcher;
 import static com.google.android.agera.Repositories.repositoryWithInitialValue;
-import static com.google.android.agera.WorkerHandler.workerHandler;
 import static com.google.android.agera.test.matchers.HasPrivateConstructor.hasPrivateConstructor;
+import static com.google.android.agera.test.matchers.UpdatableUpdated.wasNotUpdated;
 import static com.google.android.agera.test.matchers.UpdatableUpdated.wasUpdated;
 import static com.google.android.agera.test.mocks.MockUpdatable.mockUpdatable;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
@@ -45,6 +52,7 @@ import static org.robolectric.shadows.ShadowLooper.idleMainLooper;
 import static org.robolectric.shadows.ShadowLooper.runUiThreadTasksIncludingDelayedTasks;
 
 import android.support.annotation.NonNull;
+import com.google.android.agera.test.ManualScheduler;
 import com.google.android.agera.test.mocks.MockUpdatable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -64,6 +72,7 @@ import org.robolectric.util.Scheduler;
 @RunWith(RobolectricTestRunner.class)
 public final class ObservablesTest {
   private static final int FILTER_TIME = 10000;
+  private static final int UPDATE_DELIVERY_BUDGET = 5;
 
   private Observable compositeObservableOfMany;
   private Observable chainedCompositeObservableOfOne;
@@ -113,6 +122,7 @@ public final class ObservablesTest {
   public void tearDown() {
     updatable.removeFromObservables();
     secondUpdatable.removeFromObservables();
+    setUpdateDeliveryBudgetMillis(0);
   }
 
   @Test
@@ -190,6 +200,79 @@ public final class ObservablesTest {
     assertThat(updatable, not(wasUpdated()));
   }
 
+  @Test
+  public void shouldEvaluateCachedConditionOnceUntilInvalidated() {
+    final Condition condition = mock(Condition.class);
+    when(condition.applies()).thenReturn(true);
+    updatable.addToObservable(conditionalObservable(
+        cachedCondition(condition, secondUpdateDispatcher), firstUpdateDispatcher));
+
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+
+    verify(condition).applies();
+
+    secondUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+
+    verify(condition, times(2)).applies();
+    assertThat(updatable, wasUpdated());
+  }
+
+  @Test
+  public void shouldInvalidateCachedConditionBeforeEvaluatingForUpdateOfInvalidator() {
+    final Condition condition = mock(Condition.class);
+    when(condition.applies()).thenReturn(false);
+    updatable.addToObservable(conditionalObservable(
+        cachedCondition(condition, firstUpdateDispatcher), firstUpdateDispatcher));
+
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+    assertThat(updatable, wasNotUpdated());
+
+    when(condition.applies()).thenReturn(true);
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+
+    verify(condition, times(2)).applies();
+    assertThat(updatable, wasUpdated());
+  }
+
+  @Test
+  public void shouldCacheConditionNestedInCompositeCondition() {
+    final Condition condition = mock(Condition.class);
+    final Condition otherCondition = mock(Condition.class);
+    when(condition.applies()).thenReturn(true);
+    when(otherCondition.applies()).thenReturn(true);
+    updatable.addToObservable(conditionalObservable(
+        all(otherCondition, cachedCondition(condition, secondUpdateDispatcher)),
+        firstUpdateDispatcher));
+
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+    firstUpdateDispatcher.update();
+    runUiThreadTasksIncludingDelayedTasks();
+
+    verify(condition).applies();
+    verify(otherCondition, times(2)).applies();
+    assertThat(updatable, wasUpdated());
+  }
+
+  @Test
+  public void shouldEvaluateCachedConditionEveryTimeWhenNotActivated() {
+    final Condition condition = mock(Condition.class);
+    final Condition cachedCondition = cachedCondition(condition, secondUpdateDispatcher);
+
+    cachedCondition.applies();
+    cachedCondition.applies();
+
+    verify(condition, times(2)).applies();
+  }
+
   @Test
   public void shouldBeAbleToCreateEmptyObservable() {
     assertThat(compositeObservable(), notNullValue());
@@ -348,6 +431,64 @@ public final class ObservablesTest {
     assertThat(scheduler.getCurrentTime(), greaterThanOrEqualTo(expectedDelayedTime));
   }
 
+  @Test
+  public void shouldUpdateDebounceObservableOnlyAfterQuietTime() {
+    final ManualScheduler timer = new ManualScheduler();
+    updatable.addToObservable(debounceObservable(FILTER_TIME, timer, updateDispatcher));
+
+    updateDispatcher.update();
+    timer.advanceBy(FILTER_TIME / 2);
+    updateDispatcher.update();
+    timer.advanceBy(FILTER_TIME / 2);
+    assertThat(updatable, wasNotUpdated());
+
+    timer.advanceBy(FILTER_TIME / 2);
+    assertThat(updatable, wasUpdated());
+  }
+
+  @Test
+  public void shouldUpdateThrottleLatestObservableOnLeadingAndTrailingEdge() {
+    final ManualScheduler timer = new ManualScheduler();
+    updatable.addToObservable(throttleLatestObservable(FILTER_TIME, timer, updateDispatcher));
+
+    updateDispatcher.update();
+    assertThat(updatable, wasUpdated());
+    updatable.resetUpdated();
+
+    updateDispatcher.update();
+    updateDispatcher.update();
+    assertThat(updatable, wasNotUpdated());
+
+    timer.advanceBy(FILTER_TIME);
+    assertThat(updatable, wasUpdated());
+    updatable.resetUpdated();
+
+    timer.advanceBy(FILTER_TIME);
+    assertThat(updatable, wasNotUpdated());
+  }
+
+  @Test
+  public void shouldUpdateSampleObservableOncePerPeriodWithUpdates() {
+    final ManualScheduler timer = new ManualScheduler();
+    updatable.addToObservable(sampleObservable(FILTER_TIME, timer, updateDispatcher));
+
+    updateDispatcher.update();
+    updateDispatcher.update();
+    assertThat(updatable, wasNotUpdated());
+
+    timer.advanceBy(FILTER_TIME);
+    assertThat(updatable, wasUpdated());
+    updatable.resetUpdated();
+
+    timer.advanceBy(FILTER_TIME);
+    assertThat(updatable, wasNotUpdated());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowForNonPositiveDebounceTime() {
+    debounceObservable(0, updateDispatcher);
+  }
+
   @Test
   public void shouldHandleManyObservables() {
     final int numberOfObservables = 10;
@@ -367,8 +508,91 @@ public final class ObservablesTest {
   }
 
   @Test
-  public void shouldIgnoreUnknownMessage() {
-    workerHandler().obtainMessage(-1).sendToTarget();
+  public void shouldCallBackAllUpdatablesOfAnUpdateWithSingleMessage() {
+    updatable.addToObservable(updateDispatcher);
+    secondUpdatable.addToObservable(updateDispatcher);
+
+    looper.pause();
+    updateDispatcher.update();
+    looper.runOneTask();
+    final int scheduledMessages = scheduler.size();
+    looper.unPause();
+
+    assertThat(scheduledMessages, is(1));
+    assertThat(updatable, wasUpdated());
+    assertThat(secondUpdatable, wasUpdated());
+  }
+
+  @Test
+  public void shouldCallBackRemainingUpdatablesInLaterTurnOnceUpdateDeliveryBudgetIsUsedUp() {
+    setUpdateDeliveryBudgetMillis(UPDATE_DELIVERY_BUDGET);
+    final List<Updatable> updated = new ArrayList<>();
+    final Updatable firstSlowUpdatable = slowUpdatable(updated);
+    final Updatable secondSlowUpdatable = slowUpdatable(updated);
+    updateDispatcher.addUpdatable(firstSlowUpdatable);
+    updateDispatcher.addUpdatable(secondSlowUpdatable);
+
+    looper.pause();
+    updateDispatcher.update();
+    looper.runOneTask();
+    looper.runOneTask();
+    final int updatedInFirstTurn = updated.size();
+    looper.unPause();
+
+    assertThat(updatedInFirstTurn, is(1));
+    assertThat(updated, contains(firstSlowUpdatable, secondSlowUpdatable));
+    updateDispatcher.removeUpdatable(firstSlowUpdatable);
+    updateDispatcher.removeUpdatable(secondSlowUpdatable);
+  }
+
+  @Test
+  public void shouldCallBackHigherPriorityUpdatablesFirst() {
+    final List<Updatable> updated = new ArrayList<>();
+    final Updatable lowUpdatable = prioritizedUpdatable(UpdatePriority.LOW, updated);
+    final Updatable normalUpdatable = prioritizedUpdatable(UpdatePriority.NORMAL, updated);
+    final Updatable highUpdatable = prioritizedUpdatable(UpdatePriority.HIGH, updated);
+    updateDispatcher.addUpdatable(lowUpdatable);
+    updateDispatcher.addUpdatable(normalUpdatable);
+    updateDispatcher.addUpdatable(highUpdatable);
+
+    updateDispatcher.update();
+
+    assertThat(updated, contains(highUpdatable, normalUpdatable, lowUpdatable));
+    updateDispatcher.removeUpdatable(lowUpdatable);
+    updateDispatcher.removeUpdatable(normalUpdatable);
+    updateDispatcher.removeUpdatable(highUpdatable);
+  }
+
+  @Test
+  public void shouldReportUpdateWaitTimePerPriority() {
+    final List<Updatable> updated = new ArrayList<>();
+    final Updatable lowUpdatable = prioritizedUpdatable(UpdatePriority.LOW, updated);
+    final Updatable slowHighUpdatable = new PrioritizedUpdatable() {
+      @Override
+      public int getUpdatePriority() {
+        return UpdatePriority.HIGH;
+      }
+
+      @Override
+      public void update() {
+        scheduler.advanceBy(FILTER_TIME);
+      }
+    };
+    updateDispatcher.addUpdatable(lowUpdatable);
+    updateDispatcher.addUpdatable(slowHighUpdatable);
+
+    updateDispatcher.update();
+
+    assertThat(updated, contains(lowUpdatable));
+    assertThat(Observables.getMaxUpdateWaitMillis(UpdatePriority.LOW),
+        greaterThanOrEqualTo((long) FILTER_TIME));
+    updateDispatcher.removeUpdatable(lowUpdatable);
+    updateDispatcher.removeUpdatable(slowHighUpdatable);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowIllegalArgumentExceptionForNegativeUpdateDeliveryBudget() {
+    setUpdateDeliveryBudgetMillis(-1);
   }
 
   @Test
@@ -420,6 +644,32 @@ public final class ObservablesTest {
     assertThat(Observables.class, hasPrivateConstructor());
   }
 
+  @NonNull
+  private Updatable slowUpdatable(@NonNull final List<Updatable> updated) {
+    return new Updatable() {
+      @Override
+      public void update() {
+        updated.add(this);
+        scheduler.advanceBy(UPDATE_DELIVERY_BUDGET);
+      }
+    };
+  }
+
+  private Updatable prioritizedUpdatable(@UpdatePriority final int priority,
+      @NonNull final List<Updatable> updated) {
+    return new PrioritizedUpdatable() {
+      @Override
+      public int getUpdatePriority() {
+        return priority;
+      }
+
+      @Override
+      public void update() {
+        updated.add(this);
+      }
+    };
+  }
+
   private boolean throwsIllegalStateExceptionForCallOnNonLooperThread(
       @NonNull final Runnable runnable) {
     final AtomicBoolean gotException = new AtomicBoolean(false);
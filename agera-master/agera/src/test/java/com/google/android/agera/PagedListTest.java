@@ -0,0 +1,245 @@
+/*
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.PagedList.pagedList;
+import static com.google.android.agera.Result.failure;
+import static com.google.android.agera.Result.success;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.PagedList.PageSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+public final class PagedListTest {
+  private static final int SIZE = 10;
+  private static final int PAGE_SIZE = 3;
+  private static final int MAX_LOADED_PAGES = 2;
+  private static final int PLACEHOLDER = -1;
+
+  @Mock
+  private Updatable updatable;
+  private CountingPageSource source;
+  private PagedList<Integer> list;
+
+  @Before
+  public void setUp() {
+    initMocks(this);
+    source = new CountingPageSource();
+    list = pagedList(SIZE, source, PAGE_SIZE, MAX_LOADED_PAGES, PLACEHOLDER);
+  }
+
+  @Test
+  public void shouldNotLoadAnyPageOnCreation() {
+    assertThat(list.size(), is(SIZE));
+    assertThat(source.loads, is(0));
+    assertThat(list.loadedPageCount(), is(0));
+  }
+
+  @Test
+  public void shouldLoadOnlyThePageOfTheReadItem() {
+    assertThat(list.get(4), is(4));
+    assertThat(list.get(5), is(5));
+    assertThat(source.loads, is(1));
+    assertThat(source.lastOffset, is(3));
+    assertThat(source.lastCount, is(PAGE_SIZE));
+  }
+
+  @Test
+  public void shouldLoadShorterLastPage() {
+    assertThat(list.get(9), is(9));
+    assertThat(source.lastOffset, is(9));
+    assertThat(source.lastCount, is(1));
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyReadPage() {
+    list.get(0);
+    list.get(3);
+    list.get(0);
+    list.get(6);
+
+    assertThat(list.loadedPageCount(), is(MAX_LOADED_PAGES));
+    list.get(1);
+    assertThat(source.loads, is(3));
+    list.get(4);
+    assertThat(source.loads, is(4));
+  }
+
+  @Test
+  public void shouldIterateAllItems() {
+    assertThat(list, contains(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    assertThat(list.loadedPageCount(), is(MAX_LOADED_PAGES));
+  }
+
+  @Test
+  public void shouldBeEqualOnlyToItself() {
+    final PagedList<Integer> other =
+        pagedList(SIZE, source, PAGE_SIZE, MAX_LOADED_PAGES, PLACEHOLDER);
+
+    assertThat(list, is(list));
+    assertThat(list, is(not(other)));
+    assertThat(source.loads, is(0));
+  }
+
+  @Test
+  public void shouldNotLoadForToString() {
+    assertThat(list.toString(), is("PagedList{size=10, pageSize=3}"));
+    assertThat(source.loads, is(0));
+  }
+
+  @Test
+  public void shouldReturnPlaceholderForFailedPageAndRetryIt() {
+    final FailingPageSource failingSource = new FailingPageSource();
+    final PagedList<Integer> failingList =
+        pagedList(SIZE, failingSource, PAGE_SIZE, MAX_LOADED_PAGES, PLACEHOLDER);
+
+    assertThat(failingList.get(0), is(PLACEHOLDER));
+    assertThat(failingList.loadedPageCount(), is(0));
+    assertThat(failingList.get(1), is(PLACEHOLDER));
+    assertThat(failingSource.loads, is(2));
+  }
+
+  @Test
+  public void shouldReturnPlaceholderForItemsMissingFromShortPage() {
+    final PagedList<Integer> shortList = pagedList(SIZE, new PageSource<Integer>() {
+      @NonNull
+      @Override
+      public Result<List<Integer>> loadPage(final int offset, final int count) {
+        return success(Collections.singletonList(offset));
+      }
+    }, PAGE_SIZE, MAX_LOADED_PAGES, PLACEHOLDER);
+
+    assertThat(shortList.get(3), is(3));
+    assertThat(shortList.get(4), is(PLACEHOLDER));
+  }
+
+  @Test
+  public void shouldReturnPlaceholderUntilPageLoadedOnExecutor() {
+    final QueueingExecutor executor = new QueueingExecutor();
+    final PagedList<Integer> asyncList =
+        pagedList(SIZE, source, PAGE_SIZE, MAX_LOADED_PAGES, PLACEHOLDER, executor, updatable);
+
+    assertThat(asyncList.get(4), is(PLACEHOLDER));
+    assertThat(asyncList.get(5), is(PLACEHOLDER));
+    assertThat(executor.commands.size(), is(1));
+    assertThat(source.loads, is(0));
+
+    executor.runAll();
+
+    verify(updatable).update();
+    assertThat(asyncList.get(4), is(4));
+    assertThat(asyncList.get(5), is(5));
+    assertThat(source.loads, is(1));
+  }
+
+  @Test
+  public void shouldNotNotifyOfFailedPageLoadedOnExecutor() {
+    final QueueingExecutor executor = new QueueingExecutor();
+    final PagedList<Integer> asyncList = pagedList(SIZE, new FailingPageSource(), PAGE_SIZE,
+        MAX_LOADED_PAGES, PLACEHOLDER, executor, updatable);
+
+    asyncList.get(0);
+    executor.runAll();
+
+    verifyZeroInteractions(updatable);
+    assertThat(asyncList.get(0), is(PLACEHOLDER));
+    assertThat(executor.commands.size(), is(1));
+  }
+
+  @Test
+  public void shouldNotNotifyOfPageLoadedOnReadingThread() {
+    final PagedList<Integer> directList = pagedList(SIZE, source, PAGE_SIZE, MAX_LOADED_PAGES,
+        PLACEHOLDER, new QueueingExecutor() {
+          @Override
+          public void execute(@NonNull final Runnable command) {
+            command.run();
+          }
+        }, updatable);
+
+    assertThat(directList.get(0), is(0));
+    verifyZeroInteractions(updatable);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void shouldThrowForIndexOutOfBounds() {
+    list.get(SIZE);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldNotAllowZeroPageSize() {
+    pagedList(SIZE, source, 0, MAX_LOADED_PAGES, PLACEHOLDER);
+  }
+
+  private static class QueueingExecutor implements Executor {
+    final List<Runnable> commands = new ArrayList<>();
+
+    @Override
+    public void execute(@NonNull final Runnable command) {
+      commands.add(command);
+    }
+
+    void runAll() {
+      final List<Runnable> toRun = new ArrayList<>(commands);
+      commands.clear();
+      for (final Runnable command : toRun) {
+        command.run();
+      }
+    }
+  }
+
+  private static final class FailingPageSource implements PageSource<Integer> {
+    int loads;
+
+    @NonNull
+    @Override
+    public Result<List<Integer>> loadPage(final int offset, final int count) {
+      loads++;
+      return failure();
+    }
+  }
+
+  private static final class CountingPageSource implements PageSource<Integer> {
+    int loads;
+    int lastOffset;
+    int lastCount;
+
+    @NonNull
+    @Override
+    public Result<List<Integer>> loadPage(final int offset, final int count) {
+      loads++;
+      lastOffset = offset;
+      lastCount = count;
+      final List<Integer> items = new ArrayList<>(count);
+      for (int i = offset; i < offset + count; i++) {
+        items.add(i);
+      }
+      return success(items);
+    }
+  }
+}
@@ -17,6 +17,8 @@ package com.google.android.agera;
 
 import static com.google.android.agera.Conditions.falseCondition;
 import static com.google.android.agera.Conditions.trueCondition;
+import static com.google.android.agera.Predicates.adaptiveAll;
+import static com.google.android.agera.Predicates.adaptiveAny;
 import static com.google.android.agera.Predicates.all;
 import static com.google.android.agera.Predicates.any;
 import static com.google.android.agera.Predicates.conditionAsPredicate;
@@ -32,6 +34,8 @@ import static com.google.android.agera.test.matchers.PredicateApply.doesNotApply
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
@@ -198,6 +202,33 @@ public final class PredicatesTest {
     assertThat(all(mockPredicateTrue, falsePredicate()), sameInstance(falsePredicate()));
   }
 
+  @Test
+  public void shouldReturnFalseForAdaptiveAnyWithNoPredicates() {
+    assertThat(adaptiveAny(), sameInstance(falsePredicate()));
+  }
+
+  @Test
+  public void shouldApplyForAdaptiveAllWithTruePredicates() {
+    assertThat(adaptiveAll(mockPredicateTrue, mockPredicateTrue), appliesFor(ITEM));
+  }
+
+  @Test
+  public void shouldNotApplyForAdaptiveAnyWithFalsePredicates() {
+    assertThat(adaptiveAny(mockPredicateFalse, mockPredicateFalse), doesNotApplyFor(ITEM));
+  }
+
+  @Test
+  public void shouldApplyDecidingPredicateFirstInAdaptiveAny() {
+    final Predicate<Object> predicate = adaptiveAny(mockPredicateFalse, mockPredicateTrue);
+
+    for (int i = 0; i < 1024; i++) {
+      predicate.apply(ITEM);
+    }
+
+    verify(mockPredicateTrue, times(1024)).apply(ITEM);
+    verify(mockPredicateFalse, atMost(256)).apply(ITEM);
+  }
+
   @Test
   public void shouldHavePrivateConstructor() {
     assertThat(Predicates.class, hasPrivateConstructor());
@@ -17,6 +17,7 @@ package com.google.android.agera;
 
 import static com.google.android.agera.Mergers.staticMerger;
 import static com.google.android.agera.Observables.updateDispatcher;
+import static com.google.android.agera.Repositories.mutableDeltaRepository;
 import static com.google.android.agera.Repositories.mutableRepository;
 import static com.google.android.agera.Repositories.repository;
 import static com.google.android.agera.Repositories.repositoryWithInitialValue;
@@ -29,6 +30,7 @@ import static com.google.android.agera.test.mocks.MockUpdatable.mockUpdatable;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -40,6 +42,7 @@ import static org.robolectric.annotation.Config.NONE;
 import android.support.annotation.NonNull;
 import com.google.android.agera.test.mocks.MockUpdatable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executor;
 import org.junit.After;
@@ -166,6 +169,49 @@ public final class RepositoriesTest {
     assertThat(updatable, wasNotUpdated());
   }
 
+  @Test
+  public void shouldGetUpdateFromMutableDeltaRepositoryChangedWithDelta() {
+    final MutableDeltaRepository<List<Integer>, Integer> repository =
+        mutableDeltaRepository(LIST, 2);
+    updatable.addToObservable(repository);
+
+    repository.accept(LIST, INT_VALUE);
+
+    assertThat(updatable, wasUpdated());
+    assertThat(repository, has(LIST));
+    assertThat(repository.getVersion(), is(1L));
+  }
+
+  @Test
+  public void shouldGetDeltasBetweenVersionsFromMutableDeltaRepository() {
+    final MutableDeltaRepository<List<Integer>, Integer> repository =
+        mutableDeltaRepository(INITIAL_VALUE, 2);
+
+    repository.accept(LIST, 1);
+    repository.accept(OTHER_LIST, 2);
+    repository.accept(LIST_AND_OTHER_LIST, 3);
+
+    assertThat(repository.getVersion(), is(3L));
+    assertThat(repository.getDeltas(1, 3), is(success(asList(2, 3))));
+    assertThat(repository.getDeltas(2, 3), is(success(singletonList(3))));
+    assertThat(repository.getDeltas(3, 3), is(success(Collections.<Integer>emptyList())));
+    assertThat(repository.getDeltas(0, 3), is(Result.<List<Integer>>absent()));
+    assertThat(repository.getDeltas(1, 4), is(Result.<List<Integer>>absent()));
+  }
+
+  @Test
+  public void shouldDropDeltasFromMutableDeltaRepositoryChangedWithoutDelta() {
+    final MutableDeltaRepository<List<Integer>, Integer> repository =
+        mutableDeltaRepository(INITIAL_VALUE, 2);
+    repository.accept(LIST, 1);
+
+    repository.accept(OTHER_LIST);
+    repository.accept(LIST_AND_OTHER_LIST, 3);
+
+    assertThat(repository.getDeltas(1, 3), is(Result.<List<Integer>>absent()));
+    assertThat(repository.getDeltas(2, 3), is(success(singletonList(3))));
+  }
+
   @Test
   public void shouldGetUpdateFromRepositoryChangedToNewValue() {
     final Repository<List<Integer>> repository = repositoryWithInitialValue(INITIAL_VALUE)
@@ -15,19 +15,29 @@
  */
 package com.google.android.agera;
 
+import static com.google.android.agera.Functions.staticFunction;
 import static com.google.android.agera.Mergers.staticMerger;
 import static com.google.android.agera.Observables.updateDispatcher;
+import static com.google.android.agera.Predicates.falsePredicate;
 import static com.google.android.agera.Repositories.repositoryWithInitialValue;
 import static com.google.android.agera.RepositoryConfig.CANCEL_FLOW;
 import static com.google.android.agera.RepositoryConfig.RESET_TO_INITIAL_VALUE;
 import static com.google.android.agera.RepositoryConfig.SEND_INTERRUPT;
+import static com.google.android.agera.Schedulers.virtualThreadPerTaskExecutor;
+import static com.google.android.agera.Suppliers.staticSupplier;
 import static com.google.android.agera.test.matchers.SupplierGives.has;
 import static com.google.android.agera.test.matchers.UpdatableUpdated.wasNotUpdated;
 import static com.google.android.agera.test.matchers.UpdatableUpdated.wasUpdated;
 import static com.google.android.agera.test.mocks.MockUpdatable.mockUpdatable;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.is;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -39,6 +49,8 @@ import static org.robolectric.shadows.ShadowLooper.getShadowMainLooper;
 import android.support.annotation.NonNull;
 import com.google.android.agera.test.SingleSlotDelayedExecutor;
 import com.google.android.agera.test.mocks.MockUpdatable;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
@@ -82,6 +94,20 @@ public final class RepositoryConfigTest {
     updatable.removeFromObservables();
   }
 
+  @NonNull
+  private Function<Object, Object> cancellingFunction() {
+    return new Function<Object, Object>() {
+      @NonNull
+      @Override
+      public Object apply(@NonNull final Object input) {
+        // Sneak in a deactivation here to test cancellation mid-flow.
+        updatable.removeFromObservables();
+        looper.runToEndOfTasks();
+        return input;
+      }
+    };
+  }
+
   private void retriggerUpdate() {
     updatable.resetUpdated();
     updateDispatcher.update();
@@ -199,13 +225,54 @@ public final class RepositoryConfigTest {
 
   @Test
   public void shouldCancelFlowMidFlow() throws Exception {
-    final Function<Object, Object> cancellingFunction = new Function<Object, Object>() {
+    final Repository<Object> repository = repositoryWithInitialValue(INITIAL_VALUE)
+        .observe(updateDispatcher)
+        .onUpdatesPerLoop()
+        .goTo(delayedExecutor)
+        .transform(cancellingFunction())
+        .thenGetFrom(mockSupplier)
+        .onDeactivation(CANCEL_FLOW)
+        .checkCancellationPerDirective()
+        .compile();
+
+    updatable.addToObservable(repository);
+    delayedExecutor.resumeOrThrow();
+    assertThat(repository, has(INITIAL_VALUE));
+    verifyZeroInteractions(mockSupplier);
+  }
+
+  @Test
+  public void shouldCancelFlowAfterFusedDirectives() throws Exception {
+    final Repository<Object> repository = repositoryWithInitialValue(INITIAL_VALUE)
+        .observe(updateDispatcher)
+        .onUpdatesPerLoop()
+        .goTo(delayedExecutor)
+        .transform(cancellingFunction())
+        .thenGetFrom(mockSupplier)
+        .onDeactivation(CANCEL_FLOW)
+        .compile();
+
+    updatable.addToObservable(repository);
+    delayedExecutor.resumeOrThrow();
+    assertThat(repository, has(INITIAL_VALUE));
+    verify(mockSupplier).get();
+  }
+
+  @Test
+  public void shouldCancelFlowAtGoToAndRestart() throws Exception {
+    final SingleSlotDelayedExecutor secondDelayedExecutor = new SingleSlotDelayedExecutor();
+    final Function<Object, Object> updatingFunction = new Function<Object, Object>() {
+      private boolean updated;
+
       @NonNull
       @Override
       public Object apply(@NonNull Object input) {
-        // Sneak in a deactivation here to test cancellation mid-flow.
-        updatable.removeFromObservables();
-        looper.runToEndOfTasks();
+        if (!updated) {
+          // Sneak in a concurrent update here to cancel the flow at the next goTo directive.
+          updated = true;
+          updateDispatcher.update();
+          looper.runToEndOfTasks();
+        }
         return input;
       }
     };
@@ -213,7 +280,31 @@ public final class RepositoryConfigTest {
         .observe(updateDispatcher)
         .onUpdatesPerLoop()
         .goTo(delayedExecutor)
-        .transform(cancellingFunction)
+        .transform(updatingFunction)
+        .goTo(secondDelayedExecutor)
+        .thenGetFrom(mockSupplier)
+        .onConcurrentUpdate(CANCEL_FLOW)
+        .compile();
+
+    updatable.addToObservable(repository);
+    delayedExecutor.resumeOrThrow();
+    assertThat(secondDelayedExecutor.hasRunnable(), is(false));
+    looper.runToEndOfTasks();
+
+    delayedExecutor.resumeOrThrow(); // this asserts the flow restarted for the concurrent update
+    secondDelayedExecutor.resumeOrThrow();
+    assertThat(updatable, wasUpdated());
+    assertThat(repository, has(UPDATED_VALUE));
+  }
+
+  @Test
+  public void shouldCancelFlowEndedByFusedCheck() throws Exception {
+    final Repository<Object> repository = repositoryWithInitialValue(INITIAL_VALUE)
+        .observe(updateDispatcher)
+        .onUpdatesPerLoop()
+        .goTo(delayedExecutor)
+        .transform(cancellingFunction())
+        .check(falsePredicate()).orEnd(staticFunction(UNEXPECTED_VALUE))
         .thenGetFrom(mockSupplier)
         .onDeactivation(CANCEL_FLOW)
         .compile();
@@ -222,6 +313,10 @@ public final class RepositoryConfigTest {
     delayedExecutor.resumeOrThrow();
     assertThat(repository, has(INITIAL_VALUE));
     verifyZeroInteractions(mockSupplier);
+
+    looper.runToEndOfTasks();
+    updatable.addToObservable(repository);
+    assertThat(delayedExecutor.hasRunnable(), is(true)); // this asserts the cancellation ended
   }
 
   @Test
@@ -259,6 +354,75 @@ public final class RepositoryConfigTest {
     assertThat(repository, has(INITIAL_VALUE));
   }
 
+  @Test
+  public void shouldInterruptMergeInAllSuppliersAndDiscardValuesOnDeactivate() throws Exception {
+    final BlockingQueue<Object> discardedValues = new LinkedBlockingQueue<>();
+    final Repository<Object> repository = repositoryWithInitialValue(INITIAL_VALUE)
+        .observe(updateDispatcher)
+        .onUpdatesPerLoop()
+        .goTo(newSingleThreadExecutor()) // need background thread to wait for the suppliers
+        .mergeInAll(newCachedThreadPool(), asList(staticSupplier(ANOTHER_VALUE), monitoredSupplier),
+            staticMerger(UPDATED_VALUE))
+        .thenGetFrom(mockSupplier)
+        .onDeactivation(SEND_INTERRUPT)
+        .sendDiscardedValuesTo(new Receiver<Object>() {
+          @Override
+          public void accept(@NonNull final Object value) {
+            discardedValues.add(value);
+          }
+        })
+        .compile();
+
+    updatable.addToObservable(repository);
+    monitoredSupplier.waitForGetToStart();
+    updatable.removeFromObservables();
+    looper.runToEndOfTasks();
+    monitoredSupplier.waitForGetToEnd();
+    assertThat(monitoredSupplier.wasInterrupted(), is(true));
+    assertThat(asList(discardedValues.poll(20, SECONDS), discardedValues.poll(20, SECONDS)),
+        containsInAnyOrder(ANOTHER_VALUE, UNEXPECTED_VALUE));
+    assertThat(repository, has(INITIAL_VALUE));
+    verifyZeroInteractions(mockSupplier);
+  }
+
+  @Test
+  public void shouldInterruptVirtualThreadOnDeactivate() throws Exception {
+    assumeTrue(virtualThreadsSupported());
+    final Repository<Object> repository = repositoryWithInitialValue(INITIAL_VALUE)
+        .observe(updateDispatcher)
+        .onUpdatesPerLoop()
+        .goToVirtualThread()
+        .thenGetFrom(monitoredSupplier)
+        .onDeactivation(SEND_INTERRUPT)
+        .compile();
+
+    updatable.addToObservable(repository);
+    monitoredSupplier.waitForGetToStart();
+    updatable.removeFromObservables();
+    looper.runToEndOfTasks();
+    monitoredSupplier.waitForGetToEnd();
+    assertThat(monitoredSupplier.wasInterrupted(), is(true));
+    assertThat(repository, has(INITIAL_VALUE));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void shouldThrowUnsupportedOperationExceptionForGoToVirtualThreadWithoutVirtualThreads() {
+    assumeFalse(virtualThreadsSupported());
+    repositoryWithInitialValue(INITIAL_VALUE)
+        .observe(updateDispatcher)
+        .onUpdatesPerLoop()
+        .goToVirtualThread();
+  }
+
+  private static boolean virtualThreadsSupported() {
+    try {
+      virtualThreadPerTaskExecutor();
+      return true;
+    } catch (final UnsupportedOperationException e) {
+      return false;
+    }
+  }
+
   @Ignore("Interrupt test flaky on CI server ")
   @Test
   public void shouldInterruptOnConcurrentUpdate() throws Exception {
@@ -165,4 +165,39 @@ public final class RepositoryTerminationTest {
 
     assertThat(repository, has(VALUE));
   }
+
+  @Test
+  public void shouldGetAllValuesOfReservoirInOneFlowRun() {
+    final BatchReservoir<Integer> reservoir = Reservoirs.batchReservoir();
+    reservoir.accept(4);
+    reservoir.accept(5);
+
+    final Repository<List<Integer>> repository = repositoryWithInitialValue(INITIAL_LIST)
+        .observe(reservoir)
+        .onUpdatesPerLoop()
+        .attemptGetAllFrom(reservoir, 10).orSkip()
+        .thenTransform(Functions.<List<Integer>>identityFunction())
+        .compile();
+
+    updatable.addToObservable(repository);
+
+    assertThat(repository, has(LIST));
+  }
+
+  @Test
+  public void shouldSkipWhenAttemptGetAllFromEmptyReservoir() {
+    final BatchReservoir<Integer> reservoir = Reservoirs.batchReservoir();
+
+    final Repository<List<Integer>> repository = repositoryWithInitialValue(INITIAL_LIST)
+        .observe()
+        .onUpdatesPerLoop()
+        .attemptGetAllFrom(reservoir, 10).orSkip()
+        .thenTransform(Functions.<List<Integer>>identityFunction())
+        .compile();
+
+    updatable.addToObservable(repository);
+
+    assertThat(repository, has(INITIAL_LIST));
+    assertThat(updatable, wasNotUpdated());
+  }
 }
@@ -15,8 +15,14 @@
  */
 package com.google.android.agera;
 
+import static com.google.android.agera.Reservoirs.batchReservoir;
+import static com.google.android.agera.Reservoirs.blockingReservoir;
+import static com.google.android.agera.Reservoirs.coalescingReservoir;
+import static com.google.android.agera.Reservoirs.droppingNewestReservoir;
+import static com.google.android.agera.Reservoirs.droppingOldestReservoir;
 import static com.google.android.agera.Reservoirs.reservoir;
 import static com.google.android.agera.Reservoirs.reservoirOf;
+import static com.google.android.agera.Reservoirs.ringReservoir;
 import static com.google.android.agera.test.matchers.HasPrivateConstructor.hasPrivateConstructor;
 import static com.google.android.agera.test.matchers.ReservoirGives.givesAbsentValueOf;
 import static com.google.android.agera.test.matchers.ReservoirGives.givesPresentValue;
@@ -24,6 +30,8 @@ import static com.google.android.agera.test.matchers.UpdatableUpdated.wasNotUpda
 import static com.google.android.agera.test.matchers.UpdatableUpdated.wasUpdated;
 import static com.google.android.agera.test.mocks.MockUpdatable.mockUpdatable;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
 import static org.robolectric.Robolectric.flushForegroundThreadScheduler;
 import static org.robolectric.annotation.Config.NONE;
 
@@ -31,9 +39,11 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import com.google.android.agera.test.mocks.MockUpdatable;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Queue;
 import java.util.Set;
 import org.junit.After;
@@ -190,6 +200,258 @@ public final class ReservoirsTest {
     assertThat(updatable, wasNotUpdated());
   }
 
+  @Test
+  public void shouldDropOldestValueFromFullDroppingOldestReservoir() throws Exception {
+    final BoundedReservoir<Integer> reservoir = droppingOldestReservoir(2);
+
+    give(reservoir, 1);
+    give(reservoir, 2);
+    give(reservoir, 3);
+
+    assertThat(reservoir.size(), is(2));
+    assertThat(reservoir, givesPresentValue(2));
+    assertThat(reservoir, givesPresentValue(3));
+    assertThat(reservoir, givesAbsentValueOf(Integer.class));
+  }
+
+  @Test
+  public void shouldDropNewestValueFromFullDroppingNewestReservoir() throws Exception {
+    final BoundedReservoir<Integer> reservoir = droppingNewestReservoir(2);
+
+    give(reservoir, 1);
+    give(reservoir, 2);
+    give(reservoir, 3);
+
+    assertThat(reservoir, givesPresentValue(1));
+    assertThat(reservoir, givesPresentValue(2));
+    assertThat(reservoir, givesAbsentValueOf(Integer.class));
+  }
+
+  @Test
+  public void shouldBlockProducerOfFullBlockingReservoirUntilValueDequeued() throws Exception {
+    final BoundedReservoir<Integer> reservoir = blockingReservoir(1);
+    reservoir.accept(1);
+    final Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        reservoir.accept(2);
+      }
+    });
+
+    producer.start();
+    while (producer.getState() != Thread.State.WAITING) {
+      Thread.yield();
+    }
+    assertThat(reservoir.size(), is(1));
+    assertThat(retrieveFrom(reservoir), is(Result.present(1)));
+    producer.join();
+
+    assertThat(reservoir, givesPresentValue(2));
+  }
+
+  @Test
+  public void shouldReplaceEnqueuedValueOfSameKeyInCoalescingReservoir() throws Exception {
+    final BoundedReservoir<String> reservoir =
+        coalescingReservoir(2, new Function<String, Character>() {
+          @NonNull
+          @Override
+          public Character apply(@NonNull final String input) {
+            return input.charAt(0);
+          }
+        });
+
+    give(reservoir, "a1");
+    give(reservoir, "b1");
+    give(reservoir, "a2");
+    give(reservoir, "c1");
+
+    assertThat(reservoir, givesPresentValue("b1"));
+    assertThat(reservoir, givesPresentValue("c1"));
+    assertThat(reservoir, givesAbsentValueOf(String.class));
+  }
+
+  @Test
+  public void shouldDrainAllValuesOfBoundedReservoirInOrder() throws Exception {
+    final BoundedReservoir<Integer> reservoir = droppingOldestReservoir(3);
+    give(reservoir, 1);
+    give(reservoir, 2);
+    final List<Integer> list = new ArrayList<>();
+
+    assertThat(reservoir.drainTo(list), is(2));
+    assertThat(list, contains(1, 2));
+    assertThat(reservoir.size(), is(0));
+  }
+
+  @Test
+  public void shouldKeepHighWaterMarkOfBoundedReservoir() throws Exception {
+    final BoundedReservoir<Integer> reservoir = droppingNewestReservoir(3);
+    give(reservoir, 1);
+    give(reservoir, 2);
+    retrieveFrom(reservoir);
+    give(reservoir, 3);
+
+    assertThat(reservoir.getHighWaterMark(), is(2));
+  }
+
+  @Test
+  public void shouldGetUpdateOnFirstValueOfBoundedReservoir() throws Exception {
+    final BoundedReservoir<Integer> reservoir = droppingOldestReservoir(1);
+    updatable.addToObservable(reservoir);
+
+    give(reservoir, INTEGER_1);
+
+    assertThat(updatable, wasUpdated());
+  }
+
+  @Test
+  public void shouldQueueValuesInRingReservoir() throws Exception {
+    final BoundedReservoir<Integer> reservoir = ringReservoir(4);
+
+    give(reservoir, 1);
+    give(reservoir, 2);
+
+    assertThat(reservoir.size(), is(2));
+    assertThat(reservoir, givesPresentValue(1));
+    assertThat(reservoir, givesPresentValue(2));
+    assertThat(reservoir, givesAbsentValueOf(Integer.class));
+  }
+
+  @Test
+  public void shouldRoundRingReservoirCapacityUpToPowerOfTwoAndDropWhenFull() throws Exception {
+    final BoundedReservoir<Integer> reservoir = ringReservoir(3);
+
+    for (int i = 1; i <= 5; i++) {
+      give(reservoir, i);
+    }
+    final List<Integer> list = new ArrayList<>();
+    reservoir.drainTo(list);
+
+    assertThat(list, contains(1, 2, 3, 4));
+    assertThat(reservoir.getHighWaterMark(), is(4));
+  }
+
+  @Test
+  public void shouldReuseRingReservoirSlotsAfterDequeuing() throws Exception {
+    final BoundedReservoir<Integer> reservoir = ringReservoir(2);
+
+    for (int i = 0; i < 10; i++) {
+      give(reservoir, i);
+      assertThat(reservoir, givesPresentValue(i));
+    }
+    assertThat(reservoir, givesAbsentValueOf(Integer.class));
+  }
+
+  @Test
+  public void shouldGetUpdateOnlyOnFirstValueOfRingReservoir() throws Exception {
+    final BoundedReservoir<Integer> reservoir = ringReservoir(4);
+    updatable.addToObservable(reservoir);
+
+    give(reservoir, INTEGER_1);
+    assertThat(updatable, wasUpdated());
+    updatable.resetUpdated();
+    give(reservoir, INTEGER_2);
+
+    assertThat(updatable, wasNotUpdated());
+  }
+
+  @Test
+  public void shouldAcceptValuesFromConcurrentProducersInRingReservoir() throws Exception {
+    final int producerCount = 4;
+    final int valueCount = 1000;
+    final BoundedReservoir<Integer> reservoir = ringReservoir(producerCount * valueCount);
+    final Thread[] producers = new Thread[producerCount];
+    for (int p = 0; p < producerCount; p++) {
+      final int producer = p;
+      producers[p] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int i = 0; i < valueCount; i++) {
+            reservoir.accept(producer * valueCount + i);
+          }
+        }
+      });
+      producers[p].start();
+    }
+    for (final Thread producer : producers) {
+      producer.join();
+    }
+    final List<Integer> list = new ArrayList<>();
+    reservoir.drainTo(list);
+
+    assertThat(list.size(), is(producerCount * valueCount));
+    final int[] lastValues = new int[producerCount];
+    for (final int value : list) {
+      final int producer = value / valueCount;
+      assertThat(value >= lastValues[producer], is(true));
+      lastValues[producer] = value;
+    }
+  }
+
+  @Test
+  public void shouldGetAllValuesUpToMaxCount() throws Exception {
+    final BatchReservoir<Integer> batchReservoir = batchReservoir();
+    give(batchReservoir, 1);
+    give(batchReservoir, 2);
+    give(batchReservoir, 3);
+
+    assertThat(batchReservoir.getAll(2).get(), contains(1, 2));
+    assertThat(batchReservoir.getAll(2).get(), contains(3));
+    assertThat(batchReservoir.getAll(2).isAbsent(), is(true));
+  }
+
+  @Test
+  public void shouldGetUpdateOnceWhenValuesRemainAfterGetAll() throws Exception {
+    final BatchReservoir<Integer> batchReservoir = batchReservoir();
+    give(batchReservoir, 1);
+    give(batchReservoir, 2);
+    give(batchReservoir, 3);
+    updatable.addToObservable(batchReservoir);
+    updatable.resetUpdated();
+
+    batchReservoir.getAll(2);
+    flushForegroundThreadScheduler();
+    assertThat(updatable, wasUpdated());
+    updatable.resetUpdated();
+
+    batchReservoir.getAll(2);
+    flushForegroundThreadScheduler();
+    assertThat(updatable, wasNotUpdated());
+  }
+
+  @Test
+  public void shouldGetAllValuesOfBoundedReservoirUpToMaxCount() throws Exception {
+    final BoundedReservoir<Integer> reservoir = droppingOldestReservoir(3);
+    give(reservoir, 1);
+    give(reservoir, 2);
+    give(reservoir, 3);
+
+    assertThat(reservoir.getAll(2).get(), contains(1, 2));
+    assertThat(reservoir.size(), is(1));
+  }
+
+  @Test
+  public void shouldGetAllValuesOfRingReservoirUpToMaxCount() throws Exception {
+    final BoundedReservoir<Integer> reservoir = ringReservoir(4);
+    give(reservoir, 1);
+    give(reservoir, 2);
+    give(reservoir, 3);
+
+    assertThat(reservoir.getAll(2).get(), contains(1, 2));
+    assertThat(reservoir.getAll(2).get(), contains(3));
+    assertThat(reservoir.getAll(2).isAbsent(), is(true));
+    assertThat(reservoir.size(), is(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowForNonPositiveMaxCount() {
+    Reservoirs.<Integer>batchReservoir().getAll(0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldThrowForNonPositiveCapacity() {
+    droppingOldestReservoir(0);
+  }
+
   @Test
   public void shouldHavePrivateConstructor() {
     assertThat(Reservoirs.class, hasPrivateConstructor());
@@ -686,6 +686,32 @@ public final class ResultTest {
     assertThat(failure(), equalTo(failure()));
   }
 
+  @Test
+  public void shouldReuseSuccessOfBoxedBoolean() {
+    assertThat(success(true), sameInstance(success(true)));
+    assertThat(success(false), sameInstance(success(false)));
+  }
+
+  @Test
+  public void shouldReuseSuccessOfSmallBoxedIntegerAndLong() {
+    assertThat(success(VALUE), sameInstance(SUCCESS_WITH_VALUE));
+    assertThat(success(-1L), sameInstance(success(-1L)));
+  }
+
+  @Test
+  public void shouldNotReuseSuccessOfLargeLong() {
+    assertThat(success(1000L), not(sameInstance(success(1000L))));
+    assertThat(success(1000L), equalTo(success(1000L)));
+  }
+
+  @Test
+  public void shouldReturnSameSuccessForMapToSameValue() {
+    final Result<String> success = success(STRING_VALUE);
+
+    assertThat(success.ifSucceededMap(Functions.<String>identityFunction()),
+        sameInstance(success));
+  }
+
   @Test
   public void shouldVerifyEqualsForResult() {
     EqualsVerifier.forClass(Result.class).verify();
@@ -0,0 +1,277 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Observables.updateDispatcher;
+import static com.google.android.agera.Repositories.repositoryWithInitialValue;
+import static com.google.android.agera.Schedulers.currentScheduler;
+import static com.google.android.agera.Schedulers.setCurrentScheduler;
+import static com.google.android.agera.Schedulers.singleThreadScheduler;
+import static com.google.android.agera.Schedulers.virtualThreadScheduler;
+import static com.google.android.agera.test.matchers.HasPrivateConstructor.hasPrivateConstructor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assume.assumeNoException;
+import static org.robolectric.annotation.Config.NONE;
+
+import android.support.annotation.NonNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = NONE)
+@RunWith(RobolectricTestRunner.class)
+public final class SchedulersTest {
+  private static final int VALUE = 42;
+
+  private Scheduler scheduler;
+
+  @Before
+  public void setUp() {
+    scheduler = singleThreadScheduler();
+  }
+
+  @Test
+  public void shouldReturnSchedulerOfLooperThread() {
+    final Scheduler looperScheduler = currentScheduler();
+
+    assertThat(looperScheduler, is(notNullValue()));
+    assertThat(looperScheduler.isSchedulerThread(), is(true));
+  }
+
+  @Test
+  public void shouldReturnNoSchedulerForPlainThread() throws Exception {
+    final AtomicReference<Scheduler> plainThreadScheduler = new AtomicReference<>(scheduler);
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        plainThreadScheduler.set(currentScheduler());
+      }
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(plainThreadScheduler.get(), is(nullValue()));
+  }
+
+  @Test
+  public void shouldReturnSingleThreadSchedulerOnItsThread() throws Exception {
+    assertThat(callOn(scheduler, new Callable<Scheduler>() {
+      @Override
+      public Scheduler call() {
+        return currentScheduler();
+      }
+    }), is(sameInstance(scheduler)));
+  }
+
+  @Test
+  public void shouldNotBeSchedulerThreadForOtherThread() {
+    assertThat(scheduler.isSchedulerThread(), is(false));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotAllowSettingSchedulerOfOtherThread() {
+    setCurrentScheduler(scheduler);
+  }
+
+  @Test
+  public void shouldRunTasksInOrder() throws Exception {
+    final List<Integer> ranTasks = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      scheduler.execute(addTask(ranTasks, i));
+    }
+
+    assertThat(callOn(scheduler, copyOf(ranTasks)), contains(0, 1, 2));
+  }
+
+  @Test
+  public void shouldRunDelayedTaskAfterDelay() throws Exception {
+    final List<Integer> ranTasks = new ArrayList<>();
+    final CountDownLatch latch = new CountDownLatch(1);
+    scheduler.executeDelayed(addTask(ranTasks, 1), 50);
+    scheduler.executeDelayed(new Runnable() {
+      @Override
+      public void run() {
+        latch.countDown();
+      }
+    }, 100);
+    scheduler.execute(addTask(ranTasks, 0));
+
+    assertThat(latch.await(5, SECONDS), is(true));
+    assertThat(callOn(scheduler, copyOf(ranTasks)), contains(0, 1));
+  }
+
+  @Test
+  public void shouldKeepRunningTasksAfterTaskThrows() throws Exception {
+    final AtomicReference<Throwable> uncaughtException = new AtomicReference<>();
+    final Scheduler reportingScheduler = singleThreadScheduler(new ThreadFactory() {
+      @Override
+      public Thread newThread(@NonNull final Runnable runnable) {
+        final Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+          @Override
+          public void uncaughtException(final Thread thread, final Throwable e) {
+            uncaughtException.set(e);
+          }
+        });
+        return thread;
+      }
+    });
+    final RuntimeException exception = new RuntimeException();
+    reportingScheduler.execute(new Runnable() {
+      @Override
+      public void run() {
+        throw exception;
+      }
+    });
+
+    assertThat(callOn(reportingScheduler, new Callable<Integer>() {
+      @Override
+      public Integer call() {
+        return VALUE;
+      }
+    }), is(VALUE));
+    assertThat(uncaughtException.get(), is(sameInstance((Throwable) exception)));
+  }
+
+  @Test
+  public void shouldCallUpdatableOnSchedulerThreadItWasAddedFrom() throws Exception {
+    final CountDownLatch updated = new CountDownLatch(1);
+    final AtomicReference<Thread> updatedThread = new AtomicReference<>();
+    final Thread schedulerThread = callOn(scheduler, new Callable<Thread>() {
+      @Override
+      public Thread call() {
+        return Thread.currentThread();
+      }
+    });
+    final UpdateDispatcher dispatcher = callOn(scheduler, new Callable<UpdateDispatcher>() {
+      @Override
+      public UpdateDispatcher call() {
+        final UpdateDispatcher dispatcher = updateDispatcher();
+        dispatcher.addUpdatable(new Updatable() {
+          @Override
+          public void update() {
+            updatedThread.set(Thread.currentThread());
+            updated.countDown();
+          }
+        });
+        return dispatcher;
+      }
+    });
+
+    dispatcher.update();
+
+    assertThat(updated.await(5, SECONDS), is(true));
+    assertThat(updatedThread.get(), is(sameInstance(schedulerThread)));
+  }
+
+  @Test
+  public void shouldRunRepositoryOnSingleThreadScheduler() throws Exception {
+    final CountDownLatch updated = new CountDownLatch(1);
+    final Repository<Integer> repository = callOn(scheduler, new Callable<Repository<Integer>>() {
+      @Override
+      public Repository<Integer> call() {
+        final Repository<Integer> repository = repositoryWithInitialValue(0)
+            .observe()
+            .onUpdatesPerLoop()
+            .thenGetFrom(new Supplier<Integer>() {
+              @NonNull
+              @Override
+              public Integer get() {
+                return VALUE;
+              }
+            })
+            .compile();
+        repository.addUpdatable(new Updatable() {
+          @Override
+          public void update() {
+            updated.countDown();
+          }
+        });
+        return repository;
+      }
+    });
+
+    assertThat(updated.await(5, SECONDS), is(true));
+    assertThat(repository.get(), is(VALUE));
+  }
+
+  @Test
+  public void shouldRunTasksOnVirtualThreadSchedulerWhereSupported() throws Exception {
+    final Scheduler virtualScheduler;
+    try {
+      virtualScheduler = virtualThreadScheduler();
+    } catch (final UnsupportedOperationException e) {
+      assumeNoException(e);
+      return;
+    }
+
+    assertThat(callOn(virtualScheduler, new Callable<Scheduler>() {
+      @Override
+      public Scheduler call() {
+        return currentScheduler();
+      }
+    }), is(sameInstance(virtualScheduler)));
+  }
+
+  @Test
+  public void shouldHavePrivateConstructor() {
+    assertThat(Schedulers.class, hasPrivateConstructor());
+  }
+
+  @NonNull
+  private static <T> T callOn(@NonNull final Scheduler scheduler,
+      @NonNull final Callable<T> callable) throws Exception {
+    final FutureTask<T> task = new FutureTask<>(callable);
+    scheduler.execute(task);
+    return task.get(5, SECONDS);
+  }
+
+  @NonNull
+  private static Runnable addTask(@NonNull final List<Integer> ranTasks, final int task) {
+    return new Runnable() {
+      @Override
+      public void run() {
+        ranTasks.add(task);
+      }
+    };
+  }
+
+  @NonNull
+  private static Callable<List<Integer>> copyOf(@NonNull final List<Integer> ranTasks) {
+    return new Callable<List<Integer>>() {
+      @Override
+      public List<Integer> call() {
+        return new ArrayList<>(ranTasks);
+      }
+    };
+  }
+}
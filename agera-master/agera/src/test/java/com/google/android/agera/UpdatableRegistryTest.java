@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.WorkerHandler.workerHandler;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.robolectric.annotation.Config.NONE;
+
+import com.google.android.agera.UpdatableRegistry.Registration;
+import com.google.android.agera.test.mocks.MockUpdatable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@Config(manifest = NONE)
+@RunWith(RobolectricTestRunner.class)
+public final class UpdatableRegistryTest {
+  private UpdatableRegistry registry;
+  private WorkerHandler handler;
+
+  @Before
+  public void setUp() {
+    registry = new UpdatableRegistry();
+    handler = workerHandler();
+  }
+
+  @Test
+  public void shouldAddUpdatable() {
+    final Updatable updatable = MockUpdatable.mockUpdatable();
+
+    final Registration registration = registry.add(updatable, handler);
+
+    assertThat(registration.updatable, sameInstance(updatable));
+    assertThat(registration.handler, sameInstance(handler));
+    assertThat(registry.size(), is(1));
+    assertThat(registry.toArray(), is(arrayContaining(registration)));
+  }
+
+  @Test
+  public void shouldNotAddUpdatableTwice() {
+    final Updatable updatable = MockUpdatable.mockUpdatable();
+    registry.add(updatable, handler);
+
+    assertThat(registry.add(updatable, handler), is(nullValue()));
+    assertThat(registry.size(), is(1));
+  }
+
+  @Test
+  public void shouldReturnRegistrationOfRemovedUpdatable() {
+    final Updatable updatable = MockUpdatable.mockUpdatable();
+    final Registration registration = registry.add(updatable, handler);
+
+    assertThat(registry.remove(updatable), sameInstance(registration));
+    assertThat(registry.size(), is(0));
+  }
+
+  @Test
+  public void shouldReturnNullForRemovalOfNotAddedUpdatable() {
+    registry.add(MockUpdatable.mockUpdatable(), handler);
+
+    assertThat(registry.remove(MockUpdatable.mockUpdatable()), is(nullValue()));
+    assertThat(registry.size(), is(1));
+  }
+
+  @Test
+  public void shouldNotChangeSnapshotOnLaterRemoval() {
+    final Updatable first = MockUpdatable.mockUpdatable();
+    final Updatable second = MockUpdatable.mockUpdatable();
+    final Registration firstRegistration = registry.add(first, handler);
+    final Registration secondRegistration = registry.add(second, handler);
+    final Registration[] snapshot = registry.toArray();
+
+    registry.remove(first);
+
+    assertThat(snapshot, is(arrayContaining(firstRegistration, secondRegistration)));
+    assertThat(registry.toArray(), is(arrayContaining(secondRegistration)));
+  }
+
+  @Test
+  public void shouldKeepRemainingUpdatablesAfterRemovalFromMiddle() {
+    final Updatable first = MockUpdatable.mockUpdatable();
+    final Updatable second = MockUpdatable.mockUpdatable();
+    final Updatable third = MockUpdatable.mockUpdatable();
+    registry.add(first, handler);
+    registry.add(second, handler);
+    registry.add(third, handler);
+
+    registry.remove(second);
+
+    assertThat(registeredUpdatables(), containsInAnyOrder(first, third));
+  }
+
+  @Test
+  public void shouldHandleRandomChurnOfManyUpdatables() {
+    final Random random = new Random(42);
+    final List<Updatable> added = new ArrayList<>();
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 500; i++) {
+        final Updatable updatable = MockUpdatable.mockUpdatable();
+        added.add(updatable);
+        assertThat(registry.add(updatable, handler), is(notNullValue()));
+      }
+      Collections.shuffle(added, random);
+      final int toRemove = round < 4 ? 400 : added.size();
+      for (int i = 0; i < toRemove; i++) {
+        final Updatable updatable = added.remove(added.size() - 1);
+        assertThat(registry.remove(updatable).updatable, sameInstance(updatable));
+      }
+      assertThat(registry.size(), is(added.size()));
+      assertThat(registeredUpdatables(), containsInAnyOrder(added.toArray()));
+    }
+    assertThat(registry.size(), is(0));
+  }
+
+  private List<Updatable> registeredUpdatables() {
+    final List<Updatable> updatables = new ArrayList<>();
+    for (final Registration registration : registry.toArray()) {
+      updatables.add(registration.updatable);
+    }
+    return updatables;
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2015 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera.test;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.Scheduler;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link Scheduler} whose clock only moves on {@link #advanceBy}, which runs the tasks that have
+ * become due on the calling thread.
+ */
+public final class ManualScheduler implements Scheduler {
+  @NonNull
+  private final List<Runnable> tasks = new ArrayList<>();
+  @NonNull
+  private final List<Long> dueTimes = new ArrayList<>();
+  private long uptimeMillis;
+
+  @Override
+  public void execute(@NonNull final Runnable task) {
+    executeDelayed(task, 0);
+  }
+
+  @Override
+  public void executeDelayed(@NonNull final Runnable task, final long delayMillis) {
+    tasks.add(task);
+    dueTimes.add(uptimeMillis + delayMillis);
+  }
+
+  @Override
+  public boolean isSchedulerThread() {
+    return true;
+  }
+
+  @Override
+  public long uptimeMillis() {
+    return uptimeMillis;
+  }
+
+  public void advanceBy(final long millis) {
+    final long targetMillis = uptimeMillis + millis;
+    while (true) {
+      int next = -1;
+      for (int i = 0; i < tasks.size(); i++) {
+        if (dueTimes.get(i) <= targetMillis
+            && (next == -1 || dueTimes.get(i) < dueTimes.get(next))) {
+          next = i;
+        }
+      }
+      if (next == -1) {
+        break;
+      }
+      uptimeMillis = Math.max(uptimeMillis, dueTimes.remove(next));
+      tasks.remove(next).run();
+    }
+    uptimeMillis = targetMillis;
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.support.annotation.NonNull;
+import java.util.Arrays;
+
+/**
+ * The array backed {@link IdentityMultimap} that preceded the open-addressing table, scanning all
+ * pairs on every operation. Kept as the baseline of {@link IdentityMultimapBenchmark}.
+ */
+final class ArrayIdentityMultimap<K, V> {
+  @NonNull
+  private static final Object[] NO_KEY_VALUES = new Object[0];
+
+  @NonNull
+  private Object[] keysValues = NO_KEY_VALUES;
+
+  synchronized boolean addKeyValuePair(@NonNull final K key, @NonNull final V value) {
+    int size = 0;
+    int indexToAdd = -1;
+    boolean hasValue = false;
+    for (int index = 0; index < keysValues.length; index += 2) {
+      final Object keysValue = keysValues[index];
+      if (keysValue == null) {
+        indexToAdd = index;
+      }
+      if (keysValue == key) {
+        size++;
+        if (keysValues[index + 1] == value) {
+          indexToAdd = index;
+          hasValue = true;
+        }
+      }
+    }
+    if (indexToAdd == -1) {
+      indexToAdd = keysValues.length;
+      keysValues = Arrays.copyOf(keysValues, indexToAdd < 2 ? 2 : indexToAdd * 2);
+    }
+    if (!hasValue) {
+      keysValues[indexToAdd] = key;
+      keysValues[indexToAdd + 1] = value;
+    }
+    return size == 0;
+  }
+
+  synchronized void removeKeyValuePair(@NonNull final K key, @NonNull final V value) {
+    for (int index = 0; index < keysValues.length; index += 2) {
+      if (keysValues[index] == key && keysValues[index + 1] == value) {
+        keysValues[index] = null;
+        keysValues[index + 1] = null;
+      }
+    }
+  }
+
+  synchronized boolean removeKey(@NonNull final K key) {
+    boolean removed = false;
+    for (int index = 0; index < keysValues.length; index += 2) {
+      if (keysValues[index] == key) {
+        keysValues[index] = null;
+        keysValues[index + 1] = null;
+        removed = true;
+      }
+    }
+    return removed;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+/**
+ * Shared fixtures for the benchmarks.
+ */
+final class Benchmarks {
+
+  /**
+   * Returns the fake {@link Looper} of the calling benchmark thread, preparing it if necessary.
+   */
+  @NonNull
+  static Looper looper() {
+    if (Looper.myLooper() == null) {
+      Looper.prepare();
+    }
+    return Looper.myLooper();
+  }
+
+  /**
+   * An {@link Updatable} that counts its updates.
+   */
+  static final class CountingUpdatable implements Updatable {
+    int updates;
+
+    @Override
+    public void update() {
+      updates++;
+    }
+  }
+
+  /**
+   * A {@link Supplier} that returns an increasing number on each call.
+   */
+  static final class CountingSupplier implements Supplier<Integer> {
+    private int count;
+
+    @NonNull
+    @Override
+    public Integer get() {
+      return count++;
+    }
+  }
+
+  /**
+   * A {@link Function} that adds one to its input.
+   */
+  static final class Increment implements Function<Integer, Integer> {
+    @NonNull
+    @Override
+    public Integer apply(@NonNull final Integer input) {
+      return input + 1;
+    }
+  }
+
+  private Benchmarks() {}
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Functions.functionFromListOf;
+import static com.google.android.agera.Functions.functionFromLongList;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.PrimitiveOperators.LongOperator;
+import com.google.android.agera.PrimitiveOperators.LongPredicate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures list pipelines compiled with {@link Functions#functionFromListOf}, and a numeric
+ * pipeline on boxed {@link Long}s against its {@link Functions#functionFromLongList} counterpart.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FunctionCompilerBenchmark {
+  private static final int LIMIT = 20;
+  private static final Predicate<Integer> EVEN = new Predicate<Integer>() {
+    @Override
+    public boolean apply(@NonNull final Integer value) {
+      return value % 2 == 0;
+    }
+  };
+  private static final Function<Integer, String> TO_STRING = new Function<Integer, String>() {
+    @NonNull
+    @Override
+    public String apply(@NonNull final Integer input) {
+      return input.toString();
+    }
+  };
+  private static final Comparator<String> DESCENDING_LENGTH = new Comparator<String>() {
+    @Override
+    public int compare(final String first, final String second) {
+      return second.length() - first.length();
+    }
+  };
+
+  private static final Predicate<Long> EVEN_LONG = new Predicate<Long>() {
+    @Override
+    public boolean apply(@NonNull final Long value) {
+      return value % 2 == 0;
+    }
+  };
+  private static final Function<Long, Long> TIMES_THOUSAND = new Function<Long, Long>() {
+    @NonNull
+    @Override
+    public Long apply(@NonNull final Long input) {
+      return input * 1000;
+    }
+  };
+  private static final Comparator<Long> NATURAL_LONG = new Comparator<Long>() {
+    @Override
+    public int compare(final Long first, final Long second) {
+      return first.compareTo(second);
+    }
+  };
+  private static final LongPredicate EVEN_PRIMITIVE = new LongPredicate() {
+    @Override
+    public boolean apply(final long value) {
+      return value % 2 == 0;
+    }
+  };
+  private static final LongOperator TIMES_THOUSAND_PRIMITIVE = new LongOperator() {
+    @Override
+    public long apply(final long value) {
+      return value * 1000;
+    }
+  };
+
+  @Param({"100", "10000", "50000"})
+  public int listSize;
+
+  private List<Integer> input;
+  private Function<List<Integer>, List<String>> filterMap;
+  private Function<List<Integer>, List<String>> filterMapLimit;
+  private Function<List<Integer>, List<String>> filterMapSortLimit;
+  private Function<List<Integer>, List<String>> parallelFilterMapSort;
+  private List<Long> boxedLongInput;
+  private LongList longInput;
+  private Function<List<Long>, List<Long>> boxedLongFilterMapSort;
+  private Function<LongList, LongList> longFilterMapSort;
+
+  @Setup
+  public void setUp() {
+    input = new ArrayList<>(listSize);
+    for (int i = 0; i < listSize; i++) {
+      input.add(i);
+    }
+    Collections.shuffle(input, new Random(listSize));
+    filterMap = functionFromListOf(Integer.class)
+        .filter(EVEN)
+        .thenMap(TO_STRING);
+    filterMapLimit = functionFromListOf(Integer.class)
+        .filter(EVEN)
+        .map(TO_STRING)
+        .thenLimit(LIMIT);
+    filterMapSortLimit = functionFromListOf(Integer.class)
+        .filter(EVEN)
+        .map(TO_STRING)
+        .sort(DESCENDING_LENGTH)
+        .thenLimit(LIMIT);
+    parallelFilterMapSort = functionFromListOf(Integer.class)
+        .parallelFilter(EVEN)
+        .parallelMap(TO_STRING)
+        .parallelSort(DESCENDING_LENGTH)
+        .thenLimit(listSize);
+    boxedLongInput = new ArrayList<>(listSize);
+    for (final int value : input) {
+      boxedLongInput.add((long) value);
+    }
+    longInput = LongList.copyOf(boxedLongInput);
+    boxedLongFilterMapSort = functionFromListOf(Long.class)
+        .filter(EVEN_LONG)
+        .map(TIMES_THOUSAND)
+        .thenSort(NATURAL_LONG);
+    longFilterMapSort = functionFromLongList()
+        .filter(EVEN_PRIMITIVE)
+        .map(TIMES_THOUSAND_PRIMITIVE)
+        .thenSort();
+  }
+
+  @Benchmark
+  public List<String> filterMap() {
+    return filterMap.apply(input);
+  }
+
+  @Benchmark
+  public List<String> filterMapLimit() {
+    return filterMapLimit.apply(input);
+  }
+
+  @Benchmark
+  public List<String> filterMapSortLimit() {
+    return filterMapSortLimit.apply(input);
+  }
+
+  @Benchmark
+  public List<String> parallelFilterMapSort() {
+    return parallelFilterMapSort.apply(input);
+  }
+
+  @Benchmark
+  public List<Long> boxedLongFilterMapSort() {
+    return boxedLongFilterMapSort.apply(boxedLongInput);
+  }
+
+  @Benchmark
+  public LongList longFilterMapSort() {
+    return longFilterMapSort.apply(longInput);
+  }
+}
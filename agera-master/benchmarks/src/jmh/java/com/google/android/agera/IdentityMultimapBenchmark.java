@@ -0,0 +1,111 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares {@link IdentityMultimap} with the array backed {@link ArrayIdentityMultimap} it
+ * replaced, in the way {@link WorkerHandler} uses it: every key is scheduled with a token, then
+ * either delivered by removing the key or cancelled by removing the key value pair.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IdentityMultimapBenchmark {
+  private static final Object TOKEN = new Object();
+
+  @Param({"10", "100", "10000"})
+  public int keyCount;
+
+  private Object[] keys;
+  private IdentityMultimap<Object, Object> openAddressingMultimap;
+  private ArrayIdentityMultimap<Object, Object> arrayMultimap;
+
+  @Setup
+  public void setUp() {
+    keys = new Object[keyCount];
+    for (int i = 0; i < keyCount; i++) {
+      keys[i] = new Object();
+    }
+    openAddressingMultimap = new IdentityMultimap<>();
+    arrayMultimap = new ArrayIdentityMultimap<>();
+  }
+
+  @Benchmark
+  public int openAddressingScheduleAndDeliver() {
+    int delivered = 0;
+    for (final Object key : keys) {
+      openAddressingMultimap.addKeyValuePair(key, TOKEN);
+    }
+    for (final Object key : keys) {
+      if (openAddressingMultimap.removeKey(key)) {
+        delivered++;
+      }
+    }
+    return delivered;
+  }
+
+  @Benchmark
+  public int arrayScheduleAndDeliver() {
+    int delivered = 0;
+    for (final Object key : keys) {
+      arrayMultimap.addKeyValuePair(key, TOKEN);
+    }
+    for (final Object key : keys) {
+      if (arrayMultimap.removeKey(key)) {
+        delivered++;
+      }
+    }
+    return delivered;
+  }
+
+  @Benchmark
+  public int openAddressingScheduleAndCancel() {
+    int scheduled = 0;
+    for (final Object key : keys) {
+      if (openAddressingMultimap.addKeyValuePair(key, TOKEN)) {
+        scheduled++;
+      }
+    }
+    for (final Object key : keys) {
+      openAddressingMultimap.removeKeyValuePair(key, TOKEN);
+    }
+    return scheduled;
+  }
+
+  @Benchmark
+  public int arrayScheduleAndCancel() {
+    int scheduled = 0;
+    for (final Object key : keys) {
+      if (arrayMultimap.addKeyValuePair(key, TOKEN)) {
+        scheduled++;
+      }
+    }
+    for (final Object key : keys) {
+      arrayMultimap.removeKeyValuePair(key, TOKEN);
+    }
+    return scheduled;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Benchmarks.looper;
+import static com.google.android.agera.Observables.updateDispatcher;
+
+import android.os.Looper;
+import com.google.android.agera.Benchmarks.CountingUpdatable;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures {@link BaseObservable#dispatchUpdate()} through {@link WorkerHandler} to the delivery
+ * of every {@link Updatable}, and the cost of registering and unregistering updatables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ObservableFanOutBenchmark {
+  @Param({"1", "10", "100", "1000", "10000"})
+  public int updatableCount;
+
+  private Looper looper;
+  private UpdateDispatcher dispatcher;
+  private UpdateDispatcher churnDispatcher;
+  private CountingUpdatable[] updatables;
+
+  @Setup
+  public void setUp() {
+    looper = looper();
+    dispatcher = updateDispatcher();
+    churnDispatcher = updateDispatcher();
+    updatables = new CountingUpdatable[updatableCount];
+    for (int i = 0; i < updatableCount; i++) {
+      updatables[i] = new CountingUpdatable();
+      dispatcher.addUpdatable(updatables[i]);
+    }
+    looper.runPendingMessages();
+  }
+
+  @TearDown
+  public void tearDown() {
+    for (final CountingUpdatable updatable : updatables) {
+      dispatcher.removeUpdatable(updatable);
+    }
+    looper.runPendingMessages();
+  }
+
+  @Benchmark
+  public int dispatchUpdate() {
+    dispatcher.update();
+    return looper.runPendingMessages();
+  }
+
+  @Benchmark
+  public int dispatchBurstOfUpdates() {
+    for (int i = 0; i < 10; i++) {
+      dispatcher.update();
+    }
+    return looper.runPendingMessages();
+  }
+
+  @Benchmark
+  public int addAndRemoveUpdatables() {
+    for (final CountingUpdatable updatable : updatables) {
+      churnDispatcher.addUpdatable(updatable);
+    }
+    for (final CountingUpdatable updatable : updatables) {
+      churnDispatcher.removeUpdatable(updatable);
+    }
+    return looper.runPendingMessages();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Benchmarks.looper;
+import static com.google.android.agera.Repositories.mutableRepository;
+import static com.google.android.agera.Repositories.repositoryWithInitialValue;
+
+import android.os.Looper;
+import com.google.android.agera.Benchmarks.CountingUpdatable;
+import com.google.android.agera.Benchmarks.Increment;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures an update propagating through a chain of compiled repositories, each observing and
+ * getting from the previous one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryChainBenchmark {
+  @Param({"1", "10", "100"})
+  public int depth;
+
+  private Looper looper;
+  private MutableRepository<Integer> head;
+  private Repository<Integer> tail;
+  private CountingUpdatable updatable;
+  private int value;
+
+  @Setup
+  public void setUp() {
+    looper = looper();
+    head = mutableRepository(0);
+    final Increment increment = new Increment();
+    Repository<Integer> previous = head;
+    for (int i = 0; i < depth; i++) {
+      previous = repositoryWithInitialValue(0)
+          .observe(previous)
+          .onUpdatesPerLoop()
+          .getFrom(previous)
+          .thenTransform(increment)
+          .compile();
+    }
+    tail = previous;
+    updatable = new CountingUpdatable();
+    tail.addUpdatable(updatable);
+    looper.runPendingMessages();
+  }
+
+  @TearDown
+  public void tearDown() {
+    tail.removeUpdatable(updatable);
+    looper.runPendingMessages();
+  }
+
+  @Benchmark
+  public int propagateUpdate() {
+    head.accept(++value);
+    looper.runPendingMessages();
+    return tail.get();
+  }
+}
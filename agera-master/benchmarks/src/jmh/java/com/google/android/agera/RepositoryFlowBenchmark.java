@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Benchmarks.looper;
+import static com.google.android.agera.Observables.updateDispatcher;
+import static com.google.android.agera.Repositories.repositoryWithInitialValue;
+
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import com.google.android.agera.Benchmarks.CountingSupplier;
+import com.google.android.agera.Benchmarks.CountingUpdatable;
+import com.google.android.agera.Benchmarks.Increment;
+import com.google.android.agera.RepositoryCompilerStates.RConfig;
+import com.google.android.agera.RepositoryCompilerStates.RFlow;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures one {@link CompiledRepository} data processing flow over a directive list of the given
+ * length, run either on the worker looper or, after a {@code goTo()} with a synchronous executor,
+ * through the asynchronous path that checks for cancellation before every directive or run of
+ * fused directives. The flow is compiled into fused flow nodes, compiled into one flow node per
+ * directive, or run by the directive interpreter.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RepositoryFlowBenchmark {
+  private static final Executor SYNCHRONOUS_EXECUTOR = new Executor() {
+    @Override
+    public void execute(@NonNull final Runnable command) {
+      command.run();
+    }
+  };
+
+  @Param({"5", "20", "100"})
+  public int directiveCount;
+  @Param({"false", "true"})
+  public boolean asynchronous;
+  @Param({"fused", "nodes", "interpreted"})
+  public String flow;
+
+  private Looper looper;
+  private UpdateDispatcher dispatcher;
+  private Repository<Integer> repository;
+  private CountingUpdatable updatable;
+
+  @Setup
+  public void setUp() {
+    looper = looper();
+    dispatcher = updateDispatcher();
+    CompiledRepository.compileFlowNodes = !flow.equals("interpreted");
+    final Increment increment = new Increment();
+    RFlow<Integer, Integer, ?> directives = repositoryWithInitialValue(0)
+        .observe(dispatcher)
+        .onUpdatesPerLoop()
+        .getFrom(new CountingSupplier());
+    if (asynchronous) {
+      directives = directives.goTo(SYNCHRONOUS_EXECUTOR);
+    }
+    for (int i = 2; i < directiveCount; i++) {
+      directives = directives.transform(increment);
+    }
+    final RConfig<Integer> config = directives.thenTransform(increment);
+    repository = flow.equals("fused") ? config.compile()
+        : config.checkCancellationPerDirective().compile();
+    updatable = new CountingUpdatable();
+    repository.addUpdatable(updatable);
+    looper.runPendingMessages();
+  }
+
+  @TearDown
+  public void tearDown() {
+    repository.removeUpdatable(updatable);
+    looper.runPendingMessages();
+    CompiledRepository.compileFlowNodes = true;
+  }
+
+  @Benchmark
+  public int runFlow() {
+    dispatcher.update();
+    looper.runPendingMessages();
+    return repository.get();
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Benchmarks.looper;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures three producer threads enqueuing into a {@link BoundedReservoir} of 1024 values while
+ * one consumer thread dequeues from it, for the lock-based and the ring buffer reservoirs.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ReservoirBenchmark {
+  private static final Integer VALUE = 42;
+
+  @Param({"locked", "ring"})
+  public String reservoir;
+
+  private BoundedReservoir<Integer> boundedReservoir;
+
+  @Setup
+  public void setUp() {
+    looper();
+    boundedReservoir = reservoir.equals("ring") ? Reservoirs.<Integer>ringReservoir(1024)
+        : Reservoirs.<Integer>droppingNewestReservoir(1024);
+  }
+
+  @Benchmark
+  @Group("producersAndConsumer")
+  @GroupThreads(3)
+  public void accept() {
+    boundedReservoir.accept(VALUE);
+  }
+
+  @Benchmark
+  @Group("producersAndConsumer")
+  @GroupThreads(1)
+  public Result<Integer> get() {
+    return boundedReservoir.get();
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.google.android.agera;
+
+import static com.google.android.agera.Result.absentIfNull;
+import static com.google.android.agera.Result.failure;
+import static com.google.android.agera.Result.success;
+
+import android.support.annotation.NonNull;
+import com.google.android.agera.Benchmarks.Increment;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the {@link Result} factories and combinators on the success and failure paths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResultBenchmark {
+  private static final Function<Integer, Integer> INCREMENT = new Increment();
+  private static final Merger<Integer, Integer, Result<Integer>> ATTEMPT_ADD =
+      new Merger<Integer, Integer, Result<Integer>>() {
+        @NonNull
+        @Override
+        public Result<Integer> merge(@NonNull final Integer first, @NonNull final Integer second) {
+          return success(first + second);
+        }
+      };
+
+  public Integer value = 42;
+  public Long rowId = 1000000L;
+  public Result<Integer> succeeded = success(42);
+  public Result<Integer> failed = failure(new RuntimeException());
+
+  @Benchmark
+  public Result<Integer> createSuccess() {
+    return success(value);
+  }
+
+  @Benchmark
+  public Result<Long> createSuccessOfUncachedValue() {
+    return success(rowId);
+  }
+
+  @Benchmark
+  public Result<Integer> createAbsentIfNull() {
+    return absentIfNull(value);
+  }
+
+  @Benchmark
+  public Result<Integer> ifSucceededMapOnSuccess() {
+    return succeeded.ifSucceededMap(INCREMENT);
+  }
+
+  @Benchmark
+  public Result<Integer> ifSucceededMapOnFailure() {
+    return failed.ifSucceededMap(INCREMENT);
+  }
+
+  @Benchmark
+  public Result<Integer> ifSucceededAttemptMergeOnSuccess() {
+    return succeeded.ifSucceededAttemptMerge(value, ATTEMPT_ADD);
+  }
+
+  @Benchmark
+  public Integer orElseOnFailure() {
+    return failed.orElse(value);
+  }
+
+  @Benchmark
+  public List<Integer> asList() {
+    return success(value).asList();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * Plain JVM stand-in for the framework {@code Handler}, delivering to a fake {@link Looper}.
+ */
+public class Handler {
+  private final Looper looper;
+
+  public Handler() {
+    this(Looper.myLooper());
+  }
+
+  public Handler(final Looper looper) {
+    if (looper == null) {
+      throw new RuntimeException(
+          "Can't create handler inside thread that has not called Looper.prepare()");
+    }
+    this.looper = looper;
+  }
+
+  public void handleMessage(final Message message) {}
+
+  public void dispatchMessage(final Message message) {
+    if (message.callback != null) {
+      message.callback.run();
+    } else {
+      handleMessage(message);
+    }
+  }
+
+  public final Looper getLooper() {
+    return looper;
+  }
+
+  public final Message obtainMessage(final int what) {
+    return obtainMessage(what, null);
+  }
+
+  public final Message obtainMessage(final int what, final Object obj) {
+    final Message message = Message.obtain();
+    message.target = this;
+    message.what = what;
+    message.obj = obj;
+    return message;
+  }
+
+  public final boolean post(final Runnable runnable) {
+    return postDelayed(runnable, 0);
+  }
+
+  public final boolean postDelayed(final Runnable runnable, final long delayMillis) {
+    final Message message = obtainMessage(0);
+    message.callback = runnable;
+    return sendMessageDelayed(message, delayMillis);
+  }
+
+  public final boolean sendMessage(final Message message) {
+    return sendMessageDelayed(message, 0);
+  }
+
+  public final boolean sendMessageDelayed(final Message message, final long delayMillis) {
+    return sendMessageAtTime(message, SystemClock.uptimeMillis() + Math.max(0, delayMillis));
+  }
+
+  public boolean sendMessageAtTime(final Message message, final long uptimeMillis) {
+    message.target = this;
+    looper.queue.enqueue(message, uptimeMillis);
+    return true;
+  }
+
+  public final boolean hasMessages(final int what) {
+    return looper.queue.has(this, what, null);
+  }
+
+  public final boolean hasMessages(final int what, final Object obj) {
+    return looper.queue.has(this, what, obj);
+  }
+
+  public final void removeMessages(final int what) {
+    looper.queue.remove(this, what, null);
+  }
+
+  public final void removeMessages(final int what, final Object obj) {
+    looper.queue.remove(this, what, obj);
+  }
+}
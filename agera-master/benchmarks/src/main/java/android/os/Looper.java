@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * Plain JVM stand-in for the framework {@code Looper}, for running Agera in benchmarks.
+ *
+ * <p>Unlike the framework class there is no blocking {@code loop()}; the benchmark thread drains
+ * the queue explicitly with {@link #runPendingMessages()}.
+ */
+public final class Looper {
+  private static final ThreadLocal<Looper> looper = new ThreadLocal<>();
+
+  final MessageQueue queue;
+  private final Thread thread;
+
+  private Looper() {
+    this.queue = new MessageQueue();
+    this.thread = Thread.currentThread();
+  }
+
+  public static void prepare() {
+    if (looper.get() != null) {
+      throw new RuntimeException("Only one Looper may be created per thread");
+    }
+    looper.set(new Looper());
+  }
+
+  public static Looper myLooper() {
+    return looper.get();
+  }
+
+  public Thread getThread() {
+    return thread;
+  }
+
+  /**
+   * Dispatches all messages that are due now, including those sent while draining.
+   *
+   * @return The number of messages dispatched.
+   */
+  public int runPendingMessages() {
+    int count = 0;
+    Message message;
+    while ((message = queue.next(SystemClock.uptimeMillis())) != null) {
+      message.target.dispatchMessage(message);
+      count++;
+    }
+    return count;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * Plain JVM stand-in for the framework {@code Message}.
+ */
+public final class Message {
+  public int what;
+  public int arg1;
+  public int arg2;
+  public Object obj;
+  Handler target;
+  Runnable callback;
+  long when;
+  Message next;
+
+  public static Message obtain() {
+    return new Message();
+  }
+
+  public Handler getTarget() {
+    return target;
+  }
+
+  public void sendToTarget() {
+    target.sendMessage(this);
+  }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 Google Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.os;
+
+/**
+ * Plain JVM stand-in for the framework {@code MessageQueue}: a singly linked list ordered by
+ * delivery time, like the framework one, so that enqueuing and removal costs are comparable.
+ */
+final class MessageQueue {
+  private Message head;
+  private Message tail;
+
+  synchronized void enqueue(final Message message, final long when) {
+    message.when = when;
+    message.next = null;
+    if (head == null) {
+      head = tail = message;
+    } else if (when >= tail.when) {
+      tail.next = message;
+      tail = message;
+    } else if (when < head.when) {
+      message.next = head;
+      head = message;
+    } else {
+      Message previous = head;
+      while (previous.next.when <= when) {
+        previous = previous.next;
+      }
+      message.next = previous.next;
+      previous.next = message;
+    }
+  }
+
+  synchronized Message next(final long now) {
+    final Message message = head;
+    if (message == null || message.when > now) {
+      return null;
+    }
+    head = message.next;
+    if (head == null) {
+      tail = null;
+    }
+    message.next = null;
+    return message;
+  }
+
+  synchronized boolean has(final Handler target, final int what, final Object obj) {
+    for (Message message = head; message != null; message = message.next) {
+      if (matches(message, target, what, obj)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  synchronized void remove(final Handler target, final int what, final Object obj) {
+    Message previous = null;
+    Message message = head;
+    while (message != null) {
+      final Message next = message.next;
+      if (matches(message, target, what, obj)) {
+        if (previous == null) {
+          head = next;
+        } else {
+          previous.next = next;
+        }
+        if (message == tail) {
+          tail = previous;
+        }
+        message.next = null;
+      } else {
+        previous = message;
+      }
+      message = next;
+    }
+  }
+
+  private static boolean matches(final Message message, final Handler target, final int what,
+      final Object obj) {
+    return message.target == target && message.callback == null && message.what == what
+        && (obj == null || message.obj == obj);
+  }
+}
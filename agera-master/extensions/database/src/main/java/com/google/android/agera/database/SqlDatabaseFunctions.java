@@ -15,6 +15,8 @@
  */
 package com.google.android.agera.database;
 
+import static com.google.android.agera.PagedList.pagedList;
+import static com.google.android.agera.Preconditions.checkArgument;
 import static com.google.android.agera.Preconditions.checkNotNull;
 import static com.google.android.agera.Result.failure;
 import static com.google.android.agera.Result.success;
@@ -23,13 +25,19 @@ import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import com.google.android.agera.Function;
 import com.google.android.agera.Merger;
+import com.google.android.agera.PagedList;
+import com.google.android.agera.PagedList.PageSource;
 import com.google.android.agera.Result;
 import com.google.android.agera.Supplier;
+import com.google.android.agera.Updatable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Utility methods for obtaining database querying {@link Function} instances.
@@ -46,6 +54,37 @@ public final class SqlDatabaseFunctions {
     return new DatabaseFunction<>(database, new DatabaseQueryMerger<>(rowMap));
   }
 
+  /**
+   * Creates a sql query {@link Function} producing a {@link PagedList}. Only the number of rows is
+   * queried up front; the rows are queried {@code pageSize} at a time on {@code loadExecutor} as
+   * the list is read, keeping at most {@code maxLoadedPages} pages in memory. Rows not yet loaded,
+   * or no longer in the result when their page is queried, read as {@code placeholder}, and
+   * {@code onPageLoaded}, if not null, is updated from the loading thread after each page loads.
+   *
+   * <p>Each page is queried by wrapping the request in
+   * {@code SELECT * FROM (...) LIMIT ? OFFSET ?}, with the page size and offset bound after the
+   * arguments of the request, so the sql must be a single statement without a trailing semicolon
+   * and should have an {@code ORDER BY} that gives every row a fixed position. SQLite evaluates
+   * and skips all rows before the offset, so a page deep in a large result costs as much as
+   * reading all rows before it; results meant to be scrolled far should be narrowed by the query
+   * itself, for example with a {@code WHERE} on the sort key, rather than paged through. The
+   * database must stay open for as long as the list is in use.
+   *
+   * <p>With a {@code loadExecutor} that runs its commands directly, every page is queried on the
+   * thread reading the list, that is the main thread when a {@code RepositoryAdapter} binds it.
+   */
+  @NonNull
+  public static <T> Function<SqlRequest, Result<PagedList<T>>> databasePagedQueryFunction(
+      @NonNull final Supplier<Result<SQLiteDatabase>> database,
+      @NonNull final Function<Cursor, T> rowMap, @Nullable final T placeholder,
+      final int pageSize, final int maxLoadedPages, @NonNull final Executor loadExecutor,
+      @Nullable final Updatable onPageLoaded) {
+    checkArgument(pageSize > 0, "Page size must be positive");
+    checkArgument(maxLoadedPages > 0, "Max loaded pages must be positive");
+    return new DatabaseFunction<>(database, new DatabasePagedQueryMerger<>(rowMap, placeholder,
+        pageSize, maxLoadedPages, loadExecutor, onPageLoaded));
+  }
+
   /**
    * Creates a sql insert {@link Function}.
    */
@@ -154,6 +193,91 @@ public final class SqlDatabaseFunctions {
     }
   }
 
+  private static final class DatabasePagedQueryMerger<T>
+      implements Merger<SQLiteDatabase, SqlRequest, Result<PagedList<T>>> {
+    @NonNull
+    private final Function<Cursor, T> cursorToItem;
+    @Nullable
+    private final T placeholder;
+    private final int pageSize;
+    private final int maxLoadedPages;
+    @NonNull
+    private final Executor loadExecutor;
+    @Nullable
+    private final Updatable onPageLoaded;
+
+    private DatabasePagedQueryMerger(@NonNull final Function<Cursor, T> cursorToItem,
+        @Nullable final T placeholder, final int pageSize, final int maxLoadedPages,
+        @NonNull final Executor loadExecutor, @Nullable final Updatable onPageLoaded) {
+      this.cursorToItem = checkNotNull(cursorToItem);
+      this.placeholder = placeholder;
+      this.pageSize = pageSize;
+      this.maxLoadedPages = maxLoadedPages;
+      this.loadExecutor = checkNotNull(loadExecutor);
+      this.onPageLoaded = onPageLoaded;
+    }
+
+    @NonNull
+    @Override
+    public Result<PagedList<T>> merge(@NonNull final SQLiteDatabase database,
+        @NonNull final SqlRequest input) {
+      try {
+        final Cursor cursor =
+            database.rawQuery("SELECT COUNT(*) FROM (" + input.sql + ")", input.arguments);
+        final int count;
+        try {
+          cursor.moveToFirst();
+          count = cursor.getInt(0);
+        } finally {
+          cursor.close();
+        }
+        return success(pagedList(count, new DatabasePageSource<>(database, input, cursorToItem),
+            pageSize, maxLoadedPages, placeholder, loadExecutor, onPageLoaded));
+      } catch (final SQLException e) {
+        return failure(e);
+      }
+    }
+  }
+
+  private static final class DatabasePageSource<T> implements PageSource<T> {
+    @NonNull
+    private final SQLiteDatabase database;
+    @NonNull
+    private final SqlRequest request;
+    @NonNull
+    private final Function<Cursor, T> cursorToItem;
+
+    DatabasePageSource(@NonNull final SQLiteDatabase database, @NonNull final SqlRequest request,
+        @NonNull final Function<Cursor, T> cursorToItem) {
+      this.database = database;
+      this.request = request;
+      this.cursorToItem = cursorToItem;
+    }
+
+    @NonNull
+    @Override
+    public Result<List<T>> loadPage(final int offset, final int count) {
+      try {
+        final String[] arguments = Arrays.copyOf(request.arguments, request.arguments.length + 2);
+        arguments[arguments.length - 2] = String.valueOf(count);
+        arguments[arguments.length - 1] = String.valueOf(offset);
+        final Cursor cursor =
+            database.rawQuery("SELECT * FROM (" + request.sql + ") LIMIT ? OFFSET ?", arguments);
+        try {
+          final List<T> items = new ArrayList<>(count);
+          while (cursor.moveToNext()) {
+            items.add(cursorToItem.apply(cursor));
+          }
+          return success(items);
+        } finally {
+          cursor.close();
+        }
+      } catch (final SQLException e) {
+        return failure(e);
+      }
+    }
+  }
+
   static final class DatabaseFunction<R, T> implements Function<R, Result<T>> {
     @NonNull
     private final Supplier<Result<SQLiteDatabase>> databaseSupplier;
@@ -24,13 +24,13 @@ import static com.google.android.agera.Result.success;
 import static com.google.android.agera.Suppliers.staticSupplier;
 import static com.google.android.agera.database.SqlDatabaseFunctions.databaseDeleteFunction;
 import static com.google.android.agera.database.SqlDatabaseFunctions.databaseInsertFunction;
+import static com.google.android.agera.database.SqlDatabaseFunctions.databasePagedQueryFunction;
 import static com.google.android.agera.database.SqlDatabaseFunctions.databaseQueryFunction;
 import static com.google.android.agera.database.SqlDatabaseFunctions.databaseUpdateFunction;
 import static com.google.android.agera.database.SqlRequests.sqlDeleteRequest;
 import static com.google.android.agera.database.SqlRequests.sqlInsertRequest;
 import static com.google.android.agera.database.SqlRequests.sqlRequest;
 import static com.google.android.agera.database.SqlRequests.sqlUpdateRequest;
-import static com.google.android.agera.database.test.matchers.HasPrivateConstructor.hasPrivateConstructor;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.empty;
@@ -43,8 +43,11 @@ import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.support.annotation.NonNull;
 import com.google.android.agera.Function;
+import com.google.android.agera.PagedList;
 import com.google.android.agera.Result;
 import com.google.android.agera.Supplier;
+import com.google.android.agera.database.test.matchers.HasPrivateConstructor;
+import java.util.concurrent.Executor;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -66,6 +69,7 @@ public final class SqlDatabaseFunctionsTest {
       "SELECT * FROM test WHERE column='a' ORDER BY column";
   private static final Supplier<Result<SQLiteDatabase>> FAILURE =
       staticSupplier(Result.<SQLiteDatabase>failure(new Exception()));
+  private static final String PLACEHOLDER = "placeholder";
   private static final CursorStringFunction CURSOR_STRING_FUNCTION = new CursorStringFunction();
   public static final String COLUMN = "column";
 
@@ -133,6 +137,53 @@ public final class SqlDatabaseFunctionsTest {
         is(true));
   }
 
+  @Test
+  public void shouldGetPagedValuesForDatabaseQuery() throws Throwable {
+    final PagedList<String> list = pagedQueryFunction()
+        .apply(sqlRequest()
+            .sql(SQL_QUERY)
+            .compile()).get();
+
+    assertThat(list.size(), is(3));
+    assertThat(list.loadedPageCount(), is(0));
+    assertThat(list.get(2), is("value3"));
+    assertThat(list, contains("value1", "value2", "value3"));
+    assertThat(list.loadedPageCount(), is(1));
+  }
+
+  @Test
+  public void shouldPassArgumentsToPagedDatabaseQuery() throws Throwable {
+    assertThat(pagedQueryFunction()
+            .apply(sqlRequest()
+                .sql(SQL_QUERY_FOR_ARGUMENT)
+                .arguments("value2").compile()).get(),
+        contains("value2"));
+  }
+
+  @Test
+  public void shouldReturnPlaceholderForRowsDeletedAfterPagedQuery() throws Throwable {
+    final PagedList<String> list = pagedQueryFunction()
+        .apply(sqlRequest()
+            .sql(SQL_QUERY)
+            .compile()).get();
+    databaseDeleteFunction(databaseSupplier)
+        .apply(sqlDeleteRequest()
+            .table(TABLE)
+            .compile());
+
+    assertThat(list.size(), is(3));
+    assertThat(list.get(0), is(PLACEHOLDER));
+  }
+
+  @Test
+  public void shouldReturnFailureForInvalidPagedQuery() {
+    assertThat(pagedQueryFunction()
+            .apply(sqlRequest()
+                .sql(INVALID_QUERY)
+                .compile()).getFailure(),
+        instanceOf(SQLException.class));
+  }
+
   @Test
   public void shouldClearTableForDeleteWithoutArguments() throws Throwable {
     assertThat(databaseDeleteFunction(databaseSupplier)
@@ -517,7 +568,7 @@ public final class SqlDatabaseFunctionsTest {
 
   @Test
   public void shouldHavePrivateConstructor() {
-    assertThat(SqlDatabaseFunctions.class, hasPrivateConstructor());
+    assertThat(SqlDatabaseFunctions.class, HasPrivateConstructor.hasPrivateConstructor());
   }
 
   private static class CursorStringFunction implements Function<Cursor, String> {
@@ -528,6 +579,17 @@ public final class SqlDatabaseFunctionsTest {
     }
   }
 
+  @NonNull
+  private Function<SqlRequest, Result<PagedList<String>>> pagedQueryFunction() {
+    return databasePagedQueryFunction(databaseSupplier, CURSOR_STRING_FUNCTION, PLACEHOLDER, 2, 1,
+        new Executor() {
+          @Override
+          public void execute(@NonNull final Runnable command) {
+            command.run();
+          }
+        }, null);
+  }
+
   private void assertDatabaseEmpty() {
     final Cursor cursor = database.rawQuery(SELECT_TABLE, null);
     try {
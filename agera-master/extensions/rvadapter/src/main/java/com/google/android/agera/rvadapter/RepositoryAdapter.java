@@ -34,8 +34,10 @@ import android.support.v7.widget.RecyclerView.Adapter;
 import android.support.v7.widget.RecyclerView.ViewHolder;
 import android.view.LayoutInflater;
 import android.view.ViewGroup;
+import com.google.android.agera.DeltaRepository;
 import com.google.android.agera.Observable;
 import com.google.android.agera.Repository;
+import com.google.android.agera.Result;
 import com.google.android.agera.Updatable;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -537,6 +539,8 @@ public class RepositoryAdapter extends RecyclerView.Adapter<ViewHolder>
     private final RepositoryPresenter presenter;
     @NonNull
     private Object data;
+    /** The version of {@link #data} if the repository is a {@link DeltaRepository}. */
+    private long dataVersion;
     private RepositoryAdapter host;
     private int partIndex;
 
@@ -545,12 +549,30 @@ public class RepositoryAdapter extends RecyclerView.Adapter<ViewHolder>
         @NonNull final RepositoryPresenter presenter) {
       this.repository = repository;
       this.presenter = presenter;
-      this.data = repository.get();
+      reloadData();
+    }
+
+    /**
+     * Reloads {@link #data}, and {@link #dataVersion} if the repository is a
+     * {@link DeltaRepository}, as a consistent pair.
+     */
+    private void reloadData() {
+      if (repository instanceof DeltaRepository) {
+        final DeltaRepository deltaRepository = (DeltaRepository) repository;
+        long version;
+        do {
+          version = deltaRepository.getVersion();
+          data = repository.get();
+        } while (version != deltaRepository.getVersion());
+        dataVersion = version;
+      } else {
+        data = repository.get();
+      }
     }
 
     @Override
     int getItemCount() {
-      data = repository.get();
+      reloadData();
       return presenter.getItemCount(data);
     }
 
@@ -600,13 +622,35 @@ public class RepositoryAdapter extends RecyclerView.Adapter<ViewHolder>
     boolean getUpdates(final boolean reloadData,
         @NonNull final ListUpdateCallback listUpdateCallback) {
       final Object oldData = data;
-      final Object newData = reloadData ? repository.get() : oldData;
-      if (presenter.getUpdates(oldData, newData, listUpdateCallback)) {
+      final long oldDataVersion = dataVersion;
+      if (reloadData) {
+        reloadData();
+      }
+      final Object newData = data;
+      final long newDataVersion = dataVersion;
+      // Keep presenting the old data until the new data is applied.
+      data = oldData;
+      dataVersion = oldDataVersion;
+      if (getUpdates(oldData, oldDataVersion, newData, newDataVersion, listUpdateCallback)) {
         data = newData;
+        dataVersion = newDataVersion;
         return true;
       }
       return false;
     }
+
+    private boolean getUpdates(@NonNull final Object oldData, final long oldDataVersion,
+        @NonNull final Object newData, final long newDataVersion,
+        @NonNull final ListUpdateCallback listUpdateCallback) {
+      if (newDataVersion != oldDataVersion) {
+        final Result<List<?>> deltas =
+            ((DeltaRepository) repository).getDeltas(oldDataVersion, newDataVersion);
+        if (deltas.succeeded()) {
+          return presenter.getUpdates(oldData, newData, deltas.get(), listUpdateCallback);
+        }
+      }
+      return presenter.getUpdates(oldData, newData, listUpdateCallback);
+    }
   }
 
   @SuppressWarnings("unchecked")
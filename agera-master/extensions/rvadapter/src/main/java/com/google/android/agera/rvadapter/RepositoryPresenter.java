@@ -20,8 +20,10 @@ import android.support.annotation.NonNull;
 import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.RecyclerView.Adapter;
+import com.google.android.agera.DeltaRepository;
 import com.google.android.agera.Repository;
 import com.google.android.agera.rvadapter.RepositoryAdapter.Builder;
+import java.util.List;
 
 /**
  * Contains logic to present the content of a {@link Repository}.
@@ -137,4 +139,22 @@ public abstract class RepositoryPresenter<T> {
       @NonNull final ListUpdateCallback listUpdateCallback) {
     return false;
   }
+
+  /**
+   * Like {@link #getUpdates(Object, Object, ListUpdateCallback)}, produces a sequence of
+   * fine-grained events capturing the changes of data, but with the {@code deltas} that turn
+   * {@code oldData} into {@code newData}, so that implementation can translate the deltas into
+   * events instead of comparing the whole data. This method is called instead of the other when
+   * the update comes from the paired repository, the repository is a {@link DeltaRepository}, and
+   * it still has all the deltas between the two versions of the data. The base implementation
+   * ignores the deltas and calls {@link #getUpdates(Object, Object, ListUpdateCallback)}. Compiled
+   * presenters translate the deltas with the binder given to
+   * {@link RepositoryPresenterCompilerStates.RPDiff#applyDeltasWith applyDeltasWith}.
+   *
+   * @param deltas The deltas from {@link DeltaRepository#getDeltas}, oldest first.
+   */
+  public boolean getUpdates(@NonNull final T oldData, @NonNull final T newData,
+      @NonNull final List<?> deltas, @NonNull final ListUpdateCallback listUpdateCallback) {
+    return getUpdates(oldData, newData, listUpdateCallback);
+  }
 }
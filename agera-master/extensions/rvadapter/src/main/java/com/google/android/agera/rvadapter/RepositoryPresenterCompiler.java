@@ -27,24 +27,25 @@ import static java.util.Collections.emptyList;
 
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v7.util.DiffUtil;
 import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import com.google.android.agera.Binder;
 import com.google.android.agera.Function;
+import com.google.android.agera.PagedList;
 import com.google.android.agera.Receiver;
 import com.google.android.agera.Result;
 import com.google.android.agera.rvadapter.RepositoryPresenterCompilerStates.RPItemCompile;
 import com.google.android.agera.rvadapter.RepositoryPresenterCompilerStates.RPLayout;
 import com.google.android.agera.rvadapter.RepositoryPresenterCompilerStates.RPMain;
-import com.google.android.agera.rvadapter.RepositoryPresenterCompilerStates.RPTypedCollectionCompile;
 import java.lang.ref.WeakReference;
 import java.util.List;
 
 @SuppressWarnings({"unchecked, rawtypes"})
 final class RepositoryPresenterCompiler implements
-    RPLayout, RPMain, RPItemCompile, RPTypedCollectionCompile {
+    RPLayout, RPMain, RPItemCompile, RepositoryPresenterCompilerStates.RPTypedCollectionCompile {
   @NonNull
   private static final Function<Object, Object> NO_KEY_FOR_ITEM = identityFunction();
   @NonNull
@@ -62,41 +63,41 @@ final class RepositoryPresenterCompiler implements
   private boolean detectMoves;
   @NonNull
   private Binder collectionBinder = nullBinder();
+  @Nullable
+  private Binder deltaDispatcher;
 
   @NonNull
   @Override
   public RepositoryPresenter forItem() {
     return new CompiledRepositoryPresenter(layoutForItem, binder, stableIdForItem, recycler,
-        keyForItem, detectMoves, itemAsList(), collectionBinder);
+        keyForItem, detectMoves, deltaDispatcher, itemAsList(), collectionBinder);
   }
 
   @NonNull
   @Override
   public RepositoryPresenter<List> forList() {
     return new CompiledRepositoryPresenter(layoutForItem, binder, stableIdForItem, recycler,
-        keyForItem, detectMoves, (Function) identityFunction(),
-        collectionBinder);
+        keyForItem, detectMoves, deltaDispatcher, (Function) identityFunction(), collectionBinder);
   }
 
   @NonNull
   @Override
   public RepositoryPresenter<Result> forResult() {
     return new CompiledRepositoryPresenter(layoutForItem, binder, stableIdForItem, recycler,
-        keyForItem, detectMoves, (Function) resultAsList(),
-        collectionBinder);
+        keyForItem, detectMoves, deltaDispatcher, (Function) resultAsList(), collectionBinder);
   }
 
   @NonNull
   @Override
   public RepositoryPresenter<Result<List>> forResultList() {
     return new CompiledRepositoryPresenter(layoutForItem, binder, stableIdForItem, recycler,
-        keyForItem, detectMoves, (Function) resultListAsList(),
-        collectionBinder);
+        keyForItem, detectMoves, deltaDispatcher, (Function) resultListAsList(), collectionBinder);
   }
 
   @NonNull
   @Override
-  public RPTypedCollectionCompile bindCollectionWith(@NonNull final Binder collectionBinder) {
+  public RepositoryPresenterCompilerStates.RPTypedCollectionCompile bindCollectionWith(
+      @NonNull final Binder collectionBinder) {
     this.collectionBinder = collectionBinder;
     return this;
   }
@@ -105,7 +106,7 @@ final class RepositoryPresenterCompiler implements
   @Override
   public RepositoryPresenter forCollection(@NonNull final Function converter) {
     return new CompiledRepositoryPresenter(layoutForItem, binder, stableIdForItem, recycler,
-        keyForItem, detectMoves, converter, collectionBinder);
+        keyForItem, detectMoves, deltaDispatcher, converter, collectionBinder);
   }
 
   @NonNull
@@ -158,6 +159,13 @@ final class RepositoryPresenterCompiler implements
     return this;
   }
 
+  @NonNull
+  @Override
+  public Object applyDeltasWith(@NonNull final Binder deltaDispatcher) {
+    this.deltaDispatcher = checkNotNull(deltaDispatcher);
+    return this;
+  }
+
   @NonNull
   @Override
   public RPItemCompile diff() {
@@ -184,6 +192,8 @@ final class RepositoryPresenterCompiler implements
     @NonNull
     private final Function<Object, Object> keyForItem;
     private final boolean detectMoves;
+    @Nullable
+    private final Binder<Object, ListUpdateCallback> deltaDispatcher;
     @NonNull
     private WeakReference<Object> dataRef = new WeakReference<>(null);
     @NonNull
@@ -196,6 +206,7 @@ final class RepositoryPresenterCompiler implements
         @NonNull final Receiver<View> recycler,
         @NonNull final Function<Object, Object> keyForItem,
         final boolean detectMoves,
+        @Nullable final Binder<Object, ListUpdateCallback> deltaDispatcher,
         @NonNull final Function<Object, List<Object>> converter,
         @NonNull final Binder<Object, View> collectionBinder) {
       this.collectionBinder = collectionBinder;
@@ -207,6 +218,7 @@ final class RepositoryPresenterCompiler implements
       this.enableDiff = keyForItem != NO_KEY_FOR_ITEM;
       this.keyForItem = keyForItem;
       this.detectMoves = detectMoves;
+      this.deltaDispatcher = deltaDispatcher;
     }
 
     @Override
@@ -252,6 +264,19 @@ final class RepositoryPresenterCompiler implements
       return items;
     }
 
+    @Override
+    public boolean getUpdates(@NonNull final Object oldData, @NonNull final Object newData,
+        @NonNull final List deltas, @NonNull final ListUpdateCallback listUpdateCallback) {
+      if (deltaDispatcher == null) {
+        return getUpdates(oldData, newData, listUpdateCallback);
+      }
+      for (final Object delta : deltas) {
+        deltaDispatcher.bind(delta, listUpdateCallback);
+      }
+      getItems(newData); // Saves newData to dataRef like diffing does.
+      return true;
+    }
+
     @Override
     public boolean getUpdates(@NonNull final Object oldData, @NonNull final Object newData,
         @NonNull final ListUpdateCallback listUpdateCallback) {
@@ -269,6 +294,11 @@ final class RepositoryPresenterCompiler implements
       // Do proper diffing.
       final List oldItems = getItems(oldData);
       final List newItems = getItems(newData); // This conveniently saves newData to dataRef.
+      if (oldItems instanceof PagedList || newItems instanceof PagedList) {
+        // Diffing would load every page; fall back to a full refresh that only rebinds what is
+        // on screen.
+        return false;
+      }
       DiffUtil.calculateDiff(new DiffUtil.Callback() {
         @Override
         public int getOldListSize() {
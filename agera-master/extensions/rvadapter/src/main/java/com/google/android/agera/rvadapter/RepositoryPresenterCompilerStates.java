@@ -19,10 +19,13 @@ import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.v7.util.DiffUtil;
 import android.support.v7.util.DiffUtil.Callback;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 import com.google.android.agera.Binder;
+import com.google.android.agera.DeltaRepository;
 import com.google.android.agera.Function;
+import com.google.android.agera.PagedList;
 import com.google.android.agera.Receiver;
 import com.google.android.agera.Repository;
 import com.google.android.agera.Result;
@@ -73,7 +76,9 @@ public interface RepositoryPresenterCompilerStates {
      * <p>Note that {@link DiffUtil} may not be suitable for all situations due to the computation
      * complexity and that <i>the computation is likely done from the main thread</i>. If client
      * code has better alternatives, it should directly subclass {@link RepositoryPresenter} and
-     * provide a custom implementation in {@link RepositoryPresenter#getUpdates}.
+     * provide a custom implementation in {@link RepositoryPresenter#getUpdates}. Collections
+     * converted to a {@link PagedList} are not diffed, since that would load all of their items;
+     * the presenter refuses to generate fine-grained events for them instead.
      *
      * @param keyForItem A function from individual item objects to objects uniquely identifying the
      *     items across any changes. Can be the same as the stable ID function, provided the
@@ -84,6 +89,21 @@ public interface RepositoryPresenterCompilerStates {
      */
     @NonNull
     TRet diffWith(@NonNull Function<? super TVal, ?> keyForItem, boolean detectMoves);
+
+    /**
+     * Specifies a {@link Binder} translating each delta of a {@link DeltaRepository} into
+     * fine-grained events, by calling the {@link ListUpdateCallback} it is bound to with positions
+     * relative to the presenter. When the presented repository is a {@link DeltaRepository} that
+     * still has all the deltas of an update, the presenter dispatches them in order, oldest first,
+     * instead of comparing the whole data; otherwise it falls back to {@link #diffWith}, if
+     * specified. The deltas must completely and accurately describe the changes.
+     *
+     * @param deltaDispatcher A binder of each delta to the callback recording the events. The
+     *     delta type must be the one of the presented {@link DeltaRepository}.
+     * @see RepositoryPresenter#getUpdates(Object, Object, List, ListUpdateCallback)
+     */
+    @NonNull
+    <TDelta> TRet applyDeltasWith(@NonNull Binder<TDelta, ListUpdateCallback> deltaDispatcher);
   }
 
   /**
@@ -20,7 +20,6 @@ import static com.google.android.agera.Result.present;
 import static com.google.android.agera.Result.success;
 import static com.google.android.agera.rvadapter.RepositoryPresenters.repositoryPresenterOf;
 import static com.google.android.agera.rvadapter.test.VerifyingWrappers.verifyingWrapper;
-import static com.google.android.agera.rvadapter.test.matchers.HasPrivateConstructor.hasPrivateConstructor;
 import static java.lang.String.valueOf;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
@@ -41,9 +40,11 @@ import com.google.android.agera.Binder;
 import com.google.android.agera.Binders;
 import com.google.android.agera.Function;
 import com.google.android.agera.Functions;
+import com.google.android.agera.PagedList;
 import com.google.android.agera.Receiver;
 import com.google.android.agera.Result;
 import com.google.android.agera.rvadapter.test.DiffingLogic;
+import com.google.android.agera.rvadapter.test.matchers.HasPrivateConstructor;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
@@ -388,6 +389,43 @@ public class RepositoryPresentersTest {
     assertThat(fineGrained, is(false));
   }
 
+  @Test
+  public void shouldDispatchDeltasWithApplyDeltasWith() {
+    final RepositoryPresenter<List<String>> deltaPresenter =
+        repositoryPresenterOf(String.class)
+            .layout(LAYOUT_ID)
+            .applyDeltasWith(new Binder<Integer, ListUpdateCallback>() {
+              @Override
+              public void bind(@NonNull final Integer insertedIndex,
+                  @NonNull final ListUpdateCallback listUpdateCallback) {
+                listUpdateCallback.onInserted(insertedIndex, 1);
+              }
+            })
+            .forList();
+
+    final boolean fineGrained = deltaPresenter.getUpdates(singletonList(STRING),
+        asList(SECOND_STRING, STRING, SECOND_STRING), asList(0, 2), listUpdateCallback);
+
+    assertThat(fineGrained, is(true));
+    verify(listUpdateCallback).onInserted(0, 1);
+    verify(listUpdateCallback).onInserted(2, 1);
+    verifyNoMoreInteractions(listUpdateCallback);
+  }
+
+  @Test
+  public void shouldRefuseFineGrainedEventsForDeltasWithoutApplyDeltasWith() {
+    final RepositoryPresenter<List<String>> presenter =
+        repositoryPresenterOf(String.class)
+            .layout(LAYOUT_ID)
+            .forList();
+
+    final boolean fineGrained = presenter.getUpdates(singletonList(STRING), STRING_LIST,
+        singletonList(1), listUpdateCallback);
+
+    assertThat(fineGrained, is(false));
+    verifyNoMoreInteractions(listUpdateCallback);
+  }
+
   @Test
   public void shouldNotifyFineGrainedEventsWithDiffWith() {
     final List<String> oldData = asList("A:1", "B:2", "C:3");
@@ -427,6 +465,22 @@ public class RepositoryPresentersTest {
     verifyNoMoreInteractions(listUpdateCallback);
   }
 
+  @Test
+  public void shouldRefuseFineGrainedEventsForPagedLists() {
+    final List<String> oldData = pagedList("A:1", "B:2");
+    final List<String> newData = pagedList("B:2", "A:4");
+    final RepositoryPresenter<List<String>> diffingPresenter =
+        repositoryPresenterOf(String.class)
+            .layout(LAYOUT_ID)
+            .diffWith(new DiffingLogic(oldData, newData), false)
+            .forList();
+
+    final boolean fineGrained = diffingPresenter.getUpdates(oldData, newData, listUpdateCallback);
+
+    assertThat(fineGrained, is(false));
+    verifyNoMoreInteractions(listUpdateCallback);
+  }
+
   @Test
   public void shouldNotifySingleItemFineGrainedEventsWithDiff() {
     final Result<String> withA = success("A");
@@ -476,6 +530,17 @@ public class RepositoryPresentersTest {
 
   @Test
   public void shouldHavePrivateConstructor() {
-    assertThat(RepositoryPresenters.class, hasPrivateConstructor());
+    assertThat(RepositoryPresenters.class, HasPrivateConstructor.hasPrivateConstructor());
+  }
+
+  @NonNull
+  private static List<String> pagedList(@NonNull final String... items) {
+    return PagedList.pagedList(items.length, new PagedList.PageSource<String>() {
+      @NonNull
+      @Override
+      public Result<List<String>> loadPage(final int offset, final int count) {
+        return success(asList(items).subList(offset, offset + count));
+      }
+    }, 1, 1, null);
   }
 }
@@ -31,12 +31,15 @@ import android.databinding.DataBindingUtil;
 import android.databinding.ViewDataBinding;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v7.util.DiffUtil;
 import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
 import android.util.SparseArray;
 import android.view.View;
+import com.google.android.agera.Binder;
 import com.google.android.agera.Function;
+import com.google.android.agera.PagedList;
 import com.google.android.agera.Result;
 import com.google.android.agera.rvadapter.RepositoryPresenter;
 import com.google.android.agera.rvadapter.RepositoryPresenterCompilerStates.RPItemCompile;
@@ -65,6 +68,8 @@ final class DataBindingRepositoryPresenterCompiler
   @NonNull
   private Function<Object, Object> keyForItem = NO_KEY_FOR_ITEM;
   private boolean detectMoves;
+  @Nullable
+  private Binder deltaDispatcher;
 
   DataBindingRepositoryPresenterCompiler() {
     this.handlers = new SparseArray<>();
@@ -99,6 +104,13 @@ final class DataBindingRepositoryPresenterCompiler
     return this;
   }
 
+  @NonNull
+  @Override
+  public DBRPMain applyDeltasWith(@NonNull final Binder deltaDispatcher) {
+    this.deltaDispatcher = checkNotNull(deltaDispatcher);
+    return this;
+  }
+
   @NonNull
   @Override
   public RPItemCompile diff() {
@@ -111,7 +123,8 @@ final class DataBindingRepositoryPresenterCompiler
   @Override
   public RepositoryPresenter forItem() {
     return new CompiledRepositoryPresenter(itemId, layoutFactory, stableIdForItem,
-        handlers, recycleConfig, itemAsList(), collectionId, keyForItem, detectMoves);
+        handlers, recycleConfig, itemAsList(), collectionId, keyForItem, detectMoves,
+        deltaDispatcher);
   }
 
   @NonNull
@@ -119,14 +132,15 @@ final class DataBindingRepositoryPresenterCompiler
   public RepositoryPresenter<List<Object>> forList() {
     return new CompiledRepositoryPresenter(itemId, layoutFactory, stableIdForItem,
         handlers, recycleConfig, (Function) identityFunction(), collectionId, keyForItem,
-        detectMoves);
+        detectMoves, deltaDispatcher);
   }
 
   @NonNull
   @Override
   public RepositoryPresenter<Result<Object>> forResult() {
     return new CompiledRepositoryPresenter(itemId, layoutFactory, stableIdForItem,
-        handlers, recycleConfig, (Function) resultAsList(), collectionId, keyForItem, detectMoves);
+        handlers, recycleConfig, (Function) resultAsList(), collectionId, keyForItem, detectMoves,
+        deltaDispatcher);
   }
 
   @NonNull
@@ -134,14 +148,14 @@ final class DataBindingRepositoryPresenterCompiler
   public RepositoryPresenter<Result<List<Object>>> forResultList() {
     return new CompiledRepositoryPresenter(itemId, layoutFactory,
         stableIdForItem, handlers, recycleConfig, (Function) resultListAsList(), collectionId,
-        keyForItem, detectMoves);
+        keyForItem, detectMoves, deltaDispatcher);
   }
 
   @NonNull
   @Override
   public RepositoryPresenter forCollection(@NonNull final Function converter) {
     return new CompiledRepositoryPresenter(itemId, layoutFactory, stableIdForItem,
-        handlers, recycleConfig, converter, collectionId, keyForItem, detectMoves);
+        handlers, recycleConfig, converter, collectionId, keyForItem, detectMoves, deltaDispatcher);
   }
 
   @NonNull
@@ -204,6 +218,8 @@ final class DataBindingRepositoryPresenterCompiler
     @NonNull
     private final Function<Object, Object> keyForItem;
     private final boolean detectMoves;
+    @Nullable
+    private final Binder<Object, ListUpdateCallback> deltaDispatcher;
 
     @NonNull
     private WeakReference<Object> dataRef = new WeakReference<>(null);
@@ -219,7 +235,8 @@ final class DataBindingRepositoryPresenterCompiler
         @NonNull final Function<Object, List<Object>> converter,
         final int collectionId,
         @NonNull final Function<Object, Object> keyForItem,
-        final boolean detectMoves) {
+        final boolean detectMoves,
+        @Nullable final Binder<Object, ListUpdateCallback> deltaDispatcher) {
       this.itemId = itemId;
       this.collectionId = collectionId;
       this.converter = converter;
@@ -230,6 +247,7 @@ final class DataBindingRepositoryPresenterCompiler
       this.enableDiff = keyForItem != NO_KEY_FOR_ITEM;
       this.keyForItem = keyForItem;
       this.detectMoves = detectMoves;
+      this.deltaDispatcher = deltaDispatcher;
     }
 
     @Override
@@ -306,6 +324,19 @@ final class DataBindingRepositoryPresenterCompiler
       return items;
     }
 
+    @Override
+    public boolean getUpdates(@NonNull final Object oldData, @NonNull final Object newData,
+        @NonNull final List deltas, @NonNull final ListUpdateCallback listUpdateCallback) {
+      if (deltaDispatcher == null) {
+        return getUpdates(oldData, newData, listUpdateCallback);
+      }
+      for (final Object delta : deltas) {
+        deltaDispatcher.bind(delta, listUpdateCallback);
+      }
+      getItems(newData); // Saves newData to dataRef like diffing does.
+      return true;
+    }
+
     @Override
     public boolean getUpdates(@NonNull final Object oldData, @NonNull final Object newData,
         @NonNull final ListUpdateCallback listUpdateCallback) {
@@ -323,6 +354,11 @@ final class DataBindingRepositoryPresenterCompiler
       // Do proper diffing.
       final List oldItems = getItems(oldData);
       final List newItems = getItems(newData); // This conveniently saves newData to dataRef.
+      if (oldItems instanceof PagedList || newItems instanceof PagedList) {
+        // Diffing would load every page; fall back to a full refresh that only rebinds what is
+        // on screen.
+        return false;
+      }
       DiffUtil.calculateDiff(new DiffUtil.Callback() {
         @Override
         public int getOldListSize() {
@@ -47,6 +47,7 @@ import android.support.v7.widget.RecyclerView.ViewHolder;
 import android.view.View;
 import com.google.android.agera.Function;
 import com.google.android.agera.Functions;
+import com.google.android.agera.PagedList;
 import com.google.android.agera.Result;
 import com.google.android.agera.rvadapter.RepositoryPresenter;
 import com.google.android.agera.rvdatabinding.test.DiffingLogic;
@@ -866,6 +867,25 @@ public class DataBindingRepositoryPresentersTest {
     verifyNoMoreInteractions(listUpdateCallback);
   }
 
+  @Test
+  public void shouldRefuseFineGrainedEventsForPagedLists() {
+    final PagedList<String> oldData = pagedList("A:1", "B:2");
+    final PagedList<String> newData = pagedList("B:2", "A:4");
+    final RepositoryPresenter<List<String>> diffingPresenter =
+        dataBindingRepositoryPresenterOf(String.class)
+            .layout(LAYOUT_ID)
+            .itemId(ITEM_ID)
+            .diffWith(new DiffingLogic(oldData, newData), false)
+            .forList();
+
+    final boolean fineGrained = diffingPresenter.getUpdates(oldData, newData, listUpdateCallback);
+
+    assertThat(fineGrained, is(false));
+    assertThat(oldData.loadedPageCount(), is(0));
+    assertThat(newData.loadedPageCount(), is(0));
+    verifyNoMoreInteractions(listUpdateCallback);
+  }
+
   @Test
   public void shouldNotifySingleItemFineGrainedEventsWithDiff() {
     final Result<String> withA = success("A");
@@ -920,6 +940,17 @@ public class DataBindingRepositoryPresentersTest {
     assertThat(DataBindingRepositoryPresenters.class, hasPrivateConstructor());
   }
 
+  @NonNull
+  private static PagedList<String> pagedList(@NonNull final String... items) {
+    return PagedList.pagedList(items.length, new PagedList.PageSource<String>() {
+      @NonNull
+      @Override
+      public Result<List<String>> loadPage(final int offset, final int count) {
+        return success(asList(items).subList(offset, offset + count));
+      }
+    }, 1, 1, null);
+  }
+
   private static final class StringToFirstCharStringList implements Function<String, List<String>> {
     @NonNull
     @Override